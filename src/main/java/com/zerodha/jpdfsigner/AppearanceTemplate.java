@@ -0,0 +1,256 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfSignatureAppearance;
+import com.lowagie.text.pdf.PdfStamper;
+import com.lowagie.text.pdf.PdfTemplate;
+import com.lowagie.text.pdf.PdfWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+
+/**
+ * AppearanceTemplate draws the visible signature from a configured text layout
+ * and an optional PNG/JPEG image. The static part of the appearance is laid
+ * out once per combination of signer, reason, contact, location and box size
+ * into a one page PDF, which every signed document imports as a form XObject.
+ * The PDF is parsed once; each sign imports from a duplicate of the parsed
+ * reader, which shares nothing mutable with other signs. Only the signing
+ * date, if enabled, is drawn per document.
+ */
+public class AppearanceTemplate {
+
+    // Placeholders available in appearance_text.
+    static final String SIGNER = "{signer}";
+    static final String REASON = "{reason}";
+    static final String CONTACT = "{contact}";
+    static final String LOCATION = "{location}";
+
+    private static final int MAX_CACHED = 64;
+    private static final float MARGIN = 2;
+
+    // Rendered is the pre-rendered static appearance and where the date goes.
+    static class Rendered {
+        final byte[] pdf;
+        final float dateX;
+        final float dateY;
+        private final PdfReader parsed;
+
+        Rendered(byte[] pdf, float dateX, float dateY) throws IOException {
+            this.pdf = pdf;
+            this.dateX = dateX;
+            this.dateY = dateY;
+            this.parsed = new PdfReader(pdf);
+        }
+
+        // An independent reader over the parsed PDF, for one sign.
+        PdfReader reader() {
+            return new PdfReader(parsed);
+        }
+    }
+
+    private final String text;
+    private final byte[] image;
+    private final boolean showDate;
+    private final Font font;
+    private final BaseFont dateFont;
+
+    private final Map<String, Rendered> cache = new LinkedHashMap<String, Rendered>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Rendered> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    public AppearanceTemplate(String text, byte[] image, boolean showDate, Font font) {
+        this.text = text;
+        this.image = image;
+        this.showDate = showDate;
+        this.font = font;
+        this.dateFont = font.getCalculatedBaseFont(false);
+    }
+
+    /**
+     * Create the template from the appearance_* settings.
+     *
+     * @param config Properties containing appearance_text, appearance_image and
+     *               appearance_show_date
+     * @param font   Font used for the text
+     * @return The template, or null if neither appearance_text nor
+     *         appearance_image is set
+     * @throws IOException if the image cannot be read
+     */
+    public static AppearanceTemplate fromConfig(Properties config, Font font) throws IOException {
+        String text = config.getProperty("appearance_text");
+        String imagePath = config.getProperty("appearance_image");
+        if ((text == null || text.isEmpty()) && (imagePath == null || imagePath.isEmpty())) {
+            return null;
+        }
+
+        byte[] image = null;
+        if (imagePath != null && !imagePath.isEmpty()) {
+            image = Files.readAllBytes(Paths.get(imagePath));
+        }
+
+        return new AppearanceTemplate(
+                text,
+                image,
+                Boolean.parseBoolean(config.getProperty("appearance_show_date", "true")),
+                font);
+    }
+
+    /**
+     * Draw the appearance into layer 2 of the signature. Must be called after
+     * the visible signature rectangle has been set.
+     */
+    void apply(PdfStamper stp, PdfSignatureAppearance sap, SignParams params)
+            throws DocumentException, IOException {
+        Rectangle rect = sap.getRect();
+        Rendered rendered = render(
+                signerName(params.getChain()),
+                params.getReason(),
+                params.getContact(),
+                params.getLocation(),
+                rect.getWidth(),
+                rect.getHeight());
+
+        // A filled layer 2 replaces OpenPDF's default text layout. The
+        // imported page is written out at once so the reader can be closed.
+        PdfTemplate n2 = sap.getLayer(2);
+        PdfReader reader = rendered.reader();
+        try {
+            n2.addTemplate(stp.getImportedPage(reader, 1), 0, 0);
+            stp.getWriter().freeReader(reader);
+        } finally {
+            reader.close();
+        }
+
+        if (showDate) {
+            String date = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss z").format(sap.getSignDate().getTime());
+            n2.beginText();
+            n2.setFontAndSize(dateFont, font.getSize());
+            if (font.getColor() != null) {
+                n2.setColorFill(font.getColor());
+            }
+            n2.setTextMatrix(rendered.dateX, rendered.dateY);
+            n2.showText("Date: " + date);
+            n2.endText();
+        }
+    }
+
+    /**
+     * Return the pre-rendered appearance for the given values, rendering it on
+     * first use. Only the cache lookup is locked; signs that miss at the same
+     * time may each render, and the first one stored is kept.
+     */
+    Rendered render(String signer, String reason, String contact, String location,
+            float width, float height) throws DocumentException, IOException {
+        String key = String.join("\0", signer, reason, contact, location,
+                Float.toString(width), Float.toString(height));
+        synchronized (cache) {
+            Rendered rendered = cache.get(key);
+            if (rendered != null) {
+                return rendered;
+            }
+        }
+
+        Rendered rendered = renderPage(formatText(signer, reason, contact, location), width, height);
+        synchronized (cache) {
+            Rendered existing = cache.putIfAbsent(key, rendered);
+            return existing != null ? existing : rendered;
+        }
+    }
+
+    String formatText(String signer, String reason, String contact, String location) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace(SIGNER, nullToEmpty(signer))
+                .replace(REASON, nullToEmpty(reason))
+                .replace(CONTACT, nullToEmpty(contact))
+                .replace(LOCATION, nullToEmpty(location));
+    }
+
+    private Rendered renderPage(String content, float width, float height)
+            throws DocumentException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(new Rectangle(width, height), 0, 0, 0, 0);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        document.open();
+        writer.setPageEmpty(false);
+        PdfContentByte cb = writer.getDirectContent();
+        float leading = font.getSize() * 1.2f;
+
+        // The image takes the left part of the box when there is text, or the
+        // whole box above the date line otherwise.
+        float textLeft = MARGIN;
+        if (image != null) {
+            Image img = Image.getInstance(image);
+            if (content.isEmpty()) {
+                float bottom = showDate ? MARGIN + leading : MARGIN;
+                img.scaleToFit(width - 2 * MARGIN, height - MARGIN - bottom);
+                img.setAbsolutePosition((width - img.getScaledWidth()) / 2, bottom);
+            } else {
+                img.scaleToFit(Math.min(width / 3, height - 2 * MARGIN), height - 2 * MARGIN);
+                img.setAbsolutePosition(MARGIN, (height - img.getScaledHeight()) / 2);
+                textLeft = MARGIN * 2 + img.getScaledWidth();
+            }
+            cb.addImage(img);
+        }
+
+        // The date goes on the line below the text.
+        float dateY = MARGIN + font.getSize() * 0.2f;
+        if (!content.isEmpty()) {
+            ColumnText ct = new ColumnText(cb);
+            ct.setSimpleColumn(new Phrase(content, font), textLeft, MARGIN, width - MARGIN, height - MARGIN,
+                    leading, Element.ALIGN_LEFT);
+            ct.go();
+            dateY = Math.max(dateY, ct.getYLine() - leading);
+        }
+
+        document.close();
+        return new Rendered(out.toByteArray(), textLeft, dateY);
+    }
+
+    // Common name of the signing certificate, as in OpenPDF's default layout.
+    static String signerName(Certificate[] chain) {
+        if (chain == null || chain.length == 0 || !(chain[0] instanceof X509Certificate)) {
+            return "";
+        }
+        try {
+            LdapName name = new LdapName(((X509Certificate) chain[0]).getSubjectX500Principal().getName());
+            for (Rdn rdn : name.getRdns()) {
+                if (rdn.getType().equalsIgnoreCase("CN")) {
+                    return rdn.getValue().toString();
+                }
+            }
+        } catch (InvalidNameException e) {
+            System.err.println("Error reading signer name: " + e.getMessage());
+        }
+        return "";
+    }
+
+    private static String nullToEmpty(String s) {
+        return s != null ? s : "";
+    }
+}
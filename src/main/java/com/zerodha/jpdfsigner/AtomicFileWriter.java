@@ -0,0 +1,367 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AtomicFileWriter writes local outputs to a hidden temp file next to the
+ * destination and renames it over the destination once it is complete, so a
+ * crash or a failed sign never leaves a truncated PDF at the destination.
+ *
+ * How much of that survives a power loss depends on the durability policy:
+ * NONE only renames, FSYNC syncs every file before the rename and its
+ * directory after it, and GROUP holds completed files back and syncs and renames
+ * them in batches of groupFiles, or after groupMillis, which amortises the
+ * directory syncs of a bulk run.
+ */
+public class AtomicFileWriter implements AutoCloseable {
+
+    public enum Durability {
+        NONE, FSYNC, GROUP
+    }
+
+    /**
+     * Output is one file being written. It is either committed, which moves
+     * it to its destination, or aborted, which deletes it.
+     */
+    public class Output {
+        private final Path dest;
+        private final Path temp;
+        private final FileOutputStream file;
+        private final OutputStream stream;
+        private boolean done;
+
+        private Output(Path dest, Path temp) throws IOException {
+            this.dest = dest;
+            this.temp = temp;
+            this.file = new FileOutputStream(temp.toFile());
+            this.stream = io.wrap(file);
+        }
+
+        /**
+         * The stream to write the file through. PdfStamper closes it when the
+         * document is done, which only flushes it: the file stays open until
+         * commit or abort, so commit can still sync it.
+         */
+        public OutputStream stream() {
+            return new FilterOutputStream(stream) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.flush();
+                }
+            };
+        }
+
+        /**
+         * Complete the file. With the GROUP policy it only appears at its
+         * destination with the next group commit.
+         */
+        public void commit() throws IOException {
+            done = true;
+            try {
+                stream.flush();
+                if (durability == Durability.FSYNC) {
+                    file.getFD().sync();
+                }
+                stream.close();
+            } catch (IOException e) {
+                closeQuietly();
+                deleteQuietly(temp);
+                throw e;
+            }
+
+            if (durability == Durability.GROUP) {
+                addToGroup(this);
+            } else {
+                moveIntoPlace(temp, dest);
+                if (durability == Durability.FSYNC) {
+                    syncDirectory(dest.toAbsolutePath().getParent());
+                }
+            }
+        }
+
+        /**
+         * Drop the file, leaving the destination as it was. Does nothing after
+         * commit.
+         */
+        public void abort() {
+            if (done) {
+                return;
+            }
+            done = true;
+            closeQuietly();
+            deleteQuietly(temp);
+        }
+
+        private void closeQuietly() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                System.err.println("Error closing " + temp + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private final Durability durability;
+    private final int groupFiles;
+    private final long groupMillis;
+    private final LocalFileIO io;
+
+    private final List<Output> group = new ArrayList<>();
+    private long groupStarted;
+    private ScheduledExecutorService timer;
+    // A failed commit of the timer, thrown from the next addToGroup, flush or
+    // close, since the timer has no caller to tell.
+    private IOException timerFailure;
+
+    /**
+     * @param durability  Durability policy
+     * @param groupFiles  GROUP only: commit after this many files
+     * @param groupMillis GROUP only: commit files at most this long after the
+     *                    first one of the group completed
+     */
+    public AtomicFileWriter(Durability durability, int groupFiles, long groupMillis) {
+        this(durability, groupFiles, groupMillis, LocalFileIO.defaults());
+    }
+
+    /**
+     * @param io How the files are written
+     */
+    public AtomicFileWriter(Durability durability, int groupFiles, long groupMillis, LocalFileIO io) {
+        this.durability = durability;
+        this.io = io;
+        this.groupFiles = Math.max(1, groupFiles);
+        this.groupMillis = groupMillis;
+
+        if (durability == Durability.GROUP && groupMillis > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "group-commit");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1, groupMillis / 4);
+            timer.scheduleWithFixedDelay(this::commitIfDue, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Create a writer from output_durability, output_group_files,
+     * output_group_ms and the local_* I/O settings.
+     *
+     * @param config Properties with the optional settings
+     * @param bulk   Whether outputs are written by a bulk run, which may defer
+     *               them. Otherwise GROUP falls back to FSYNC, since a caller
+     *               is told the file is written as soon as sign returns.
+     */
+    public static AtomicFileWriter fromConfig(Properties config, boolean bulk) {
+        Durability durability = Durability.valueOf(
+                config.getProperty("output_durability", "none").trim().toUpperCase(Locale.ROOT));
+        if (durability == Durability.GROUP && !bulk) {
+            System.out.println("output_durability=group only applies to the CLI, using fsync");
+            durability = Durability.FSYNC;
+        }
+        return new AtomicFileWriter(durability,
+                Integer.parseInt(config.getProperty("output_group_files", "100")),
+                Long.parseLong(config.getProperty("output_group_ms", "1000")),
+                LocalFileIO.fromConfig(config));
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Start writing a file that replaces dest when committed.
+     */
+    public Output open(Path dest) throws IOException {
+        Path temp = createTemp(dest);
+        try {
+            copyPermissions(dest, temp);
+            return new Output(dest, temp);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    private synchronized void addToGroup(Output output) throws IOException {
+        throwTimerFailure();
+        if (group.isEmpty()) {
+            groupStarted = System.currentTimeMillis();
+        }
+        group.add(output);
+        if (group.size() >= groupFiles) {
+            flush();
+        }
+    }
+
+    private synchronized void commitIfDue() {
+        if (!group.isEmpty() && System.currentTimeMillis() - groupStarted >= groupMillis) {
+            try {
+                flush();
+            } catch (IOException e) {
+                System.err.println("Group commit failed: " + e.getMessage());
+                if (timerFailure == null) {
+                    timerFailure = e;
+                }
+            }
+        }
+    }
+
+    private void throwTimerFailure() throws IOException {
+        IOException e = timerFailure;
+        if (e != null) {
+            timerFailure = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Sync and move the files of the current group into place. Their data is
+     * synced before any is renamed and each directory is synced once after.
+     * Throws the failure of an earlier commit by the timer, if any.
+     */
+    public synchronized void flush() throws IOException {
+        throwTimerFailure();
+        if (group.isEmpty()) {
+            return;
+        }
+
+        List<Output> batch = new ArrayList<>(group);
+        group.clear();
+
+        IOException failure = null;
+        List<Output> synced = new ArrayList<>();
+        for (Output output : batch) {
+            try (FileChannel channel = FileChannel.open(output.temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+                synced.add(output);
+            } catch (IOException e) {
+                failure = failed(output, e, failure);
+            }
+        }
+
+        Set<Path> dirs = new LinkedHashSet<>();
+        for (Output output : synced) {
+            try {
+                moveIntoPlace(output.temp, output.dest);
+                dirs.add(output.dest.toAbsolutePath().getParent());
+            } catch (IOException e) {
+                failure = failed(output, e, failure);
+            }
+        }
+        for (Path dir : dirs) {
+            syncDirectory(dir);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Commit any files still held back and stop the group commit timer.
+     */
+    @Override
+    public void close() throws IOException {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        flush();
+    }
+
+    // Drop a file that could not be committed and keep the first failure.
+    private static IOException failed(Output output, IOException e, IOException failure) {
+        System.err.println("Failed to commit " + output.dest + ": " + e.getMessage());
+        deleteQuietly(output.temp);
+        return failure != null ? failure : e;
+    }
+
+    private static void moveIntoPlace(Path temp, Path dest) throws IOException {
+        try {
+            Files.move(temp, dest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Make the rename durable. Not every platform can open a directory, in
+    // which case there is nothing more that can be done.
+    private static void syncDirectory(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here.
+        }
+    }
+
+    // Create an empty temp file next to dest. It is hidden, so that tools
+    // picking up *.pdf don't see partial files. Unlike Files.createTempFile,
+    // which makes it owner-only, it gets the mode of any new file under the
+    // umask, which the rename carries over to dest.
+    private static Path createTemp(Path dest) throws IOException {
+        Path dir = dest.toAbsolutePath().getParent();
+        String prefix = "." + dest.getFileName() + ".";
+        while (true) {
+            String name = prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp";
+            Path temp = dir.resolve(name);
+            try {
+                Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return temp;
+            } catch (FileAlreadyExistsException e) {
+                // Try another name
+            }
+        }
+    }
+
+    // Give the temp file the mode of the file it replaces, as writing dest in
+    // place did.
+    private static void copyPermissions(Path dest, Path temp) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(dest, PosixFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+        } catch (NoSuchFileException e) {
+            // A new file keeps the umask default
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BufferPool hands out byte arrays in power-of-two size classes from 64 KiB to
+ * 16 MiB and takes them back for reuse, so that signs of multi-MB documents
+ * stop allocating (and under G1, often humongous) arrays for every request.
+ * Each class is a lock-free stack. The pool keeps at most maxRetained bytes;
+ * arrays returned beyond that, or larger than the largest class, are left to
+ * the GC.
+ *
+ * Allocations and reuses are exported as the
+ * jpdfsigner_buffer_pool_allocated_bytes_total and
+ * jpdfsigner_buffer_pool_reused_bytes_total counters. Their rates are the
+ * allocation rate the pool saw and the part of it that it saved.
+ */
+public class BufferPool {
+
+    static final int MIN_SIZE = 64 * 1024;
+    static final int MAX_SIZE = 16 * 1024 * 1024;
+
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE)
+            - Integer.numberOfTrailingZeros(MIN_SIZE) + 1;
+
+    private static final BufferPool SHARED = new BufferPool(64L * 1024 * 1024);
+
+    private final LongAdder allocated = Metrics.counter("jpdfsigner_buffer_pool_allocated_bytes_total");
+    private final LongAdder reused = Metrics.counter("jpdfsigner_buffer_pool_reused_bytes_total");
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private final Deque<byte[]>[] classes = new Deque[CLASSES];
+    private final AtomicLong retained = new AtomicLong();
+    private volatile long maxRetained;
+
+    /**
+     * @param maxRetained Most bytes kept for reuse. 0 disables pooling.
+     */
+    public BufferPool(long maxRetained) {
+        this.maxRetained = maxRetained;
+        for (int i = 0; i < CLASSES; i++) {
+            classes[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    /**
+     * The process-wide pool used for S3 transfers.
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Size the shared pool from buffer_pool_mb.
+     */
+    public static void configure(Properties config) {
+        SHARED.setMaxRetained(Long.parseLong(config.getProperty("buffer_pool_mb", "64")) * 1024 * 1024);
+    }
+
+    /**
+     * Change the most bytes kept for reuse. Arrays already kept over the new
+     * limit are dropped as they are handed out.
+     */
+    public void setMaxRetained(long maxRetained) {
+        this.maxRetained = maxRetained;
+    }
+
+    public long getRetained() {
+        return retained.get();
+    }
+
+    /**
+     * An array of at least size bytes. It may be longer and hold stale data.
+     */
+    public byte[] acquire(int size) {
+        int c = classOf(size);
+        if (c < 0) {
+            allocated.add(size);
+            return new byte[size];
+        }
+
+        byte[] buf = classes[c].pollFirst();
+        if (buf != null) {
+            retained.addAndGet(-buf.length);
+            reused.add(buf.length);
+            return buf;
+        }
+        int length = MIN_SIZE << c;
+        allocated.add(length);
+        return new byte[length];
+    }
+
+    /**
+     * Return an array from acquire for reuse. It must not be used afterwards.
+     */
+    public void release(byte[] buf) {
+        int c = classOf(buf.length);
+        if (c < 0 || buf.length != MIN_SIZE << c) {
+            return;
+        }
+        if (retained.addAndGet(buf.length) > maxRetained) {
+            retained.addAndGet(-buf.length);
+            return;
+        }
+        classes[c].offerFirst(buf);
+    }
+
+    // Index of the smallest class holding size bytes, or -1 if it is larger
+    // than the largest class.
+    private static int classOf(int size) {
+        if (size > MAX_SIZE) {
+            return -1;
+        }
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - Integer.numberOfTrailingZeros(MIN_SIZE);
+    }
+
+    /**
+     * Buffer is an output stream that collects its data in arrays from the
+     * pool. Unlike a ByteArrayOutputStream it grows by adding arrays, each
+     * twice the size of the previous one, instead of copying into a larger
+     * one. Call release once the data was consumed.
+     */
+    public class Buffer extends OutputStream {
+        private final List<byte[]> chunks = new ArrayList<>();
+        private byte[] current;
+        private int pos;
+        private long size;
+
+        @Override
+        public void write(int b) {
+            if (current == null || pos == current.length) {
+                grow();
+            }
+            current[pos++] = (byte) b;
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (current == null || pos == current.length) {
+                    grow();
+                }
+                int n = Math.min(len, current.length - pos);
+                System.arraycopy(b, off, current, pos, n);
+                pos += n;
+                off += n;
+                len -= n;
+                size += n;
+            }
+        }
+
+        /**
+         * Read in until it ends.
+         */
+        public void readFrom(InputStream in) throws IOException {
+            while (true) {
+                if (current == null || pos == current.length) {
+                    grow();
+                }
+                int n = in.read(current, pos, current.length - pos);
+                if (n < 0) {
+                    return;
+                }
+                pos += n;
+                size += n;
+            }
+        }
+
+        public long size() {
+            return size;
+        }
+
+        /**
+         * The data as one exactly sized array.
+         */
+        public byte[] toByteArray() throws IOException {
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("Buffer too large for an array: " + size + " bytes");
+            }
+            byte[] data = new byte[(int) size];
+            int off = 0;
+            for (byte[] chunk : chunks) {
+                int n = (int) Math.min(chunk.length, size - off);
+                System.arraycopy(chunk, 0, data, off, n);
+                off += n;
+            }
+            return data;
+        }
+
+        /**
+         * A stream over the data, valid until release. It supports mark and
+         * reset without a read limit, since the data stays in the arrays, so
+         * the S3 SDK can rewind it to retry an upload of any size.
+         */
+        public InputStream toInputStream() {
+            return new InputStream() {
+                private int chunk;
+                private int offset;
+                private long remaining = size;
+                private int markChunk;
+                private int markOffset;
+                private long markRemaining = size;
+
+                @Override
+                public int read() {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (remaining == 0) {
+                        return -1;
+                    }
+                    if (offset == chunks.get(chunk).length) {
+                        chunk++;
+                        offset = 0;
+                    }
+                    byte[] c = chunks.get(chunk);
+                    int n = (int) Math.min(Math.min(len, c.length - offset), remaining);
+                    System.arraycopy(c, offset, b, off, n);
+                    offset += n;
+                    remaining -= n;
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return (int) Math.min(Integer.MAX_VALUE, remaining);
+                }
+
+                @Override
+                public boolean markSupported() {
+                    return true;
+                }
+
+                @Override
+                public void mark(int readLimit) {
+                    markChunk = chunk;
+                    markOffset = offset;
+                    markRemaining = remaining;
+                }
+
+                @Override
+                public void reset() {
+                    chunk = markChunk;
+                    offset = markOffset;
+                    remaining = markRemaining;
+                }
+            };
+        }
+
+        /**
+         * Return the arrays to the pool. The buffer is empty afterwards.
+         */
+        public void release() {
+            for (byte[] chunk : chunks) {
+                BufferPool.this.release(chunk);
+            }
+            chunks.clear();
+            current = null;
+            pos = 0;
+            size = 0;
+        }
+
+        private void grow() {
+            int next = current == null ? MIN_SIZE : Math.min(MAX_SIZE, current.length * 2);
+            current = acquire(next);
+            chunks.add(current);
+            pos = 0;
+        }
+    }
+
+    /**
+     * A new empty buffer drawing from this pool.
+     */
+    public Buffer buffer() {
+        return new Buffer();
+    }
+}
@@ -0,0 +1,64 @@
+package com.zerodha.jpdfsigner;
+
+import java.util.function.LongSupplier;
+
+/**
+ * CircuitBreaker stops calls to a failing remote service. After
+ * failureThreshold consecutive failures the breaker opens and rejects calls
+ * for openMillis. It then lets a single trial call through, which closes the
+ * breaker on success or re-opens it on failure.
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private int failures;
+    private boolean open;
+    private boolean trial;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether a call may be made now. While open, only one trial call is
+     * allowed once openMillis have passed.
+     */
+    public synchronized boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        if (!trial && clock.getAsLong() - openedAt >= openMillis) {
+            trial = true;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        failures = 0;
+        open = false;
+        trial = false;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        if (trial || failures >= failureThreshold) {
+            open = true;
+            openedAt = clock.getAsLong();
+        }
+        trial = false;
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+}
@@ -0,0 +1,48 @@
+package com.zerodha.jpdfsigner;
+
+import com.google.gson.annotations.SerializedName;
+
+// Coordinates class to represent the signature coordinates
+class Coordinates {
+    @SerializedName("x1")
+    private Float x1;
+
+    @SerializedName("y1")
+    private Float y1;
+
+    @SerializedName("x2")
+    private Float x2;
+
+    @SerializedName("y2")
+    private Float y2;
+
+    public Coordinates() {
+    }
+
+    Coordinates(Float x1, Float y1, Float x2, Float y2) {
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+    }
+
+    public Float getX1() {
+        return x1;
+    }
+
+    public Float getY1() {
+        return y1;
+    }
+
+    public Float getX2() {
+        return x2;
+    }
+
+    public Float getY2() {
+        return y2;
+    }
+
+    public boolean isValid() {
+        return x1 != null && y1 != null && x2 != null && y2 != null;
+    }
+}
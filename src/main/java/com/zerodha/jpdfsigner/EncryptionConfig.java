@@ -0,0 +1,115 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfStamper;
+import com.lowagie.text.pdf.PdfWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * EncryptionConfig is how password protected documents are encrypted: the
+ * algorithm, the permissions granted to readers who open a document with its
+ * password, and an optional owner password.
+ *
+ * Readers who open a document with the owner password have every permission,
+ * so the permissions only bind readers when the owner password differs from
+ * the document's password. Without one the document's password is also the
+ * owner password.
+ */
+public class EncryptionConfig {
+
+    private static final Map<String, Integer> ALGORITHMS = new LinkedHashMap<>();
+    private static final Map<String, Integer> PERMISSIONS = new LinkedHashMap<>();
+
+    static {
+        ALGORITHMS.put("aes_128", PdfWriter.ENCRYPTION_AES_128);
+        ALGORITHMS.put("rc4_128", PdfWriter.STANDARD_ENCRYPTION_128);
+        ALGORITHMS.put("rc4_40", PdfWriter.STANDARD_ENCRYPTION_40);
+
+        PERMISSIONS.put("print", PdfWriter.ALLOW_PRINTING);
+        PERMISSIONS.put("degraded_print", PdfWriter.ALLOW_DEGRADED_PRINTING);
+        PERMISSIONS.put("modify", PdfWriter.ALLOW_MODIFY_CONTENTS);
+        PERMISSIONS.put("copy", PdfWriter.ALLOW_COPY);
+        PERMISSIONS.put("annotate", PdfWriter.ALLOW_MODIFY_ANNOTATIONS);
+        PERMISSIONS.put("fill_in", PdfWriter.ALLOW_FILL_IN);
+        PERMISSIONS.put("screen_readers", PdfWriter.ALLOW_SCREENREADERS);
+        PERMISSIONS.put("assembly", PdfWriter.ALLOW_ASSEMBLY);
+    }
+
+    private final int algorithm;
+    private final int permissions;
+    private final byte[] ownerPassword;
+
+    /**
+     * @param algorithm     One of the PdfWriter encryption constants
+     * @param permissions   PdfWriter ALLOW_* flags
+     * @param ownerPassword Owner password, or null to use the document's
+     */
+    public EncryptionConfig(int algorithm, int permissions, String ownerPassword) {
+        this.algorithm = algorithm;
+        this.permissions = permissions;
+        this.ownerPassword = ownerPassword != null && !ownerPassword.isEmpty()
+                ? ownerPassword.getBytes(StandardCharsets.UTF_8)
+                : null;
+    }
+
+    /**
+     * AES-128 allowing printing, with the document's password as the owner
+     * password.
+     */
+    public static EncryptionConfig defaults() {
+        return new EncryptionConfig(PdfWriter.ENCRYPTION_AES_128, PdfWriter.ALLOW_PRINTING, null);
+    }
+
+    /**
+     * Create from encryption_algorithm, encryption_permissions and
+     * encryption_owner_password.
+     *
+     * @throws IllegalArgumentException if the algorithm or a permission is
+     *                                  unknown
+     */
+    public static EncryptionConfig fromConfig(Properties config) {
+        String name = config.getProperty("encryption_algorithm", "aes_128").trim().toLowerCase(Locale.ROOT);
+        Integer algorithm = ALGORITHMS.get(name);
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Unsupported encryption_algorithm: " + name
+                    + ", expected one of " + String.join(", ", ALGORITHMS.keySet()));
+        }
+
+        int permissions = 0;
+        for (String p : config.getProperty("encryption_permissions", "print").split(",")) {
+            p = p.trim().toLowerCase(Locale.ROOT);
+            if (p.isEmpty() || p.equals("none")) {
+                continue;
+            }
+            Integer flag = PERMISSIONS.get(p);
+            if (flag == null) {
+                throw new IllegalArgumentException("Unknown encryption permission: " + p
+                        + ", expected none or any of " + String.join(", ", PERMISSIONS.keySet()));
+            }
+            permissions |= flag;
+        }
+
+        return new EncryptionConfig(algorithm, permissions, config.getProperty("encryption_owner_password"));
+    }
+
+    public int getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Encrypt the stamper's output with the given document password.
+     */
+    void apply(PdfStamper stp, String password) throws DocumentException {
+        byte[] user = password.getBytes(StandardCharsets.UTF_8);
+        // PdfWriter.DO_NOT_ENCRYPT_METADATA somehow disables password protection.
+        stp.setEncryption(user, ownerPassword != null ? ownerPassword : user, permissions, algorithm);
+    }
+}
@@ -0,0 +1,128 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FileMessageSource is a local, file-backed MessageSource that reads
+ * newline-delimited JSON requests from a file and follows it as new lines are
+ * appended.
+ * The committed byte offset is stored in a sibling ".offset" file and results
+ * are appended to a sibling ".results" file, so it works as a stand-in for a
+ * broker in tests and on single hosts.
+ */
+public class FileMessageSource implements MessageSource {
+    private static final long IDLE_SLEEP_MS = 50;
+
+    private final Path file;
+    private final Path offsetFile;
+    private final InputStream in;
+    private final BufferedWriter results;
+
+    // Bytes of an incomplete trailing line, kept until its newline arrives.
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    // Offset just past the last complete line returned by poll.
+    private long position;
+
+    /**
+     * Opens the file and resumes from the last committed offset.
+     *
+     * @param path Path to the newline-delimited JSON file
+     * @throws IOException if the file or its offset can't be read
+     */
+    public FileMessageSource(String path) throws IOException {
+        this.file = Paths.get(path);
+        this.offsetFile = Paths.get(path + ".offset");
+
+        if (Files.exists(offsetFile)) {
+            String committed = new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8).trim();
+            this.position = committed.isEmpty() ? 0 : Long.parseLong(committed);
+        }
+
+        FileInputStream fin = new FileInputStream(file.toFile());
+        fin.getChannel().position(position);
+        this.in = new BufferedInputStream(fin);
+        this.results = Files.newBufferedWriter(Paths.get(path + ".results"), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public List<Message> poll(int maxMessages, long timeoutMs) throws IOException {
+        List<Message> messages = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        while (messages.size() < maxMessages) {
+            int b = in.read();
+            if (b == -1) {
+                // Wait for the file to grow only if nothing was read yet.
+                if (!messages.isEmpty() || System.currentTimeMillis() >= deadline) {
+                    break;
+                }
+                sleep();
+                continue;
+            }
+
+            if (b != '\n') {
+                pending.write(b);
+                continue;
+            }
+
+            long lineStart = position;
+            position += pending.size() + 1;
+            String line = new String(pending.toByteArray(), StandardCharsets.UTF_8).trim();
+            pending.reset();
+            if (!line.isEmpty()) {
+                messages.add(new Message(file + ":" + lineStart, line));
+            }
+        }
+
+        return messages;
+    }
+
+    @Override
+    public void publish(Message message, String result) throws IOException {
+        results.write(result);
+        results.newLine();
+    }
+
+    @Override
+    public void commit() throws IOException {
+        results.flush();
+
+        // Write to a temp file and rename, so a crash never leaves a torn offset.
+        Path tmp = Paths.get(offsetFile + ".tmp");
+        Files.write(tmp, Long.toString(position).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            results.close();
+        }
+    }
+
+    private void sleep() throws IOException {
+        try {
+            Thread.sleep(IDLE_SLEEP_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for messages", e);
+        }
+    }
+}
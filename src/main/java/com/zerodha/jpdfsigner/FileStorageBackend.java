@@ -0,0 +1,111 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * FileStorageBackend stores objects as local files. Paths are plain file
+ * paths or file:// URIs. Files are not versioned and metadata is ignored.
+ */
+public class FileStorageBackend implements StorageBackend {
+
+    private static final String FILE_PREFIX = "file://";
+
+    @Override
+    public ObjectInfo stat(String path) throws IOException {
+        Path file = localPath(path);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        return new ObjectInfo(Files.size(file), null);
+    }
+
+    @Override
+    public InputStream openRead(String path, String version) throws IOException {
+        return Files.newInputStream(localPath(path));
+    }
+
+    /**
+     * The file is written in place. Abort deletes what was written of it.
+     */
+    @Override
+    public Output openWrite(String path, Map<String, String> metadata) throws IOException {
+        Path file = localPath(path);
+        FileOutputStream out = new FileOutputStream(file.toFile());
+        return new Output() {
+            private boolean done;
+
+            @Override
+            public OutputStream stream() {
+                return new FilterOutputStream(out) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        out.flush();
+                    }
+                };
+            }
+
+            @Override
+            public void commit() throws IOException {
+                done = true;
+                out.close();
+            }
+
+            @Override
+            public void abort() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                try {
+                    out.close();
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Error deleting " + file + ": " + e.getMessage());
+                }
+            }
+        };
+    }
+
+    @Override
+    public byte[] readRange(String path, long offset, int length, String version) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(localPath(path).toFile(), "r")) {
+            int n = (int) Math.max(0, Math.min(length, file.length() - offset));
+            byte[] data = new byte[n];
+            file.seek(offset);
+            file.readFully(data);
+            return data;
+        }
+    }
+
+    @Override
+    public void readToFile(String path, String version, Path file) throws IOException {
+        Files.copy(localPath(path), file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void writeFromFile(Path file, String path, Map<String, String> metadata) throws IOException {
+        Files.copy(file, localPath(path), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public Path localPath(String path) {
+        return Paths.get(path.regionMatches(true, 0, FILE_PREFIX, 0, FILE_PREFIX.length())
+                ? path.substring(FILE_PREFIX.length())
+                : path);
+    }
+}
@@ -0,0 +1,139 @@
+package com.zerodha.jpdfsigner;
+
+import io.undertow.Handlers;
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.handlers.GracefulShutdownHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GracefulShutdown drains the HTTP server on shutdown. It first fails
+ * readiness and waits delayMillis so load balancers stop sending traffic, then
+ * rejects new requests with 503 and waits up to timeoutMillis for in-flight
+ * and queued requests to finish. Only then are the listener, the executor and
+ * the other resources closed, so a rollout doesn't cut signs off mid-upload.
+ */
+public class GracefulShutdown {
+
+    private final long delayMillis;
+    private final long timeoutMillis;
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    private volatile boolean draining;
+    private GracefulShutdownHandler handler;
+    private Undertow server;
+    private ExecutorService executor;
+
+    public GracefulShutdown(long delayMillis, long timeoutMillis) {
+        this.delayMillis = delayMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Create from the shutdown_* settings.
+     *
+     * @param config Properties containing the optional shutdown_delay_ms and
+     *               shutdown_timeout_ms
+     */
+    public static GracefulShutdown fromConfig(Properties config) {
+        return new GracefulShutdown(
+                Long.parseLong(config.getProperty("shutdown_delay_ms", "0")),
+                Long.parseLong(config.getProperty("shutdown_timeout_ms", "30000")));
+    }
+
+    /**
+     * Wrap the server's handler so that its requests are tracked and drained.
+     */
+    public HttpHandler wrap(HttpHandler next) {
+        handler = Handlers.gracefulShutdown(next);
+        return handler;
+    }
+
+    public void setServer(Undertow server) {
+        this.server = server;
+    }
+
+    /**
+     * Set the executor requests are dispatched to. It is shut down once the
+     * requests have drained.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Close a resource after the server has stopped. Resources are closed in
+     * the order they were added. Null is ignored.
+     */
+    public void closeOnShutdown(AutoCloseable resource) {
+        if (resource != null) {
+            resources.add(resource);
+        }
+    }
+
+    /**
+     * Whether shutdown has started. Readiness fails from this point on.
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Drain and stop the server, then release the resources.
+     *
+     * @return true if every request finished before the deadline
+     */
+    public boolean shutdown() {
+        draining = true;
+        System.out.println("Shutting down, readiness failing");
+
+        boolean drained = true;
+        try {
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+
+            // Reject new requests with 503 and wait for the in-flight ones,
+            // including those queued on the executor.
+            if (handler != null) {
+                handler.shutdown();
+                drained = handler.awaitShutdown(Math.max(0, deadline - System.currentTimeMillis()));
+            }
+            if (executor != null) {
+                executor.shutdown();
+                drained &= executor.awaitTermination(
+                        Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained = false;
+        }
+
+        if (drained) {
+            System.out.println("All requests drained");
+        } else {
+            System.err.println("Shutdown deadline of " + timeoutMillis + "ms passed with requests in flight");
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        if (server != null) {
+            server.stop();
+        }
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Error closing " + resource.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Server stopped");
+        return drained;
+    }
+}
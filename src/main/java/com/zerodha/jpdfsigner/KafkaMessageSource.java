@@ -0,0 +1,175 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+/**
+ * KafkaMessageSource consumes signing requests from a Kafka topic and
+ * publishes results to an optional result topic.
+ * Offsets are committed manually once per batch, after results have been
+ * flushed, which gives at-least-once processing. Only the offsets of records
+ * returned by poll are committed; records polled beyond maxMessages are held
+ * back for the next poll.
+ */
+public class KafkaMessageSource implements MessageSource {
+    private final Consumer<String, String> consumer;
+    private final Producer<String, String> producer;
+    private final String resultTopic;
+
+    private final Deque<ConsumerRecord<String, String>> pending = new ArrayDeque<>();
+    private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+
+    // Sends since the last commit, checked before offsets are committed.
+    private final List<Future<RecordMetadata>> sent = new ArrayList<>();
+
+    /**
+     * Creates a consumer subscribed to kafka_topic in group kafka_group_id.
+     *
+     * @param config Properties containing kafka_bootstrap_servers, kafka_topic,
+     *               kafka_group_id and optionally kafka_result_topic
+     * @throws IllegalArgumentException if required properties are missing
+     */
+    public KafkaMessageSource(Properties config) {
+        String servers = config.getProperty("kafka_bootstrap_servers");
+        String topic = config.getProperty("kafka_topic");
+        if (servers == null || servers.isBlank() || topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException("kafka_bootstrap_servers and kafka_topic are required");
+        }
+
+        Properties consumerProps = new Properties();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, servers);
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, config.getProperty("kafka_group_id", "jpdfsigner"));
+        consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+                config.getProperty("consumer_batch_size", "100"));
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+
+        this.consumer = new KafkaConsumer<>(consumerProps);
+        this.consumer.subscribe(Collections.singletonList(topic));
+
+        this.resultTopic = config.getProperty("kafka_result_topic");
+        if (resultTopic != null && !resultTopic.isBlank()) {
+            Properties producerProps = new Properties();
+            producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, servers);
+            producerProps.put(ProducerConfig.ACKS_CONFIG, "all");
+            producerProps.put(ProducerConfig.LINGER_MS_CONFIG, "5");
+            producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+            producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+            this.producer = new KafkaProducer<>(producerProps);
+        } else {
+            this.producer = null;
+        }
+    }
+
+    /**
+     * @param consumer    Consumer, already subscribed or assigned
+     * @param producer    Producer for results, or null to not publish them
+     * @param resultTopic Topic results are published to
+     */
+    KafkaMessageSource(Consumer<String, String> consumer, Producer<String, String> producer, String resultTopic) {
+        this.consumer = consumer;
+        this.producer = producer;
+        this.resultTopic = resultTopic;
+    }
+
+    @Override
+    public List<Message> poll(int maxMessages, long timeoutMs) throws IOException {
+        // max.poll.records is consumer_batch_size, so records are only held
+        // back when a caller asks for fewer.
+        if (pending.isEmpty()) {
+            try {
+                consumer.poll(Duration.ofMillis(timeoutMs)).forEach(pending::add);
+            } catch (KafkaException e) {
+                throw new IOException("Failed to poll Kafka", e);
+            }
+        }
+
+        List<Message> messages = new ArrayList<>();
+        while (messages.size() < maxMessages && !pending.isEmpty()) {
+            ConsumerRecord<String, String> record = pending.poll();
+            offsets.put(new TopicPartition(record.topic(), record.partition()),
+                    new OffsetAndMetadata(record.offset() + 1));
+            String key = record.key() != null
+                    ? record.key()
+                    : record.topic() + "-" + record.partition() + "@" + record.offset();
+            messages.add(new Message(key, record.value()));
+        }
+        return messages;
+    }
+
+    @Override
+    public void publish(Message message, String result) throws IOException {
+        if (producer == null) {
+            return;
+        }
+        try {
+            sent.add(producer.send(new ProducerRecord<>(resultTopic, message.getKey(), result)));
+        } catch (KafkaException e) {
+            throw new IOException("Failed to publish result to Kafka", e);
+        }
+    }
+
+    @Override
+    public void commit() throws IOException {
+        try {
+            if (producer != null) {
+                producer.flush();
+                try {
+                    for (Future<RecordMetadata> f : sent) {
+                        f.get();
+                    }
+                } finally {
+                    sent.clear();
+                }
+            }
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+                offsets.clear();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to publish result to Kafka", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while committing Kafka offsets", e);
+        } catch (KafkaException e) {
+            throw new IOException("Failed to commit Kafka offsets", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            consumer.close();
+        } finally {
+            if (producer != null) {
+                producer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.zerodha.jpdfsigner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram counts durations into fixed buckets so latency can be
+ * recorded from many threads without locking and exported as a Prometheus
+ * histogram.
+ */
+public class LatencyHistogram {
+    // Upper bounds of the buckets in milliseconds. The last bucket is +Inf.
+    static final long[] BUCKETS_MS = { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int i = 0;
+        while (i < BUCKETS_MS.length && ms > BUCKETS_MS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Write the histogram in the Prometheus text format, in seconds.
+     */
+    void writeTo(StringBuilder sb, String name) {
+        sb.append("# TYPE ").append(name).append(" histogram\n");
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String le = i < BUCKETS_MS.length ? Double.toString(BUCKETS_MS[i] / 1000.0) : "+Inf";
+            sb.append(name).append("_bucket{le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        sb.append(name).append("_sum ").append(sumNanos.sum() / 1e9).append('\n');
+        sb.append(name).append("_count ").append(count.sum()).append('\n');
+    }
+}
@@ -0,0 +1,241 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.pdf.PdfReader;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LocalFileIO decides how local inputs are read and local outputs written.
+ * PdfStamper writes a document as many small writes, which an unbuffered file
+ * stream turns into as many syscalls, each a round trip on network-attached
+ * volumes.
+ *
+ * Outputs are written through:
+ * STREAM   the plain file stream, one syscall per write,
+ * BUFFERED a heap buffer of bufferSize bytes,
+ * CHANNEL  the file's channel from a pooled direct buffer of bufferSize bytes,
+ *          which saves the copy into a temporary direct buffer that writes
+ *          from the heap take.
+ *
+ * Inputs are read through:
+ * MAP      a memory map of the file, OpenPDF's default. Pages fault in as
+ *          they are parsed.
+ * CHANNEL  the file's channel into the heap, bufferSize bytes per read
+ *          through a pooled direct buffer.
+ */
+public class LocalFileIO {
+
+    public enum OutputMode {
+        STREAM, BUFFERED, CHANNEL
+    }
+
+    public enum InputMode {
+        MAP, CHANNEL
+    }
+
+    // Direct buffers are expensive to allocate and only freed by GC, so a few
+    // are kept for reuse across files and threads.
+    private static final int MAX_POOLED = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    private static final Queue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private final OutputMode outputMode;
+    private final InputMode inputMode;
+    private final int bufferSize;
+
+    /**
+     * @param outputMode How outputs are written
+     * @param inputMode  How inputs are read
+     * @param bufferSize Buffer size in bytes of the BUFFERED and CHANNEL modes
+     */
+    public LocalFileIO(OutputMode outputMode, InputMode inputMode, int bufferSize) {
+        this.outputMode = outputMode;
+        this.inputMode = inputMode;
+        this.bufferSize = Math.max(4096, bufferSize);
+    }
+
+    /**
+     * Buffered outputs and mapped inputs with 256 KiB buffers.
+     */
+    public static LocalFileIO defaults() {
+        return new LocalFileIO(OutputMode.BUFFERED, InputMode.MAP, 256 * 1024);
+    }
+
+    /**
+     * Create from local_output_io, local_input_io and local_io_buffer_kb.
+     */
+    public static LocalFileIO fromConfig(Properties config) {
+        return new LocalFileIO(
+                OutputMode.valueOf(config.getProperty("local_output_io", "buffered").trim().toUpperCase(Locale.ROOT)),
+                InputMode.valueOf(config.getProperty("local_input_io", "map").trim().toUpperCase(Locale.ROOT)),
+                Integer.parseInt(config.getProperty("local_io_buffer_kb", "256")) * 1024);
+    }
+
+    public OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    public InputMode getInputMode() {
+        return inputMode;
+    }
+
+    /**
+     * Wrap a file stream for writing. Closing the returned stream closes the
+     * file, and flushing it hands everything written so far to the file.
+     */
+    public OutputStream wrap(FileOutputStream file) {
+        switch (outputMode) {
+            case BUFFERED:
+                return new BufferedOutputStream(file, bufferSize);
+            case CHANNEL:
+                return new ChannelOutputStream(file.getChannel(), acquire());
+            default:
+                return file;
+        }
+    }
+
+    /**
+     * Open a local PDF for signing.
+     */
+    public PdfReader openReader(Path file) throws IOException {
+        if (inputMode == InputMode.CHANNEL) {
+            return new PdfReader(readFully(file));
+        }
+        return new PdfReader(file.toString());
+    }
+
+    /**
+     * Read a whole file into the heap through a pooled direct buffer.
+     */
+    byte[] readFully(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large to read into memory: " + file);
+            }
+
+            byte[] data = new byte[(int) size];
+            ByteBuffer buf = acquire();
+            try {
+                int pos = 0;
+                while (pos < data.length) {
+                    buf.clear();
+                    buf.limit(Math.min(buf.capacity(), data.length - pos));
+                    int n = channel.read(buf);
+                    if (n < 0) {
+                        // Truncated while reading
+                        throw new IOException("Unexpected end of file: " + file);
+                    }
+                    buf.flip();
+                    buf.get(data, pos, n);
+                    pos += n;
+                }
+            } finally {
+                release(buf);
+            }
+            return data;
+        }
+    }
+
+    private ByteBuffer acquire() {
+        ByteBuffer buf = POOL.poll();
+        if (buf != null) {
+            POOLED.decrementAndGet();
+            if (buf.capacity() == bufferSize) {
+                buf.clear();
+                return buf;
+            }
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    private static void release(ByteBuffer buf) {
+        if (POOLED.incrementAndGet() <= MAX_POOLED) {
+            POOL.offer(buf);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+
+    /**
+     * ChannelOutputStream collects writes in a direct buffer and writes it to
+     * the channel whenever it is full.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private ByteBuffer buf;
+
+        ChannelOutputStream(FileChannel channel, ByteBuffer buf) {
+            this.channel = channel;
+            this.buf = buf;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            if (!buf.hasRemaining()) {
+                drain();
+            }
+            buf.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            while (len > 0) {
+                if (!buf.hasRemaining()) {
+                    drain();
+                }
+                int n = Math.min(len, buf.remaining());
+                buf.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (buf == null) {
+                return;
+            }
+            try {
+                drain();
+            } finally {
+                release(buf);
+                buf = null;
+                channel.close();
+            }
+        }
+
+        private void drain() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+
+        private void ensureOpen() throws IOException {
+            if (buf == null) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Manifest reads the documents of a CLI run from a file, one request at a time
+ * as they are signed, so a manifest of any length is handled in one pass
+ * without being loaded first. Three formats are accepted:
+ *
+ * JSON     newline-delimited request objects or an array of them, with the
+ *          same fields as POST /sign, recognised by a leading { or [.
+ * Headered a | separated file whose first line names the columns: input_file,
+ *          output_file, password, mode, reason, contact, location, page, x1,
+ *          y1, x2 and y2. Empty cells use the configured defaults.
+ * Legacy   in.pdf|out.pdf|password|mode lines, where password and mode are
+ *          optional.
+ *
+ * Lines of a | separated file that are blank or start with # are skipped.
+ */
+final class Manifest implements Iterable<Request>, Closeable {
+
+    static final List<String> COLUMNS = Arrays.asList("input_file", "output_file", "password", "mode",
+            "reason", "contact", "location", "page", "x1", "y1", "x2", "y2");
+
+    private static final int SNIFF_LIMIT = 4096;
+
+    private final String path;
+    private final BufferedReader reader;
+    private final Iterator<Request> requests;
+    private boolean iterated;
+
+    private Manifest(String path, BufferedReader reader) throws IOException {
+        this.path = path;
+        this.reader = reader;
+
+        // The first character that isn't whitespace tells JSON from rows.
+        reader.mark(SNIFF_LIMIT);
+        int c;
+        int n = 0;
+        do {
+            c = reader.read();
+        } while (c >= 0 && Character.isWhitespace(c) && ++n < SNIFF_LIMIT);
+        reader.reset();
+
+        if (c == '{' || c == '[') {
+            this.requests = RequestDecoder.iterate(reader);
+        } else {
+            this.requests = new Rows();
+        }
+    }
+
+    /**
+     * Open a manifest file.
+     */
+    static Manifest open(String path) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+        try {
+            return new Manifest(path, reader);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The requests, read as they are iterated. A manifest can only be
+     * iterated once. Invalid entries fail the iteration with a
+     * JsonParseException or an IllegalArgumentException naming the line.
+     */
+    @Override
+    public Iterator<Request> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("Manifest " + path + " was already read");
+        }
+        iterated = true;
+        return requests;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Rows reads the | separated formats line by line.
+    private class Rows implements Iterator<Request> {
+        private List<String> header;
+        private int lineNumber;
+        private Request next;
+        private boolean started;
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] cells = line.split("\\|", -1);
+                    if (!started) {
+                        started = true;
+                        if (isHeader(cells)) {
+                            header = readHeader(cells);
+                            continue;
+                        }
+                    }
+                    next = header != null ? fromColumns(cells) : fromLegacy(cells);
+                    if (next != null) {
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read manifest " + path, e);
+            }
+        }
+
+        @Override
+        public Request next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Request req = next;
+            next = null;
+            return req;
+        }
+
+        private boolean isHeader(String[] cells) {
+            for (String cell : cells) {
+                if (cell.trim().equalsIgnoreCase("input_file")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<String> readHeader(String[] cells) {
+            String[] names = new String[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                names[i] = cells[i].trim().toLowerCase(Locale.ROOT);
+                if (!COLUMNS.contains(names[i])) {
+                    throw new IllegalArgumentException(error("unknown column " + cells[i].trim()
+                            + ", expected any of " + String.join(", ", COLUMNS)));
+                }
+            }
+            return Arrays.asList(names);
+        }
+
+        // Lines with fewer than two fields are skipped, as they always were.
+        private Request fromLegacy(String[] cells) {
+            if (cells.length < 2) {
+                return null;
+            }
+            if (cells.length > 4) {
+                throw new IllegalArgumentException(error(cells.length
+                        + " fields but at most 4 without a header (input|output|password|mode)"));
+            }
+            Request req = new Request();
+            req.setInputFile(cells[0].trim());
+            req.setOutputFile(cells[1].trim());
+            req.setPassword(cells.length > 2 ? cells[2] : "");
+            if (cells.length > 3) {
+                req.setMode(cells[3].trim());
+            }
+            return req;
+        }
+
+        private Request fromColumns(String[] cells) {
+            if (cells.length > header.size()) {
+                throw new IllegalArgumentException(error(cells.length + " fields but "
+                        + header.size() + " columns"));
+            }
+
+            Request req = new Request();
+            Float[] coords = new Float[4];
+            for (int i = 0; i < cells.length; i++) {
+                // Passwords are taken as they are, other cells trimmed.
+                String value = header.get(i).equals("password") ? cells[i] : cells[i].trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                try {
+                    switch (header.get(i)) {
+                        case "input_file":
+                            req.setInputFile(value);
+                            break;
+                        case "output_file":
+                            req.setOutputFile(value);
+                            break;
+                        case "password":
+                            req.setPassword(value);
+                            break;
+                        case "mode":
+                            req.setMode(value);
+                            break;
+                        case "reason":
+                            req.setReason(value);
+                            break;
+                        case "contact":
+                            req.setContact(value);
+                            break;
+                        case "location":
+                            req.setLocation(value);
+                            break;
+                        case "page":
+                            req.setPage(Integer.parseInt(value));
+                            break;
+                        default:
+                            coords[COLUMNS.indexOf(header.get(i)) - COLUMNS.indexOf("x1")] = Float.parseFloat(value);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(error("invalid " + header.get(i) + " " + value), e);
+                }
+            }
+
+            // Coordinates apply only when all four are given, like in requests.
+            Coordinates c = new Coordinates(coords[0], coords[1], coords[2], coords[3]);
+            if (c.isValid()) {
+                req.setCoordinates(c);
+            } else if (coords[0] != null || coords[1] != null || coords[2] != null || coords[3] != null) {
+                throw new IllegalArgumentException(error("x1, y1, x2 and y2 must be given together"));
+            }
+            return req;
+        }
+
+        private String error(String message) {
+            return "Manifest " + path + " line " + lineNumber + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MemoryBudget admits signs by the heap they are expected to need instead of
+ * by count. Each sign reserves an estimate derived from its input size from a
+ * global budget before it starts and releases it when done, so a few large
+ * documents wait for each other while many small ones run side by side.
+ *
+ * Reservations are granted in arrival order. A large document at the head of
+ * the queue holds back smaller ones that arrive after it, so it can't be
+ * starved. An estimate larger than the whole budget is capped to it, so such a
+ * document runs alone instead of never running.
+ */
+public class MemoryBudget {
+
+    static final String WAIT_METRIC = "jpdfsigner_memory_budget_wait_seconds";
+    static final String TIMEOUTS_METRIC = "jpdfsigner_memory_budget_timeouts_total";
+
+    // Reservations are counted in KiB so budgets above 2 GiB fit in the
+    // semaphore's int permits.
+    private static final int UNIT = 1024;
+
+    // Heap used by a sign regardless of the document size: parser state,
+    // signature and appearance.
+    static final long BASE_COST = 1024 * 1024;
+
+    /**
+     * AdmissionTimeoutException is thrown when the budget did not free up
+     * within the timeout. The request can be retried later.
+     */
+    public static class AdmissionTimeoutException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        AdmissionTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Reservation is a part of the budget held by one sign, returned by close.
+     */
+    public class Reservation implements AutoCloseable {
+        private final int units;
+        private boolean released;
+
+        private Reservation(int units) {
+            this.units = units;
+        }
+
+        public long bytes() {
+            return (long) units * UNIT;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                permits.release(units);
+            }
+        }
+    }
+
+    private final int capacity;
+    private final double costFactor;
+    private final double spilledCostFactor;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+
+    private final LatencyHistogram waits = Metrics.histogram(WAIT_METRIC);
+    private final LongAdder timeouts = Metrics.counter(TIMEOUTS_METRIC);
+
+    /**
+     * @param budgetBytes   Total bytes that may be reserved at once
+     * @param costFactor    Heap needed per byte of input
+     * @param timeoutMillis How long a sign may wait for its reservation
+     */
+    public MemoryBudget(long budgetBytes, double costFactor, long timeoutMillis) {
+        this(budgetBytes, costFactor, costFactor, timeoutMillis);
+    }
+
+    /**
+     * @param budgetBytes       Total bytes that may be reserved at once
+     * @param costFactor        Heap needed per byte of input held in memory
+     * @param spilledCostFactor Heap needed per byte of input spilled to disk
+     * @param timeoutMillis     How long a sign may wait for its reservation
+     */
+    public MemoryBudget(long budgetBytes, double costFactor, double spilledCostFactor, long timeoutMillis) {
+        this.capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(1, budgetBytes / UNIT));
+        this.costFactor = costFactor;
+        this.spilledCostFactor = spilledCostFactor;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(capacity, true);
+    }
+
+    /**
+     * Create a budget from the memory_budget_* settings.
+     *
+     * @param config Properties containing the optional memory_budget_mb,
+     *               memory_cost_factor, memory_spill_cost_factor and
+     *               memory_budget_timeout_ms
+     * @return The budget, or null if memory_budget_mb is 0
+     */
+    public static MemoryBudget fromConfig(Properties config) {
+        // Half the heap by default, leaving the rest for the server and GC headroom.
+        long defaultMb = Runtime.getRuntime().maxMemory() / 2 / (1024 * 1024);
+        long budgetMb = Long.parseLong(config.getProperty("memory_budget_mb", String.valueOf(defaultMb)));
+        if (budgetMb <= 0) {
+            return null;
+        }
+
+        return new MemoryBudget(
+                budgetMb * 1024 * 1024,
+                Double.parseDouble(config.getProperty("memory_cost_factor", "4")),
+                Double.parseDouble(config.getProperty("memory_spill_cost_factor", "1")),
+                Long.parseLong(config.getProperty("memory_budget_timeout_ms", "60000")));
+    }
+
+    /**
+     * Estimated heap needed to sign a document of the given size.
+     *
+     * @param inputBytes Size of the input document
+     * @param spilled    Whether the input and output are spilled to disk
+     */
+    public long estimate(long inputBytes, boolean spilled) {
+        return BASE_COST + (long) (inputBytes * (spilled ? spilledCostFactor : costFactor));
+    }
+
+    /**
+     * Reserve the estimated heap for signing a document of the given size held
+     * in memory.
+     *
+     * @see #reserve(long, boolean)
+     */
+    public Reservation reserve(long inputBytes) throws IOException {
+        return reserve(inputBytes, false);
+    }
+
+    /**
+     * Reserve the estimated heap for signing a document of the given size,
+     * waiting for earlier reservations to be released if needed.
+     *
+     * @param inputBytes Size of the input document
+     * @param spilled    Whether the input and output are spilled to disk
+     * @return The reservation, to be closed when the sign is done
+     * @throws AdmissionTimeoutException if the budget did not free up in time
+     * @throws IOException               if interrupted while waiting
+     */
+    public Reservation reserve(long inputBytes, boolean spilled) throws IOException {
+        int units = (int) Math.min(capacity, (estimate(inputBytes, spilled) + UNIT - 1) / UNIT);
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(units, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new AdmissionTimeoutException("Timed out waiting for " + (long) units * UNIT
+                        + " bytes of memory budget");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for memory budget", e);
+        } finally {
+            waits.record(System.nanoTime() - start);
+        }
+        return new Reservation(units);
+    }
+
+    /**
+     * Bytes of the budget not reserved right now.
+     */
+    public long available() {
+        return (long) permits.availablePermits() * UNIT;
+    }
+
+    public long capacity() {
+        return (long) capacity * UNIT;
+    }
+}
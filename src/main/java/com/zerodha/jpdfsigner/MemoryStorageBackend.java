@@ -0,0 +1,87 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MemoryStorageBackend keeps objects in a map in the heap, for benchmarks and
+ * tests that should not be bound by disk or network I/O. Register it with
+ * Storage.register("mem", ...) and use paths like mem://statements/a.pdf.
+ * Objects are not versioned and metadata is ignored.
+ */
+public class MemoryStorageBackend implements StorageBackend {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    /**
+     * Store an object.
+     */
+    public void put(String path, byte[] data) {
+        objects.put(path, data);
+    }
+
+    /**
+     * The stored object, or null if there is none.
+     */
+    public byte[] get(String path) {
+        return objects.get(path);
+    }
+
+    public void remove(String path) {
+        objects.remove(path);
+    }
+
+    @Override
+    public ObjectInfo stat(String path) {
+        byte[] data = objects.get(path);
+        return data != null ? new ObjectInfo(data.length, null) : null;
+    }
+
+    @Override
+    public InputStream openRead(String path, String version) throws IOException {
+        return new ByteArrayInputStream(data(path));
+    }
+
+    @Override
+    public Output openWrite(String path, Map<String, String> metadata) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        return new Output() {
+            @Override
+            public OutputStream stream() {
+                // Closing a ByteArrayOutputStream does nothing
+                return buffer;
+            }
+
+            @Override
+            public void commit() {
+                objects.put(path, buffer.toByteArray());
+            }
+
+            @Override
+            public void abort() {
+            }
+        };
+    }
+
+    @Override
+    public byte[] readRange(String path, long offset, int length, String version) throws IOException {
+        byte[] data = data(path);
+        int from = (int) Math.min(offset, data.length);
+        return Arrays.copyOfRange(data, from, (int) Math.min((long) from + length, data.length));
+    }
+
+    private byte[] data(String path) throws NoSuchFileException {
+        byte[] data = objects.get(path);
+        if (data == null) {
+            throw new NoSuchFileException(path);
+        }
+        return data;
+    }
+}
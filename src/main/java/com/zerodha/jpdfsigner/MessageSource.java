@@ -0,0 +1,64 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * MessageSource is a queue of JSON signing requests consumed by
+ * SigningConsumer. Each payload has the same shape as the body of the HTTP
+ * /sign API.
+ */
+public interface MessageSource extends AutoCloseable {
+
+    /**
+     * A single message pulled from the source.
+     */
+    class Message {
+        private final String key;
+        private final String payload;
+
+        public Message(String key, String payload) {
+            this.key = key;
+            this.payload = payload;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Fetches up to maxMessages messages, waiting at most timeoutMs for at least
+     * one to arrive.
+     *
+     * @param maxMessages Maximum number of messages to return
+     * @param timeoutMs   Maximum time to wait when no messages are available
+     * @return Messages in source order, empty if none arrived in time
+     * @throws IOException if the source can't be read
+     */
+    List<Message> poll(int maxMessages, long timeoutMs) throws IOException;
+
+    /**
+     * Publishes the JSON result of a processed message.
+     *
+     * @param message The message that was processed
+     * @param result  JSON result describing the outcome
+     * @throws IOException if the result can't be published
+     */
+    void publish(Message message, String result) throws IOException;
+
+    /**
+     * Commits every message returned by previous polls, so they are not
+     * delivered again after a restart. Published results are flushed first.
+     *
+     * @throws IOException if the commit fails
+     */
+    void commit() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,40 @@
+package com.zerodha.jpdfsigner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics is the process-wide registry of counters and latency histograms
+ * served by the /metrics endpoint in the Prometheus text format.
+ */
+public final class Metrics {
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Render every registered metric in the Prometheus text format.
+     */
+    public static String render() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LongAdder> e : COUNTERS.entrySet()) {
+            sb.append("# TYPE ").append(e.getKey()).append(" counter\n");
+            sb.append(e.getKey()).append(' ').append(e.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> e : HISTOGRAMS.entrySet()) {
+            e.getValue().writeTo(sb, e.getKey());
+        }
+        return sb.toString();
+    }
+}
@@ -3,31 +3,75 @@ package com.zerodha.jpdfsigner;
 import static io.undertow.Handlers.path;
 
 import com.lowagie.text.DocumentException;
+import com.lowagie.text.ExceptionConverter;
 import com.lowagie.text.Font;
 import com.lowagie.text.Rectangle;
 import com.lowagie.text.pdf.*;
 import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
 import java.io.*;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import org.xnio.Options;
 
 public class OpenPdfSigner {
 
+    // Extra room in the signature for the PKCS#7 structure, signature value and
+    // signed attributes, on top of the certificates, timestamp token and OCSP
+    // response.
+    private static final int SIGNATURE_OVERHEAD = 2048;
+
+    // Threads of Undertow's XNIO worker pool. Requests are dispatched to the
+    // signing executor instead, so this pool is mostly idle.
+    private static final int UNDERTOW_WORKER_THREADS = 2;
+
+    private static final PdfName DSS = new PdfName("DSS");
+    private static final PdfName DSS_CERTS = new PdfName("Certs");
+    private static final PdfName DSS_OCSPS = new PdfName("OCSPs");
+    private static final PdfName DSS_CRLS = new PdfName("CRLs");
+
+    private final Storage storage = new Storage();
     private S3Handler s3Handler;
+    private TsaClient tsaClient;
+    private RevocationCache revocationCache;
+    private boolean preflight = true;
+    private MemoryBudget memoryBudget;
+    private long spillThreshold = -1;
+    private Path spillDir;
+    private AtomicFileWriter fileWriter = new AtomicFileWriter(AtomicFileWriter.Durability.NONE, 0, 0);
+    private LocalFileIO fileIO = LocalFileIO.defaults();
+    private EncryptionConfig encryption = EncryptionConfig.defaults();
 
     /**
      * Set the S3Handler to use for S3 operations
      */
     public void setS3Handler(S3Handler s3Handler) {
         this.s3Handler = s3Handler;
+        storage.register("s3", s3Handler != null ? new S3StorageBackend(s3Handler) : null);
     }
 
     /**
@@ -37,10 +81,83 @@ public class OpenPdfSigner {
         return this.s3Handler;
     }
 
+    /**
+     * Get the Storage that input and output paths are resolved in. Backends
+     * for other schemes can be registered on it.
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Set the TsaClient used to timestamp signatures. When null, signatures
+     * are not timestamped.
+     */
+    public void setTsaClient(TsaClient tsaClient) {
+        this.tsaClient = tsaClient;
+    }
+
+    /**
+     * Set how password protected documents are encrypted.
+     */
+    public void setEncryption(EncryptionConfig encryption) {
+        this.encryption = encryption;
+    }
+
+    /**
+     * Set the RevocationCache whose OCSP responses and CRLs are embedded into
+     * signatures for long-term validation. When null, none are embedded.
+     */
+    public void setRevocationCache(RevocationCache revocationCache) {
+        this.revocationCache = revocationCache;
+    }
+
+    /**
+     * Enables the pre-flight checks that reject invalid requests with a
+     * PreflightException before the input is downloaded or parsed.
+     */
+    public void setPreflight(boolean preflight) {
+        this.preflight = preflight;
+    }
+
+    /**
+     * Set the MemoryBudget that signs reserve heap from before they start.
+     * When null, signs are not limited by size.
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Spill documents of at least thresholdBytes to temp files in dir instead
+     * of holding them in memory. A negative threshold disables spilling.
+     */
+    public void setSpill(long thresholdBytes, Path dir) {
+        this.spillThreshold = thresholdBytes;
+        this.spillDir = dir;
+    }
+
+    /**
+     * Set the writer for local outputs, which decides how durable they are.
+     */
+    public void setFileWriter(AtomicFileWriter fileWriter) {
+        this.fileWriter = fileWriter;
+    }
+
+    /**
+     * Set how local inputs are read. Local outputs are written as configured
+     * on the file writer.
+     */
+    public void setFileIO(LocalFileIO fileIO) {
+        this.fileIO = fileIO;
+    }
+
     /**
      * Initialize S3Handler from configuration if S3 is enabled
      * 
-     * @param config Properties containing s3_enabled and s3_region
+     * @param config Properties containing s3_enabled, s3_region,
+     *               s3_skip_unchanged, s3_download_part_size_mb,
+     *               s3_download_concurrency and buffer_pool_mb
      * @return Initialized S3Handler or null if S3 is disabled
      */
     public static S3Handler initializeS3Handler(Properties config) {
@@ -54,6 +171,12 @@ public class OpenPdfSigner {
 
                 // If S3Handler was created successfully
                 if (s3Handler != null && s3Handler.getS3Client() != null) {
+                    s3Handler.setSkipUnchanged(
+                            Boolean.parseBoolean(config.getProperty("s3_skip_unchanged", "false")));
+                    s3Handler.setParallelDownload(
+                            Long.parseLong(config.getProperty("s3_download_part_size_mb", "8")) * 1024 * 1024,
+                            Integer.parseInt(config.getProperty("s3_download_concurrency", "8")));
+                    BufferPool.configure(config);
                     System.out.println("S3 support enabled with region: " + s3Region);
                 } else {
                     s3Handler = null;
@@ -72,7 +195,8 @@ public class OpenPdfSigner {
     /**
      * Initialize common configuration properties used for PDF signing
      * 
-     * @param config Properties containing signature configuration
+     * @param config Properties containing signature configuration and the
+     *               optional appearance_* settings
      * @return SignatureConfig object containing all common signature settings
      * @throws IOException              if there's an error loading files
      * @throws GeneralSecurityException if there's an error loading the keystore
@@ -113,118 +237,243 @@ public class OpenPdfSigner {
                 config.getProperty("password").toCharArray());
         Certificate[] chain = ks.getCertificateChain(alias);
 
+        // Optional appearance template for the visible signature
+        AppearanceTemplate appearance = AppearanceTemplate.fromConfig(config, font);
+
         // Return all configuration in a single object
-        return new SignatureConfig(font, reason, contact, location, rect, page, key, chain);
+        return new SignatureConfig(font, reason, contact, location, rect, page, key, chain, appearance);
     }
 
     void sign(SignParams params) throws DocumentException, IOException {
-        PdfReader reader;
-        InputStream inputStream = null;
-        ByteArrayOutputStream outputBuffer = null;
-        FileOutputStream fileOutputStream = null;
-        ByteArrayInputStream resultStream = null;
+        PdfReader reader = null;
+        AtomicFileWriter.Output localOutputFile = null;
+        StorageBackend.Output remoteOutput = null;
+        String sourceVersion = null;
 
-        boolean isInputS3 = S3Handler.isS3Path(params.getSrc());
-        boolean isOutputS3 = S3Handler.isS3Path(params.getDest());
+        // Reject a mode that doesn't fit the password, and missing or
+        // invalid paths, before any I/O.
+        modeOf(params);
+        if (preflight) {
+            Preflight.checkPaths(params, storage);
+        }
 
-        try {
-            // Handle input based on whether it's S3 or filesystem
-            if (isInputS3) {
-                if (s3Handler == null) {
-                    throw new IllegalStateException("S3Handler not initialized but S3 path provided for input");
-                }
-                // Get the file from S3 as an InputStream
-                try {
-                    inputStream = s3Handler.getInputStreamFromS3(params.getSrc());
-                    reader = new PdfReader(inputStream);
-                    System.out.println("Reading input from S3: " + params.getSrc());
-                } catch (Exception e) {
-                    throw new IOException("Failed to read PDF from S3: " + params.getSrc(), e);
-                }
-            } else {
-                // Local file input - use existing flow
-                reader = new PdfReader(params.getSrc());
-                System.out.println("Reading input from filesystem: " + params.getSrc());
+        String src = params.getSrc();
+        String dest = params.getDest();
+        StorageBackend input = storage.resolve(src);
+        StorageBackend output = storage.resolve(dest);
+        Path localInput = input.localPath(src);
+        Path localOutput = output.localPath(dest);
+
+        // On re-runs, the input's version and the one recorded on the output
+        // are enough to tell whether the output was already signed from this
+        // exact input. This runs before the preflight reads, so an unchanged
+        // input only costs the two HEADs.
+        StorageBackend.ObjectInfo info = null;
+        if (localInput == null && output.isSkipUnchanged()) {
+            info = input.stat(src);
+            if (info == null) {
+                throw new PreflightException(PreflightException.Code.INPUT_NOT_FOUND, "Input not found: " + src);
             }
+            sourceVersion = info.getVersion();
+            if (sourceVersion != null && output.isUpToDate(sourceVersion, dest)) {
+                System.out.println("Skipping unchanged input: " + src);
+                return;
+            }
+        }
 
-            // Handle output based on whether it's S3 or filesystem
-            if (isOutputS3) {
-                if (s3Handler == null) {
-                    throw new IllegalStateException("S3Handler not initialized but S3 path provided for output");
-                }
-                // Use ByteArrayOutputStream to hold the signed PDF data
-                outputBuffer = new ByteArrayOutputStream();
-                PdfStamper stp = PdfStamper.createSignature(reader, outputBuffer, '\0', null);
+        // Reject invalid requests before any read or parse. For remote inputs
+        // this also returns the input's size and version.
+        if (preflight) {
+            info = Preflight.check(params, storage, info);
+        }
 
-                // Apply signature
-                applySignature(stp, params);
+        // Large documents are spilled to temp files, read back through a
+        // memory map, so the heap only holds the objects being worked on.
+        if (info == null && (memoryBudget != null || spillThreshold >= 0)) {
+            info = statInput(input, src);
+        }
+        long size = info != null ? info.getSize() : 0;
+        boolean spill = spillThreshold >= 0 && size >= spillThreshold;
+        Path spilledInput = null;
+        Path spilledOutput = null;
+
+        // Wait until there is heap for a document of this size.
+        MemoryBudget.Reservation reservation = null;
+        if (memoryBudget != null) {
+            reservation = memoryBudget.reserve(size, spill);
+        }
 
-                // Upload the signed PDF to S3
+        try {
+            if (localInput != null) {
+                reader = spill ? mappedReader(localInput.toString()) : fileIO.openReader(localInput);
+            } else {
+                // When the version is known the read is pinned to it, so the
+                // signed bytes are the ones that were checked and the recorded
+                // version matches what was signed.
+                String version = info != null ? info.getVersion() : null;
                 try {
-                    resultStream = new ByteArrayInputStream(outputBuffer.toByteArray());
-                    s3Handler.uploadToS3(resultStream, outputBuffer.size(), params.getDest());
-                    System.out.println("Uploaded output to S3: " + params.getDest());
+                    if (spill) {
+                        spilledInput = Files.createTempFile(spillDir, "jpdfsigner-in-", ".pdf");
+                        input.readToFile(src, version, spilledInput);
+                        reader = mappedReader(spilledInput.toString());
+                    } else {
+                        reader = new PdfReader(input.readAll(src, version));
+                    }
                 } catch (Exception e) {
-                    throw new IOException("Failed to upload signed PDF to S3: " + params.getDest(), e);
+                    throw new IOException("Failed to read PDF from " + src, e);
                 }
+            }
+            System.out.println("Reading input from " + src);
+
+            if (localOutput != null) {
+                // Written to a temp file and renamed over dest once complete
+                localOutputFile = fileWriter.open(localOutput);
+                sign(reader, localOutputFile.stream(), params);
+                localOutputFile.commit();
             } else {
-                // Local file output - use existing flow
-                fileOutputStream = new FileOutputStream(params.getDest());
-                PdfStamper stp = PdfStamper.createSignature(reader, fileOutputStream, '\0', null);
+                Map<String, String> metadata = sourceVersion != null
+                        ? Collections.singletonMap(StorageBackend.SOURCE_VERSION_METADATA, sourceVersion)
+                        : null;
 
-                // Apply signature
-                applySignature(stp, params);
-                System.out.println("Wrote output to filesystem: " + params.getDest());
+                if (spill) {
+                    // Write the signed PDF to a temp file and store it from disk
+                    spilledOutput = Files.createTempFile(spillDir, "jpdfsigner-out-", ".pdf");
+                    try (OutputStream out = new BufferedOutputStream(
+                            new FileOutputStream(spilledOutput.toFile()))) {
+                        sign(reader, out, params);
+                    }
+                    try {
+                        output.writeFromFile(spilledOutput, dest, metadata);
+                    } catch (Exception e) {
+                        throw new IOException("Failed to write signed PDF to " + dest, e);
+                    }
+                } else {
+                    // The object is only stored once the document was
+                    // signed completely, and dropped otherwise.
+                    remoteOutput = output.openWrite(dest, metadata);
+                    sign(reader, remoteOutput.stream(), params);
+                    try {
+                        remoteOutput.commit();
+                    } catch (Exception e) {
+                        throw new IOException("Failed to write signed PDF to " + dest, e);
+                    }
+                }
             }
+            System.out.println("Wrote output to " + dest);
         } finally {
             // Clean up resources
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing input stream: " + e.getMessage());
-                }
+            if (reservation != null) {
+                reservation.close();
             }
-            if (outputBuffer != null) {
-                try {
-                    outputBuffer.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing output buffer: " + e.getMessage());
-                }
+            if (localOutputFile != null) {
+                localOutputFile.abort();
             }
-            if (fileOutputStream != null) {
-                try {
-                    fileOutputStream.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing file output stream: " + e.getMessage());
-                }
+            if (remoteOutput != null) {
+                remoteOutput.abort();
             }
-            if (resultStream != null) {
-                try {
-                    resultStream.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing result stream: " + e.getMessage());
-                }
+            // Unmap the input before its temp file is deleted
+            if (spill && reader != null) {
+                reader.close();
             }
+            deleteSpillFile(spilledInput);
+            deleteSpillFile(spilledOutput);
         }
     }
 
     /**
-     * Apply the signature to the PDF stamper
+     * Sign a parsed document into a stream. This is the core of sign without
+     * the storage handling, also used by the warmup.
      */
-    private void applySignature(PdfStamper stp, SignParams params) throws DocumentException, IOException {
-        // Is there a password?
-        if (params.getPassword() != null && !params.getPassword().isEmpty()) {
-            byte[] p = params.getPassword().getBytes();
+    void sign(PdfReader reader, OutputStream out, SignParams params) throws DocumentException, IOException {
+        SignParams.Mode mode = modeOf(params);
+        if (mode == SignParams.Mode.ENCRYPT) {
+            // Encryption only rewrites the document with a password, without
+            // any of the appearance, hashing or PKCS#7 work of a signature.
+            PdfStamper stp = new PdfStamper(reader, out);
+            encryption.apply(stp, params.getPassword());
+            stp.close();
+            return;
+        }
 
-            // PdfWriter.DO_NOT_ENCRYPT_METADATA somehow disables password protection.
-            stp.setEncryption(
-                    p,
-                    p,
-                    PdfWriter.ALLOW_PRINTING,
-                    PdfWriter.ENCRYPTION_AES_128);
+        PdfStamper stp = PdfStamper.createSignature(reader, out, '\0', null);
+        if (mode == SignParams.Mode.SIGN_ENCRYPT) {
+            encryption.apply(stp, params.getPassword());
         }
+        applySignature(stp, params);
+    }
 
+    /**
+     * The mode a document is processed in. Without an explicit mode, it is
+     * signed and, if it has a password, also encrypted.
+     *
+     * @throws PreflightException if the mode needs a password and there is
+     *                            none, or there is one and the mode doesn't use
+     *                            it
+     */
+    static SignParams.Mode modeOf(SignParams params) throws PreflightException {
+        boolean hasPassword = params.getPassword() != null && !params.getPassword().isEmpty();
+        SignParams.Mode mode = params.getMode();
+        if (mode == null) {
+            return hasPassword ? SignParams.Mode.SIGN_ENCRYPT : SignParams.Mode.SIGN;
+        }
+        if (mode == SignParams.Mode.SIGN && hasPassword) {
+            throw new PreflightException(PreflightException.Code.INVALID_MODE,
+                    "A password was given for mode sign, which doesn't encrypt");
+        }
+        if (mode != SignParams.Mode.SIGN && !hasPassword) {
+            throw new PreflightException(PreflightException.Code.INVALID_MODE,
+                    "Mode " + mode + " needs a password");
+        }
+        return mode;
+    }
+
+    // Open a PDF through a memory map of the file, reading objects only as
+    // they are needed.
+    private static PdfReader mappedReader(String path) throws IOException {
+        return new PdfReader(new RandomAccessFileOrArray(path, false, false), null);
+    }
+
+    private static void deleteSpillFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting spill file " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Configure spilling from spill_threshold_mb and spill_dir. Spilling is
+     * disabled when spill_threshold_mb is negative.
+     */
+    static void configureSpill(OpenPdfSigner app, Properties config) throws IOException {
+        long thresholdMb = Long.parseLong(config.getProperty("spill_threshold_mb", "64"));
+        if (thresholdMb < 0) {
+            app.setSpill(-1, null);
+            return;
+        }
+
+        Path dir = Paths.get(config.getProperty("spill_dir", System.getProperty("java.io.tmpdir")));
+        Files.createDirectories(dir);
+        app.setSpill(thresholdMb * 1024 * 1024, dir);
+    }
+
+    // Info of the input for sizing. Inputs that can't be found count as empty
+    // and fail when read.
+    private static StorageBackend.ObjectInfo statInput(StorageBackend input, String src) {
+        try {
+            return input.stat(src);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Apply the signature to the PDF stamper
+     */
+    private void applySignature(PdfStamper stp, SignParams params) throws DocumentException, IOException {
         PdfSignatureAppearance sap = stp.getSignatureAppearance();
 
         sap.setCrypto(
@@ -235,35 +484,205 @@ public class OpenPdfSigner {
         sap.setReason(params.getReason());
         sap.setContact(params.getContact());
         sap.setLocation(params.getLocation());
-        sap.setVisibleSignature(params.getRect(), params.getPage(), null);
         sap.setLayer2Font(params.getFont());
         sap.setAcro6Layers(true);
-        stp.close();
+
+        // The signature field's widget goes on the first placement. Every other
+        // placement gets the same appearance drawn as a single shared XObject,
+        // so the document is still parsed, written and signed only once.
+        List<Integer> pages = new ArrayList<>();
+        List<Rectangle> rects = new ArrayList<>();
+        // Local inputs have their pages checked in pre-flight, S3 inputs only
+        // once downloaded.
+        try {
+            resolvePlacements(params, stp.getReader().getNumberOfPages(), pages, rects);
+        } catch (IllegalArgumentException e) {
+            throw new PreflightException(PreflightException.Code.PAGE_OUT_OF_RANGE, e.getMessage(), e);
+        }
+
+        sap.setVisibleSignature(rects.get(0), pages.get(0), null);
+        if (params.getAppearance() != null) {
+            params.getAppearance().apply(stp, sap, params);
+        }
+        if (pages.size() > 1) {
+            PdfTemplate appearance = sap.getAppearance();
+            for (int i = 1; i < pages.size(); i++) {
+                Rectangle r = rects.get(i);
+                stp.getOverContent(pages.get(i)).addTemplate(
+                        appearance,
+                        r.getWidth() / appearance.getWidth(), 0,
+                        0, r.getHeight() / appearance.getHeight(),
+                        r.getLeft(), r.getBottom());
+            }
+        }
+
+        if (tsaClient != null || revocationCache != null) {
+            closeDetached(stp, sap, params);
+        } else {
+            stp.close();
+        }
     }
 
-    // Get the list of PDF files to convert from a CSV file.
-    // Each line in the file should be in the format:
-    // in_file.pdf|out_file.pdf|password
-    // where password is optional. The function returns an arraylist of lists in the
-    // format:
-    // [[infile, outfile, password], [infile, outfile, password] ...]
-    private ArrayList<String[]> getListFromFile(String infile)
+    /**
+     * Sign with a detached PKCS#7 signature and close the stamper. The
+     * signature carries an RFC 3161 timestamp of the signature value when a
+     * TsaClient is set, and the cached revocation data when a RevocationCache
+     * is set.
+     */
+    private void closeDetached(PdfStamper stp, PdfSignatureAppearance sap, SignParams params)
+            throws DocumentException, IOException {
+        PdfSignature dic = new PdfSignature(PdfName.ADOBE_PPKLITE, PdfName.ADBE_PKCS7_DETACHED);
+        dic.setReason(params.getReason());
+        dic.setContact(params.getContact());
+        dic.setLocation(params.getLocation());
+        dic.setDate(new PdfDate(sap.getSignDate()));
+        sap.setCryptoDictionary(dic);
+
+        // Reserve space for the signature, which is only known after the
+        // document bytes have been hashed and the TSA has responded.
+        int chainSize = 0;
+        try {
+            for (Certificate cert : params.getChain()) {
+                chainSize += cert.getEncoded().length;
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encode certificate chain", e);
+        }
+        int tokenSize = tsaClient != null ? tsaClient.getTokenSizeEstimate() : 0;
+        int estimate = SIGNATURE_OVERHEAD + chainSize + tokenSize;
+
+        byte[] ocsp = null;
+        if (revocationCache != null) {
+            RevocationCache.Snapshot revocation = revocationCache.getSnapshot();
+            if (revocation.isEmpty()) {
+                System.err.println("No revocation data cached, signing without LTV data");
+            } else {
+                addDss(stp, params.getChain(), revocation);
+            }
+            ocsp = revocation.signerOcsp;
+            if (ocsp != null) {
+                estimate += ocsp.length;
+            }
+        }
+
+        HashMap<PdfName, Integer> exclusions = new HashMap<>();
+        exclusions.put(PdfName.CONTENTS, estimate * 2 + 2);
+        sap.preClose(exclusions);
+
+        byte[] encoded;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            try (InputStream data = sap.getRangeStream()) {
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = data.read(buf)) > 0) {
+                    md.update(buf, 0, n);
+                }
+            }
+            byte[] hash = md.digest();
+
+            Calendar cal = sap.getSignDate();
+            PdfPKCS7 sgn = new PdfPKCS7(params.getKey(), params.getChain(), null, "SHA256", null, false);
+            byte[] attributes = sgn.getAuthenticatedAttributeBytes(hash, cal, ocsp);
+            sgn.update(attributes, 0, attributes.length);
+            encoded = sgn.getEncodedPKCS7(hash, cal, tsaClient, ocsp);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to sign document", e);
+        } catch (ExceptionConverter e) {
+            // OpenPDF wraps TSA errors.
+            throw new IOException("Failed to timestamp signature: " + e.getException().getMessage(),
+                    e.getException());
+        }
+
+        if (encoded.length > estimate) {
+            // Only the timestamp token's size is a guess; the rest is known.
+            String reserved = "the reserved " + estimate + " (" + SIGNATURE_OVERHEAD + " overhead, "
+                    + chainSize + " certificates";
+            if (ocsp != null) {
+                reserved += ", " + ocsp.length + " OCSP response";
+            }
+            if (tsaClient != null) {
+                reserved += ", " + tokenSize + " timestamp token). Increase tsa_token_size_estimate";
+            } else {
+                reserved += ")";
+            }
+            throw new IOException("Signature is " + encoded.length + " bytes, larger than " + reserved);
+        }
+
+        byte[] contents = new byte[estimate];
+        System.arraycopy(encoded, 0, contents, 0, encoded.length);
+        PdfDictionary update = new PdfDictionary();
+        update.put(PdfName.CONTENTS, new PdfString(contents).setHexWriting(true));
+        sap.close(update);
+    }
+
+    /**
+     * Add a Document Security Store (DSS) dictionary with the certificate
+     * chain, OCSP responses and CRLs to the catalog, so that the signature can
+     * be validated after the certificates expire. Must be called before the
+     * signature is pre-closed.
+     */
+    private static void addDss(PdfStamper stp, Certificate[] chain, RevocationCache.Snapshot revocation)
             throws IOException {
-        ArrayList<String[]> list = new ArrayList<>();
-        BufferedReader br = new BufferedReader(new FileReader(infile));
+        PdfWriter writer = stp.getWriter();
 
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] ch = line.trim().split("\\|");
-            if (ch.length == 3) {
-                list.add(ch);
-            } else if (ch.length == 2) {
-                list.add(new String[] { ch[0], ch[1], "" });
+        PdfArray certs = new PdfArray();
+        try {
+            for (Certificate cert : chain) {
+                certs.add(writer.addToBody(new PdfStream(cert.getEncoded())).getIndirectReference());
             }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encode certificate chain", e);
+        }
+        PdfArray ocsps = new PdfArray();
+        for (byte[] ocsp : revocation.ocspResponses) {
+            ocsps.add(writer.addToBody(new PdfStream(ocsp)).getIndirectReference());
+        }
+        PdfArray crls = new PdfArray();
+        for (byte[] crl : revocation.crls) {
+            crls.add(writer.addToBody(new PdfStream(crl)).getIndirectReference());
         }
 
-        br.close();
-        return list;
+        PdfDictionary dss = new PdfDictionary();
+        dss.put(DSS_CERTS, certs);
+        if (!ocsps.isEmpty()) {
+            dss.put(DSS_OCSPS, ocsps);
+        }
+        if (!crls.isEmpty()) {
+            dss.put(DSS_CRLS, crls);
+        }
+
+        // The catalog is always rewritten in the signature's revision, as the
+        // signature flags in the AcroForm are updated.
+        stp.getReader().getCatalog().put(DSS, writer.addToBody(dss).getIndirectReference());
+    }
+
+    /**
+     * Resolve the placements of the visible signature against the document into
+     * parallel lists of page numbers and normalized rectangles. Falls back to
+     * the single page and rect when no placements are set. Placements that
+     * resolve to the same page and rectangle are stamped once.
+     */
+    static void resolvePlacements(SignParams params, int numberOfPages,
+            List<Integer> pages, List<Rectangle> rects) {
+        List<SignaturePlacement> placements = params.getPlacements();
+        if (placements == null || placements.isEmpty()) {
+            placements = Collections.singletonList(
+                    new SignaturePlacement(params.getPage(), params.getRect()));
+        }
+
+        Set<List<Float>> seen = new HashSet<>();
+        for (SignaturePlacement placement : placements) {
+            Rectangle rect = new Rectangle(placement.getRect());
+            rect.normalize();
+            for (int page : placement.resolvePages(numberOfPages)) {
+                if (seen.add(Arrays.asList((float) page,
+                        rect.getLeft(), rect.getBottom(), rect.getRight(), rect.getTop()))) {
+                    pages.add(page);
+                    rects.add(rect);
+                }
+            }
+        }
     }
 
     // Get the list of PDFs to convert from a directory. The filename should be in
@@ -283,28 +702,63 @@ public class OpenPdfSigner {
         for (File file : files) {
             String srcPath = file.getPath();
             if (file.isFile() && srcPath.toLowerCase().endsWith(".pdf")) {
-                // If the filename has an underscore, the last part is used as the
-                // output filename while the rest is used as the password.
-                String targetName = file.getName();
-                String[] ch = targetName.split("_");
-                String password = "";
-                if (ch.length > 1) {
-                    targetName = ch[ch.length - 1];
-                    password = ch[0];
-                }
-
-                list.add(
-                        new String[] {
-                                srcPath,
-                                targetDir + "/" + targetName,
-                                password,
-                        });
+                list.add(getEntry(srcPath, file.getName(), targetDir));
             }
         }
 
         return list;
     }
 
+    // Get the PDFs to convert from an S3 prefix, with the same PASSWORD_filename.pdf
+    // convention as getListFromDirectory. Entries are produced lazily as
+    // ListObjectsV2 pages arrive so that signing can start before the listing
+    // finishes.
+    Iterable<String[]> getListFromS3(String srcPrefix, String targetDir) {
+        if (s3Handler == null) {
+            throw new IllegalStateException("S3Handler not initialized but S3 path provided for input");
+        }
+
+        Iterable<String> keys = s3Handler.listPdfObjects(srcPrefix);
+        return () -> {
+            Iterator<String> it = keys.iterator();
+            return new Iterator<String[]>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public String[] next() {
+                    String srcPath = it.next();
+                    return getEntry(srcPath, srcPath.substring(srcPath.lastIndexOf('/') + 1), targetDir);
+                }
+            };
+        };
+    }
+
+    // Build the [infile, outfile, password] entry for a source file. If the filename
+    // has an underscore, the last part is used as the output filename while the
+    // first part is used as the password.
+    private static String[] getEntry(String srcPath, String fileName, String targetDir) {
+        String targetName = fileName;
+        String[] ch = targetName.split("_");
+        String password = "";
+        if (ch.length > 1) {
+            targetName = ch[ch.length - 1];
+            password = ch[0];
+        }
+
+        if (targetDir.endsWith("/")) {
+            targetDir = targetDir.substring(0, targetDir.length() - 1);
+        }
+
+        return new String[] {
+                srcPath,
+                targetDir + "/" + targetName,
+                password,
+        };
+    }
+
     public static void main(String[] args)
             throws DocumentException, IOException, GeneralSecurityException {
         // Check if the config file exists.
@@ -321,13 +775,17 @@ public class OpenPdfSigner {
         Properties config = new Properties();
         config.load(inp);
 
-        // Check if we have to run a server.
+        // Check if we have to run a server or a queue consumer.
         boolean runServer = Boolean.parseBoolean(config.getProperty("server"));
+        boolean runConsumer = Boolean.parseBoolean(config.getProperty("consumer"));
 
         // If the `server` is true, start the HTTP server instead of signing the PDFs.
         if (runServer) {
             System.out.println("Starting server");
             startServer(config);
+        } else if (runConsumer) {
+            System.out.println("Starting consumer");
+            startConsumer(config);
         } else {
             startCLI(args, config);
         }
@@ -339,6 +797,8 @@ public class OpenPdfSigner {
         // Initialize the app.
         OpenPdfSigner app = new OpenPdfSigner();
         S3Handler s3Handler = null;
+        RevocationCache revocationCache = null;
+        boolean started = false;
 
         try {
             // Initialize S3Handler if enabled
@@ -346,36 +806,220 @@ public class OpenPdfSigner {
             if (s3Handler != null) {
                 app.setS3Handler(s3Handler);
             }
+            app.setTsaClient(TsaClient.fromConfig(config));
+            app.setPreflight(Boolean.parseBoolean(config.getProperty("preflight", "true")));
+            app.setMemoryBudget(MemoryBudget.fromConfig(config));
+            configureSpill(app, config);
+            app.setFileWriter(AtomicFileWriter.fromConfig(config, false));
+            app.setFileIO(LocalFileIO.fromConfig(config));
+            app.setEncryption(EncryptionConfig.fromConfig(config));
 
             // Initialize common signature configuration
             SignatureConfig sigConfig = initializeSignatureConfig(config);
+            revocationCache = RevocationCache.fromConfig(config, sigConfig.getChain());
+            app.setRevocationCache(revocationCache);
 
-            ExecutorService executor = Executors.newCachedThreadPool();
+            // A fixed pool bounds the number of concurrent signs when
+            // server_worker_threads is set.
+            String workerThreads = config.getProperty("server_worker_threads");
+            ExecutorService executor = workerThreads != null
+                    ? Executors.newFixedThreadPool(Integer.parseInt(workerThreads))
+                    : Executors.newCachedThreadPool();
 
-            int port = Integer.parseInt(config.getProperty("server_port", "8090"));
-            String host = config.getProperty("server_host", "localhost");
-            Undertow server = Undertow.builder()
-                    .addHttpListener(port, host)
-                    .setHandler(
+            SignatureVerifier verifier = SignatureVerifier.fromConfig(config, sigConfig.getChain(), s3Handler);
+
+            // Warm the signing path up before reporting ready. The warmup
+            // signer has no TSA so warmup signs don't hit the network.
+            OpenPdfSigner warmupSigner = new OpenPdfSigner();
+            warmupSigner.setRevocationCache(revocationCache);
+            warmupSigner.setEncryption(app.encryption);
+            Warmup warmup = Warmup.fromConfig(config, warmupSigner, sigConfig);
+
+            // On SIGTERM, fail readiness, drain in-flight and queued requests,
+            // then release the executor, S3 client and revocation cache.
+            GracefulShutdown shutdown = GracefulShutdown.fromConfig(config);
+            shutdown.setExecutor(executor);
+            shutdown.closeOnShutdown(s3Handler);
+            shutdown.closeOnShutdown(revocationCache);
+
+            Undertow server = createServerBuilder(config)
+                    .setHandler(shutdown.wrap(
                             path()
                                     .addExactPath("/sign", httpExchange -> {
-                                        SigningRequest request = new SigningRequest(
-                                                sigConfig.getKey(),
-                                                sigConfig.getChain(),
-                                                sigConfig.getReason(),
-                                                sigConfig.getContact(),
-                                                sigConfig.getLocation(),
-                                                sigConfig.getRect(),
-                                                app,
-                                                sigConfig.getFont(),
-                                                sigConfig.getPage(),
-                                                executor);
+                                        SigningRequest request = new SigningRequest(sigConfig, app, executor);
                                         request.handleRequestWithMeta(httpExchange);
-                                    }))
+                                    })
+                                    .addExactPath("/verify", httpExchange -> {
+                                        VerifyRequest request = new VerifyRequest(verifier, executor);
+                                        request.handleRequest(httpExchange);
+                                    })
+                                    .addExactPath("/health", httpExchange -> {
+                                        SigningRequest.sendResponse("OK", StatusCodes.OK, httpExchange);
+                                    })
+                                    .addExactPath("/ready", httpExchange -> {
+                                        if (shutdown.isDraining()) {
+                                            SigningRequest.sendResponse("Shutting down",
+                                                    StatusCodes.SERVICE_UNAVAILABLE, httpExchange);
+                                        } else if (!warmup.isDone()) {
+                                            SigningRequest.sendResponse("Warming up",
+                                                    StatusCodes.SERVICE_UNAVAILABLE, httpExchange);
+                                        } else {
+                                            SigningRequest.sendResponse("OK", StatusCodes.OK, httpExchange);
+                                        }
+                                    })
+                                    .addExactPath("/metrics", httpExchange -> {
+                                        httpExchange.getResponseHeaders().put(
+                                                Headers.CONTENT_TYPE, "text/plain; version=0.0.4");
+                                        httpExchange.getResponseSender().send(Metrics.render());
+                                    })))
                     .build();
+            shutdown.setServer(server);
 
             server.start();
+            started = true;
+
+            // Training run for the AppCDS archive: warm up in the foreground,
+            // then stop so that the JVM exits and dumps the loaded classes.
+            if (Boolean.parseBoolean(config.getProperty("warmup_exit", "false"))) {
+                warmup.run();
+                shutdown.shutdown();
+                return;
+            }
+
+            Runtime.getRuntime().addShutdownHook(new Thread(shutdown::shutdown, "graceful-shutdown"));
+            warmup.start();
         } finally {
+            // Once started, the shutdown hook owns these.
+            if (!started) {
+                if (s3Handler != null) {
+                    s3Handler.close();
+                }
+                if (revocationCache != null) {
+                    revocationCache.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the Undertow builder for the HTTP listener with the thread, buffer,
+     * HTTP/2 and connection settings from the config. Settings that are not
+     * configured keep Undertow's defaults.
+     *
+     * @param config Properties containing server_port, server_host and the
+     *               optional server_* tuning settings
+     * @return Builder with the listener configured and no handler set
+     */
+    static Undertow.Builder createServerBuilder(Properties config) {
+        int port = Integer.parseInt(config.getProperty("server_port", "8090"));
+        String host = config.getProperty("server_host", "localhost");
+        Undertow.Builder builder = Undertow.builder().addHttpListener(port, host);
+
+        Optional.ofNullable(config.getProperty("server_io_threads"))
+                .ifPresent(v -> builder.setIoThreads(Integer.parseInt(v)));
+        // Signs and verifies are dispatched to the executor sized by
+        // server_worker_threads, so Undertow's own worker pool stays minimal.
+        builder.setWorkerThreads(UNDERTOW_WORKER_THREADS);
+        Optional.ofNullable(config.getProperty("server_buffer_size"))
+                .ifPresent(v -> builder.setBufferSize(Integer.parseInt(v)));
+        Optional.ofNullable(config.getProperty("server_direct_buffers"))
+                .ifPresent(v -> builder.setDirectBuffers(Boolean.parseBoolean(v)));
+        Optional.ofNullable(config.getProperty("server_backlog"))
+                .ifPresent(v -> builder.setSocketOption(Options.BACKLOG, Integer.parseInt(v)));
+
+        // h2c, via both prior knowledge and HTTP/1.1 upgrade.
+        builder.setServerOption(UndertowOptions.ENABLE_HTTP2,
+                Boolean.parseBoolean(config.getProperty("server_http2", "false")));
+
+        // Close connections that are idle, or kept alive without sending a
+        // request, for longer than the configured time.
+        Optional.ofNullable(config.getProperty("server_idle_timeout_ms"))
+                .ifPresent(v -> builder.setServerOption(UndertowOptions.IDLE_TIMEOUT, Integer.parseInt(v)));
+        Optional.ofNullable(config.getProperty("server_no_request_timeout_ms"))
+                .ifPresent(v -> builder.setServerOption(UndertowOptions.NO_REQUEST_TIMEOUT, Integer.parseInt(v)));
+        Optional.ofNullable(config.getProperty("server_max_entity_size"))
+                .ifPresent(v -> builder.setServerOption(UndertowOptions.MAX_ENTITY_SIZE, Long.parseLong(v)));
+
+        return builder;
+    }
+
+    // Start a consumer that signs requests pulled from a message queue.
+    public static void startConsumer(Properties config)
+            throws IOException, GeneralSecurityException {
+        // Initialize the app.
+        OpenPdfSigner app = new OpenPdfSigner();
+        S3Handler s3Handler = null;
+        RevocationCache revocationCache = null;
+        MessageSource source = null;
+
+        try {
+            // Initialize S3Handler if enabled
+            s3Handler = initializeS3Handler(config);
+            if (s3Handler != null) {
+                app.setS3Handler(s3Handler);
+            }
+            app.setTsaClient(TsaClient.fromConfig(config));
+            app.setPreflight(Boolean.parseBoolean(config.getProperty("preflight", "true")));
+            app.setMemoryBudget(MemoryBudget.fromConfig(config));
+            configureSpill(app, config);
+            app.setFileWriter(AtomicFileWriter.fromConfig(config, false));
+            app.setFileIO(LocalFileIO.fromConfig(config));
+            app.setEncryption(EncryptionConfig.fromConfig(config));
+
+            // Initialize common signature configuration
+            SignatureConfig sigConfig = initializeSignatureConfig(config);
+            revocationCache = RevocationCache.fromConfig(config, sigConfig.getChain());
+            app.setRevocationCache(revocationCache);
+
+            String sourceType = config.getProperty("consumer_source", "file");
+            if (sourceType.equals("kafka")) {
+                source = new KafkaMessageSource(config);
+            } else if (sourceType.equals("file")) {
+                source = new FileMessageSource(config.getProperty("consumer_file", "requests.ndjson"));
+            } else {
+                throw new IllegalArgumentException("Unknown consumer_source: " + sourceType);
+            }
+
+            SigningConsumer consumer = new SigningConsumer(
+                    source,
+                    app,
+                    sigConfig,
+                    Integer.parseInt(config.getProperty("consumer_parallelism", "4")),
+                    Integer.parseInt(config.getProperty("consumer_batch_size", "100")),
+                    Long.parseLong(config.getProperty("consumer_poll_timeout_ms", "1000")));
+
+            // Finish and commit the current batch on SIGTERM.
+            Thread mainThread = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                consumer.stop();
+                try {
+                    mainThread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            System.out.println("Consuming from " + sourceType + " source");
+            consumer.run();
+        } finally {
+            if (source != null) {
+                try {
+                    source.close();
+                } catch (Exception e) {
+                    System.err.println("Error closing message source: " + e.getMessage());
+                }
+            }
+            if (s3Handler != null) {
+                try {
+                    s3Handler.close();
+                    System.out.println("S3Handler resources released");
+                } catch (Exception e) {
+                    System.err.println("Error closing S3Handler: " + e.getMessage());
+                }
+            }
+            if (revocationCache != null) {
+                revocationCache.close();
+            }
         }
     }
 
@@ -386,16 +1030,33 @@ public class OpenPdfSigner {
             System.out.println(
                     "Contract notes PDF signer for Zerodha\n\n1) PdfSigner file_list.txt");
             System.out.println(
-                    "The file list should have one entry per line and each entry should be: input.pdf output.pdf");
+                    "The file list should have one entry per line: input.pdf|output.pdf|password|mode, a header line"
+                            + " naming per-document columns, or JSON requests as for /sign");
             System.out.println("2) PdfSigner input_dir output_dir");
+            System.out.println(
+                    "   input_dir and output_dir can also be S3 prefixes: s3://bucket/prefix/ s3://bucket/outprefix/");
             System.out.println(
                     "3) Starts a HTTP server if server = true is set in config.");
+            System.out.println(
+                    "4) Consumes signing requests from a queue if consumer = true is set in config.");
+            System.out.println(
+                    "5) PdfSigner verify file_list.txt | input_dir output_dir | output_dir");
+            System.out.println(
+                    "   Verifies the signed outputs of a run and writes a report to verify_report.");
             System.exit(0);
         }
 
+        if (args[0].equals("verify")) {
+            startVerifyCLI(Arrays.copyOfRange(args, 1, args.length), config);
+            return;
+        }
+
         // Initialize the app.
         OpenPdfSigner app = new OpenPdfSigner();
         S3Handler s3Handler = null;
+        RevocationCache revocationCache = null;
+        AtomicFileWriter fileWriter = null;
+        Manifest manifest = null;
 
         try {
             // Initialize S3Handler if enabled
@@ -403,52 +1064,139 @@ public class OpenPdfSigner {
             if (s3Handler != null) {
                 app.setS3Handler(s3Handler);
             }
+            app.setTsaClient(TsaClient.fromConfig(config));
+            app.setPreflight(Boolean.parseBoolean(config.getProperty("preflight", "true")));
+            app.setMemoryBudget(MemoryBudget.fromConfig(config));
+            configureSpill(app, config);
+            fileWriter = AtomicFileWriter.fromConfig(config, true);
+            app.setFileWriter(fileWriter);
+            app.setFileIO(LocalFileIO.fromConfig(config));
+            app.setEncryption(EncryptionConfig.fromConfig(config));
 
             // Initialize common signature configuration
             SignatureConfig sigConfig = initializeSignatureConfig(config);
+            revocationCache = RevocationCache.fromConfig(config, sigConfig.getChain());
+            app.setRevocationCache(revocationCache);
 
-            // Load file list from an input list or from an input directory
-            ArrayList<String[]> flist;
+            // Load file list from a manifest, an input directory or an S3 prefix
+            Iterable<Request> requests;
             if (args.length == 2) {
                 if (args[0].equals(args[1])) {
                     System.out.println(
                             "Can't read and write from the same directory");
                     System.exit(0);
                 }
-                flist = app.getListFromDirectory(args[0], args[1]);
+                if (S3Handler.isS3Path(args[0])) {
+                    requests = requestsOf(app.getListFromS3(args[0], args[1]));
+                    System.out.println("Signing files under " + args[0]);
+                } else {
+                    ArrayList<String[]> list = app.getListFromDirectory(args[0], args[1]);
+                    System.out.println("Signing " + list.size() + " files");
+                    requests = requestsOf(list);
+                }
             } else {
-                flist = app.getListFromFile(args[0]);
+                // Read as the files are signed, so large manifests start
+                // signing at once and aren't held in memory.
+                manifest = Manifest.open(args[0]);
+                System.out.println("Signing files listed in " + args[0]);
+                requests = manifest;
             }
 
-            // Sign.
-            System.out.println("Signing " + flist.size() + " files");
-
-            // Run through and sign each file
-            for (int i = 0; i < flist.size(); i++) {
-                String[] fl = flist.get(i);
-
-                SignParams params = new SignParams();
-                params.setSrc(fl[0]);
-                params.setDest(fl[1]);
-                params.setPassword(fl[2]);
-                params.setReason(sigConfig.getReason());
-                params.setContact(sigConfig.getContact());
-                params.setLocation(sigConfig.getLocation());
-                params.setKey(sigConfig.getKey());
-                params.setChain(sigConfig.getChain());
-                params.setRect(sigConfig.getRect());
-                params.setFont(sigConfig.getFont());
-                params.setPage(sigConfig.getPage());
-
-                app.sign(params);
+            // Run through and sign each file. Every entry may override the
+            // configured reason, contact, location, page and coordinates.
+            int i = 0;
+            for (Request req : requests) {
+                app.sign(SigningRequest.createSignParams(req, sigConfig));
 
                 if ((i + 1) % 100 == 0) {
                     System.out.println(i);
                 }
+                i++;
             }
 
             System.out.println("Done");
         } finally {
+            if (manifest != null) {
+                manifest.close();
+            }
+            // Commit the outputs still held back by group commit
+            if (fileWriter != null) {
+                fileWriter.close();
+            }
+            if (s3Handler != null) {
+                try {
+                    s3Handler.close();
+                    System.out.println("S3Handler resources released");
+                } catch (Exception e) {
+                    System.err.println("Error closing S3Handler: " + e.getMessage());
+                }
+            }
+            if (revocationCache != null) {
+                revocationCache.close();
+            }
+        }
+    }
+
+    // Verify the signed outputs of a CLI run: the outputs of a file list, the
+    // outputs an input directory or S3 prefix was signed into, or every PDF in
+    // a directory or S3 prefix. Results are written to verify_report as
+    // newline-delimited JSON.
+    static void startVerifyCLI(String[] args, Properties config)
+            throws DocumentException, IOException, GeneralSecurityException {
+        if (args.length < 1) {
+            System.out.println("Usage: PdfSigner verify file_list.txt | input_dir output_dir | output_dir");
+            System.exit(0);
+        }
+
+        OpenPdfSigner app = new OpenPdfSigner();
+        S3Handler s3Handler = null;
+        Manifest manifest = null;
+        boolean allOk;
+
+        try {
+            s3Handler = initializeS3Handler(config);
+            if (s3Handler != null) {
+                app.setS3Handler(s3Handler);
+            }
+            SignatureConfig sigConfig = initializeSignatureConfig(config);
+            SignatureVerifier verifier = SignatureVerifier.fromConfig(config, sigConfig.getChain(), s3Handler);
+
+            // Entries are [path, password] pairs of the signed outputs.
+            Iterable<String[]> entries;
+            if (args.length == 2) {
+                entries = outputsOf(S3Handler.isS3Path(args[0])
+                        ? app.getListFromS3(args[0], args[1])
+                        : app.getListFromDirectory(args[0], args[1]));
+            } else if (S3Handler.isS3Path(args[0])) {
+                if (s3Handler == null) {
+                    throw new IllegalStateException("S3Handler not initialized but S3 path provided for input");
+                }
+                entries = pathsOf(s3Handler.listPdfObjects(args[0]));
+            } else if (new File(args[0]).isDirectory()) {
+                List<String> paths = new ArrayList<>();
+                for (String[] entry : app.getListFromDirectory(args[0], args[0])) {
+                    paths.add(entry[0]);
+                }
+                entries = pathsOf(paths);
+            } else {
+                manifest = Manifest.open(args[0]);
+                entries = outputsOf(manifest);
+            }
+
+            int parallelism = Integer.parseInt(config.getProperty("verify_parallelism",
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
+            String reportPath = config.getProperty("verify_report", "verify-report.ndjson");
+            SignatureVerifier.Summary summary;
+            try (Writer report = new BufferedWriter(new FileWriter(reportPath))) {
+                summary = verifier.verifyAll(entries, parallelism, report);
+            }
+
+            System.out.println(summary + ". Report written to " + reportPath);
+            allOk = summary.total() == summary.ok.sum();
+        } finally {
+            if (manifest != null) {
+                manifest.close();
+            }
             if (s3Handler != null) {
                 try {
                     s3Handler.close();
@@ -458,5 +1206,105 @@ public class OpenPdfSigner {
                 }
             }
         }
+
+        // A non-zero exit lets scripts fail the run on any invalid output.
+        if (!allOk) {
+            System.exit(1);
+        }
+    }
+
+    // Map [infile, outfile, password] entries to [outfile, password].
+    private static Iterable<String[]> outputsOf(Iterable<String[]> list) {
+        return () -> {
+            Iterator<String[]> it = list.iterator();
+            return new Iterator<String[]>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public String[] next() {
+                    String[] entry = it.next();
+                    return new String[] { entry[1], entry[2] };
+                }
+            };
+        };
+    }
+
+    // Map the signed entries of a manifest to [outfile, password]. Documents
+    // that are only encrypted carry no signature to verify and are skipped.
+    private static Iterable<String[]> outputsOf(Manifest manifest) {
+        return () -> {
+            Iterator<Request> it = manifest.iterator();
+            return new Iterator<String[]>() {
+                private String[] next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && it.hasNext()) {
+                        Request req = it.next();
+                        String mode = req.getMode() != null ? req.getMode().trim() : "";
+                        if (!mode.equalsIgnoreCase(SignParams.Mode.ENCRYPT.toString())) {
+                            next = new String[] { req.getOutputFile(),
+                                    req.getPassword() != null ? req.getPassword() : "" };
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public String[] next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String[] entry = next;
+                    next = null;
+                    return entry;
+                }
+            };
+        };
+    }
+
+    // Map [infile, outfile, password] entries to requests signed with the
+    // configured parameters.
+    private static Iterable<Request> requestsOf(Iterable<String[]> list) {
+        return () -> {
+            Iterator<String[]> it = list.iterator();
+            return new Iterator<Request>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Request next() {
+                    String[] entry = it.next();
+                    Request req = new Request();
+                    req.setInputFile(entry[0]);
+                    req.setOutputFile(entry[1]);
+                    req.setPassword(entry[2]);
+                    return req;
+                }
+            };
+        };
+    }
+
+    // Map paths to [path, ""] entries of unencrypted documents.
+    private static Iterable<String[]> pathsOf(Iterable<String> paths) {
+        return () -> {
+            Iterator<String> it = paths.iterator();
+            return new Iterator<String[]>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public String[] next() {
+                    return new String[] { it.next(), "" };
+                }
+            };
+        };
     }
 }
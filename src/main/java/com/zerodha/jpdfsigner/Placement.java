@@ -0,0 +1,29 @@
+package com.zerodha.jpdfsigner;
+
+import com.google.gson.annotations.SerializedName;
+
+// Placement is a single signature position in the request, where page is a
+// page number or "all"/"last". Coordinates default to the request's.
+class Placement {
+    @SerializedName("page")
+    private String page;
+
+    @SerializedName("coordinates")
+    private Coordinates coordinates;
+
+    public Placement() {
+    }
+
+    Placement(String page, Coordinates coordinates) {
+        this.page = page;
+        this.coordinates = coordinates;
+    }
+
+    public String getPage() {
+        return page;
+    }
+
+    public Coordinates getCoordinates() {
+        return coordinates;
+    }
+}
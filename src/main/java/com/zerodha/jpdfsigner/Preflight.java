@@ -0,0 +1,227 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.exceptions.BadPasswordException;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Preflight runs cheap checks on a sign request before any expensive work,
+ * so that bad requests fail fast with a PreflightException instead of deep
+ * in signing. Only the first and last bytes of the input are read: the
+ * header and trailer of local files and remote objects, and the
+ * cross-reference and page tree of local files for the page count.
+ */
+final class Preflight {
+
+    // Bytes probed at each end of the input for the header and trailer.
+    static final int PROBE_SIZE = 1024;
+
+    private static final byte[] HEADER = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRAILER = "%%EOF".getBytes(StandardCharsets.US_ASCII);
+
+    private Preflight() {
+    }
+
+    /**
+     * Check a sign request.
+     *
+     * @param params  Parameters of the sign
+     * @param storage Storage the input and output paths are resolved in
+     * @return The info of a remote input, or null for a local input
+     * @throws PreflightException    if the request is invalid
+     * @throws IllegalStateException if no backend handles a path's scheme
+     * @throws IOException           if the checks themselves fail
+     */
+    static StorageBackend.ObjectInfo check(SignParams params, Storage storage) throws IOException {
+        return check(params, storage, null);
+    }
+
+    /**
+     * Check a sign request whose remote input was already looked up.
+     *
+     * @param info The remote input's info, or null to look it up
+     * @see #check(SignParams, Storage)
+     */
+    static StorageBackend.ObjectInfo check(SignParams params, Storage storage, StorageBackend.ObjectInfo info)
+            throws IOException {
+        checkPaths(params, storage);
+
+        StorageBackend input = storage.resolve(params.getSrc());
+        StorageBackend output = storage.resolve(params.getDest());
+
+        Path src = input.localPath(params.getSrc());
+        if (src != null) {
+            checkLocalInput(params, src);
+            info = null;
+        } else {
+            info = checkRemoteInput(params.getSrc(), input, info);
+        }
+
+        Path dest = output.localPath(params.getDest());
+        if (dest != null) {
+            checkLocalOutput(params, src, dest);
+        }
+
+        return info;
+    }
+
+    /**
+     * Check only that both paths are given and that remote paths are valid.
+     * This does no I/O.
+     *
+     * @throws PreflightException    if a path is missing or invalid
+     * @throws IllegalStateException if no backend handles a path's scheme
+     */
+    static void checkPaths(SignParams params, Storage storage) throws PreflightException {
+        if (params.getSrc() == null || params.getSrc().isBlank()) {
+            throw new PreflightException(PreflightException.Code.MISSING_PATH, "Missing input file");
+        }
+        if (params.getDest() == null || params.getDest().isBlank()) {
+            throw new PreflightException(PreflightException.Code.MISSING_PATH, "Missing output file");
+        }
+
+        StorageBackend input = storage.resolve(params.getSrc());
+        if (input.localPath(params.getSrc()) == null) {
+            validate(params.getSrc(), input);
+        }
+        StorageBackend output = storage.resolve(params.getDest());
+        if (output.localPath(params.getDest()) == null) {
+            validate(params.getDest(), output);
+        }
+    }
+
+    private static void checkLocalInput(SignParams params, Path src) throws IOException {
+        if (!Files.isRegularFile(src) || !Files.isReadable(src)) {
+            throw new PreflightException(PreflightException.Code.INPUT_NOT_FOUND,
+                    "Input file not found: " + params.getSrc());
+        }
+
+        long size = Files.size(src);
+        int probe = (int) Math.min(PROBE_SIZE, size);
+        byte[] first = new byte[probe];
+        byte[] last = new byte[probe];
+        try (RandomAccessFile file = new RandomAccessFile(src.toFile(), "r")) {
+            file.readFully(first);
+            file.seek(size - probe);
+            file.readFully(last);
+        }
+        checkMarkers(params.getSrc(), first, last);
+
+        // A partial read only parses the cross-reference table and trailer,
+        // which is enough for the page count.
+        int numberOfPages;
+        PdfReader reader = null;
+        try {
+            reader = new PdfReader(new RandomAccessFileOrArray(src.toString(), false, true), null);
+            numberOfPages = reader.getNumberOfPages();
+        } catch (BadPasswordException e) {
+            throw new PreflightException(PreflightException.Code.INVALID_PDF,
+                    "Input file is password protected: " + params.getSrc(), e);
+        } catch (IOException | RuntimeException e) {
+            throw new PreflightException(PreflightException.Code.INVALID_PDF,
+                    "Input file is not a valid PDF: " + params.getSrc() + ": " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+        checkPages(params, numberOfPages);
+    }
+
+    private static StorageBackend.ObjectInfo checkRemoteInput(String src, StorageBackend input,
+            StorageBackend.ObjectInfo info) throws IOException {
+        if (info == null) {
+            info = input.stat(src);
+        }
+        if (info == null) {
+            throw new PreflightException(PreflightException.Code.INPUT_NOT_FOUND, "Input not found: " + src);
+        }
+        if (info.getSize() < HEADER.length) {
+            throw new PreflightException(PreflightException.Code.NOT_PDF, "Input is not a PDF: " + src);
+        }
+
+        // Ranged reads pinned to the version, so the probed bytes are the ones signed.
+        byte[] first = input.readRange(src, 0, PROBE_SIZE, info.getVersion());
+        byte[] last = info.getSize() <= PROBE_SIZE
+                ? first
+                : input.readRange(src, info.getSize() - PROBE_SIZE, PROBE_SIZE, info.getVersion());
+        checkMarkers(src, first, last);
+
+        return info;
+    }
+
+    private static void validate(String path, StorageBackend backend) throws PreflightException {
+        try {
+            backend.validate(path);
+        } catch (IllegalArgumentException e) {
+            throw new PreflightException(PreflightException.Code.INVALID_S3_PATH, e.getMessage(), e);
+        }
+    }
+
+    private static void checkLocalOutput(SignParams params, Path src, Path dest) throws PreflightException {
+        dest = dest.toAbsolutePath().normalize();
+        if (Files.isDirectory(dest)) {
+            throw new PreflightException(PreflightException.Code.OUTPUT_NOT_WRITABLE,
+                    "Output is a directory: " + params.getDest());
+        }
+        if (src != null && dest.equals(src.toAbsolutePath().normalize())) {
+            throw new PreflightException(PreflightException.Code.OUTPUT_NOT_WRITABLE,
+                    "Output is the same file as the input: " + params.getDest());
+        }
+
+        Path dir = dest.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            throw new PreflightException(PreflightException.Code.OUTPUT_NOT_WRITABLE,
+                    "Output directory does not exist: " + params.getDest());
+        }
+        if (!Files.isWritable(dir) || (Files.exists(dest) && !Files.isWritable(dest))) {
+            throw new PreflightException(PreflightException.Code.OUTPUT_NOT_WRITABLE,
+                    "Output is not writable: " + params.getDest());
+        }
+    }
+
+    /**
+     * Check the placements of the visible signature against the page count.
+     */
+    static void checkPages(SignParams params, int numberOfPages) throws PreflightException {
+        // Encryption alone places no signature.
+        if (params.getMode() == SignParams.Mode.ENCRYPT) {
+            return;
+        }
+        try {
+            OpenPdfSigner.resolvePlacements(params, numberOfPages, new ArrayList<>(), new ArrayList<>());
+        } catch (IllegalArgumentException e) {
+            throw new PreflightException(PreflightException.Code.PAGE_OUT_OF_RANGE, e.getMessage(), e);
+        }
+    }
+
+    // The header may follow some leading garbage and the trailer may be
+    // followed by whitespace, so both are searched for within the probe.
+    private static void checkMarkers(String path, byte[] first, byte[] last) throws PreflightException {
+        if (indexOf(first, HEADER) < 0) {
+            throw new PreflightException(PreflightException.Code.NOT_PDF, "Input is not a PDF: " + path);
+        }
+        if (indexOf(last, TRAILER) < 0) {
+            throw new PreflightException(PreflightException.Code.NOT_PDF,
+                    "Input is truncated, no %%EOF marker: " + path);
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer: for (int i = 0; i + pattern.length <= data.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,54 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.IOException;
+
+/**
+ * PreflightException is thrown when a sign request fails a pre-flight check.
+ * The failure is in the request itself, so retrying it won't help. The code
+ * maps to the 4xx status returned by the HTTP API.
+ */
+public class PreflightException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Code {
+        MISSING_PATH(400),
+        INVALID_S3_PATH(400),
+        INPUT_NOT_FOUND(404),
+        NOT_PDF(415),
+        INVALID_PDF(422),
+        PAGE_OUT_OF_RANGE(422),
+        OUTPUT_NOT_WRITABLE(422),
+        INVALID_MODE(400);
+
+        private final int status;
+
+        Code(int status) {
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private final Code code;
+
+    public PreflightException(Code code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public PreflightException(Code code, String message, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    public int getStatus() {
+        return code.getStatus();
+    }
+}
@@ -1,44 +1,7 @@
 package com.zerodha.jpdfsigner;
 
 import com.google.gson.annotations.SerializedName;
-
-// Coordinates class to represent the signature coordinates
-class Coordinates {
-    @SerializedName("x1")
-    private Float x1;
-
-    @SerializedName("y1")
-    private Float y1;
-
-    @SerializedName("x2")
-    private Float x2;
-
-    @SerializedName("y2")
-    private Float y2;
-
-    public Coordinates() {
-    }
-
-    public Float getX1() {
-        return x1;
-    }
-
-    public Float getY1() {
-        return y1;
-    }
-
-    public Float getX2() {
-        return x2;
-    }
-
-    public Float getY2() {
-        return y2;
-    }
-
-    public boolean isValid() {
-        return x1 != null && y1 != null && x2 != null && y2 != null;
-    }
-}
+import java.util.List;
 
 // Request is the class that represents the json request body of the API.
 class Request {
@@ -66,6 +29,12 @@ class Request {
     @SerializedName("coordinates")
     private Coordinates coordinates;
 
+    @SerializedName("placements")
+    private List<Placement> placements;
+
+    @SerializedName("mode")
+    private String mode;
+
     public Request() {
     }
 
@@ -100,4 +69,53 @@ class Request {
     public Coordinates getCoordinates() {
         return coordinates;
     }
+
+    public List<Placement> getPlacements() {
+        return placements;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    // Setters used by RequestDecoder.
+    void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    void setContact(String contact) {
+        this.contact = contact;
+    }
+
+    void setLocation(String location) {
+        this.location = location;
+    }
+
+    void setInputFile(String inputFile) {
+        this.inputFile = inputFile;
+    }
+
+    void setOutputFile(String outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    void setPassword(String password) {
+        this.password = password;
+    }
+
+    void setPage(Integer page) {
+        this.page = page;
+    }
+
+    void setCoordinates(Coordinates coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    void setPlacements(List<Placement> placements) {
+        this.placements = placements;
+    }
+
+    void setMode(String mode) {
+        this.mode = mode;
+    }
 }
@@ -0,0 +1,359 @@
+package com.zerodha.jpdfsigner;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.Strictness;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * RequestDecoder decodes JSON signing requests with a single shared Gson
+ * instance and hand-written TypeAdapters for Request and Coordinates, so no
+ * reflective adapter lookup happens per request. Requests are read straight
+ * from bytes or streams without first building a String of the body.
+ */
+final class RequestDecoder {
+
+    static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Request.class, new RequestAdapter().nullSafe())
+            .registerTypeAdapter(Coordinates.class, new CoordinatesAdapter().nullSafe())
+            .registerTypeAdapter(Placement.class, new PlacementAdapter().nullSafe())
+            .create();
+
+    private static final TypeAdapter<Request> REQUEST_ADAPTER = GSON.getAdapter(Request.class);
+
+    static {
+        // Warm up the adapters so the first real request doesn't pay for it.
+        decode("{\"input_file\":\"\",\"page\":1,\"coordinates\":{\"x1\":0,\"y1\":0,\"x2\":0,\"y2\":0},"
+                + "\"placements\":[{\"page\":\"all\"}]}");
+    }
+
+    private RequestDecoder() {
+    }
+
+    /**
+     * Decodes a single request from a UTF-8 encoded body.
+     *
+     * @param body JSON request body
+     * @return The request, or null if the body is empty or JSON null
+     * @throws JsonParseException if the body is not a valid request
+     */
+    static Request decode(byte[] body) {
+        return decode(new ByteArrayInputStream(body));
+    }
+
+    static Request decode(String body) {
+        return decode(new StringReader(body));
+    }
+
+    static Request decode(InputStream in) {
+        return decode(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static Request decode(Reader reader) {
+        try {
+            JsonReader json = new JsonReader(reader);
+            // Gson.fromJson, which requests used to be decoded with, is
+            // lenient too. Data after the request is still rejected below.
+            json.setStrictness(Strictness.LENIENT);
+            try {
+                json.peek();
+            } catch (EOFException e) {
+                // Empty body
+                return null;
+            }
+            Request req = REQUEST_ADAPTER.read(json);
+            if (json.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonParseException("Unexpected data after request");
+            }
+            return req;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a stream of requests one at a time, without holding the whole
+     * input in memory. Accepts newline-delimited JSON objects, a top-level JSON
+     * array of objects, or a mix of both.
+     *
+     * @param reader   Source of the requests
+     * @param consumer Called with each request in order
+     * @throws JsonParseException if the input is not a valid request stream
+     */
+    static void decodeStream(Reader reader, Consumer<Request> consumer) {
+        iterate(reader).forEachRemaining(consumer);
+    }
+
+    /**
+     * Decodes a stream of requests like decodeStream, as they are pulled from
+     * the returned iterator.
+     *
+     * @param reader Source of the requests
+     * @return Iterator over the requests, whose hasNext and next throw
+     *         JsonParseException if the input is not a valid request stream
+     */
+    static Iterator<Request> iterate(Reader reader) {
+        JsonReader json = new JsonReader(reader);
+        // Lenient mode allows multiple top-level values.
+        json.setStrictness(Strictness.LENIENT);
+
+        return new Iterator<Request>() {
+            private boolean inArray;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (true) {
+                        if (inArray) {
+                            if (json.hasNext()) {
+                                return true;
+                            }
+                            json.endArray();
+                            inArray = false;
+                        }
+                        JsonToken next = json.peek();
+                        if (next == JsonToken.END_DOCUMENT) {
+                            return false;
+                        }
+                        if (next != JsonToken.BEGIN_ARRAY) {
+                            return true;
+                        }
+                        json.beginArray();
+                        inArray = true;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public Request next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return REQUEST_ADAPTER.read(json);
+                } catch (IOException | IllegalStateException | NumberFormatException e) {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    static class CoordinatesAdapter extends TypeAdapter<Coordinates> {
+        @Override
+        public Coordinates read(JsonReader in) throws IOException {
+            Float x1 = null;
+            Float y1 = null;
+            Float x2 = null;
+            Float y2 = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "x1":
+                        x1 = readFloat(in);
+                        break;
+                    case "y1":
+                        y1 = readFloat(in);
+                        break;
+                    case "x2":
+                        x2 = readFloat(in);
+                        break;
+                    case "y2":
+                        y2 = readFloat(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new Coordinates(x1, y1, x2, y2);
+        }
+
+        @Override
+        public void write(JsonWriter out, Coordinates c) throws IOException {
+            out.beginObject();
+            out.name("x1").value(c.getX1());
+            out.name("y1").value(c.getY1());
+            out.name("x2").value(c.getX2());
+            out.name("y2").value(c.getY2());
+            out.endObject();
+        }
+    }
+
+    static class PlacementAdapter extends TypeAdapter<Placement> {
+        private final TypeAdapter<Coordinates> coordinates = new CoordinatesAdapter().nullSafe();
+
+        @Override
+        public Placement read(JsonReader in) throws IOException {
+            String page = null;
+            Coordinates coords = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "page":
+                        // Either a page number or "all"/"last". nextString
+                        // accepts both numbers and strings.
+                        page = readString(in);
+                        break;
+                    case "coordinates":
+                        coords = coordinates.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new Placement(page, coords);
+        }
+
+        @Override
+        public void write(JsonWriter out, Placement p) throws IOException {
+            out.beginObject();
+            out.name("page").value(p.getPage());
+            out.name("coordinates");
+            coordinates.write(out, p.getCoordinates());
+            out.endObject();
+        }
+    }
+
+    static class RequestAdapter extends TypeAdapter<Request> {
+        private final TypeAdapter<Coordinates> coordinates = new CoordinatesAdapter().nullSafe();
+        private final TypeAdapter<Placement> placement = new PlacementAdapter().nullSafe();
+
+        @Override
+        public Request read(JsonReader in) throws IOException {
+            Request req = new Request();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "reason":
+                        req.setReason(readString(in));
+                        break;
+                    case "contact":
+                        req.setContact(readString(in));
+                        break;
+                    case "location":
+                        req.setLocation(readString(in));
+                        break;
+                    case "input_file":
+                        req.setInputFile(readString(in));
+                        break;
+                    case "output_file":
+                        req.setOutputFile(readString(in));
+                        break;
+                    case "password":
+                        req.setPassword(readString(in));
+                        break;
+                    case "page":
+                        req.setPage(readInteger(in));
+                        break;
+                    case "coordinates":
+                        req.setCoordinates(coordinates.read(in));
+                        break;
+                    case "placements":
+                        req.setPlacements(readPlacements(in));
+                        break;
+                    case "mode":
+                        req.setMode(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return req;
+        }
+
+        @Override
+        public void write(JsonWriter out, Request req) throws IOException {
+            out.beginObject();
+            out.name("reason").value(req.getReason());
+            out.name("contact").value(req.getContact());
+            out.name("location").value(req.getLocation());
+            out.name("input_file").value(req.getInputFile());
+            out.name("output_file").value(req.getOutputFile());
+            out.name("password").value(req.getPassword());
+            out.name("page").value(req.getPage());
+            out.name("coordinates");
+            coordinates.write(out, req.getCoordinates());
+            out.name("placements");
+            if (req.getPlacements() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (Placement p : req.getPlacements()) {
+                    placement.write(out, p);
+                }
+                out.endArray();
+            }
+            out.name("mode").value(req.getMode());
+            out.endObject();
+        }
+
+        private List<Placement> readPlacements(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            List<Placement> placements = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                placements.add(placement.read(in));
+            }
+            in.endArray();
+            return placements;
+        }
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    private static Float readFloat(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return (float) in.nextDouble();
+    }
+}
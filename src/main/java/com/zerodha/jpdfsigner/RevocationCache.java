@@ -0,0 +1,479 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.CertException;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * RevocationCache holds OCSP responses and CRLs for the signing certificate
+ * chain, for long-term validation (LTV) of signatures. The chain is the same
+ * for every document, so revocation data is fetched in the background, kept
+ * in memory and on disk until its nextUpdate, and signing only reads the
+ * cached snapshot.
+ */
+public class RevocationCache implements AutoCloseable {
+
+    // Snapshot is the revocation data embedded into each signed document.
+    public static class Snapshot {
+        // BasicOCSPResponse of the signing certificate, for the PKCS#7
+        // revocation attribute. Null if not available.
+        final byte[] signerOcsp;
+        // Full OCSPResponses and CRLs for the DSS dictionary.
+        final List<byte[]> ocspResponses;
+        final List<byte[]> crls;
+        // Earliest nextUpdate of the data, after which the snapshot must be
+        // rebuilt without it. Null if none of it expires.
+        final Date expires;
+
+        Snapshot(byte[] signerOcsp, List<byte[]> ocspResponses, List<byte[]> crls, Date expires) {
+            this.signerOcsp = signerOcsp;
+            this.ocspResponses = Collections.unmodifiableList(ocspResponses);
+            this.crls = Collections.unmodifiableList(crls);
+            this.expires = expires;
+        }
+
+        public boolean isEmpty() {
+            return ocspResponses.isEmpty() && crls.isEmpty();
+        }
+    }
+
+    // Entry is a cached OCSP response or CRL.
+    static class Entry {
+        final byte[] encoded;
+        final Date nextUpdate;
+
+        Entry(byte[] encoded, Date nextUpdate) {
+            this.encoded = encoded;
+            this.nextUpdate = nextUpdate;
+        }
+    }
+
+    private static final String OCSP = ".ocsp";
+    private static final String CRL = ".crl";
+
+    private final X509Certificate[] chain;
+    private final Path cacheDir;
+    private final long refreshMillis;
+    private final Duration timeout;
+    private final HttpClient http;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicReference<Snapshot> snapshot =
+            new AtomicReference<>(new Snapshot(null, new ArrayList<>(), new ArrayList<>(), null));
+
+    public RevocationCache(Certificate[] chain, Path cacheDir, long refreshMillis, Duration timeout) {
+        this.chain = new X509Certificate[chain.length];
+        for (int i = 0; i < chain.length; i++) {
+            this.chain[i] = (X509Certificate) chain[i];
+        }
+        this.cacheDir = cacheDir;
+        this.refreshMillis = refreshMillis;
+        this.timeout = timeout;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "revocation-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Create and start a RevocationCache from the ltv_* settings.
+     *
+     * @param config Properties containing ltv, ltv_cache_dir, ltv_refresh_ms
+     *               and ltv_timeout_ms
+     * @param chain  Signing certificate chain, signer first
+     * @return The started cache, or null if ltv is not enabled
+     * @throws IOException if the cache directory can't be created
+     */
+    public static RevocationCache fromConfig(Properties config, Certificate[] chain) throws IOException {
+        if (!Boolean.parseBoolean(config.getProperty("ltv", "false"))) {
+            return null;
+        }
+
+        String dir = config.getProperty("ltv_cache_dir", "ltv-cache");
+        RevocationCache cache = new RevocationCache(
+                chain,
+                dir.isEmpty() ? null : Paths.get(dir),
+                Long.parseLong(config.getProperty("ltv_refresh_ms", "3600000")),
+                Duration.ofMillis(Long.parseLong(config.getProperty("ltv_timeout_ms", "10000"))));
+        cache.start();
+        return cache;
+    }
+
+    /**
+     * Load the disk cache, fetch whatever is missing or about to expire and
+     * schedule background refreshes every refreshMillis.
+     */
+    public void start() throws IOException {
+        if (cacheDir != null) {
+            Files.createDirectories(cacheDir);
+            load();
+        }
+        refresh();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // An uncaught exception would cancel the schedule.
+                System.err.println("Error refreshing revocation data: " + e.getMessage());
+            }
+        }, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The revocation data to embed into a signature. Never blocks on the
+     * network. Data whose nextUpdate passed since the last refresh, such as
+     * after a failed refetch, is left out.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current.expires == null || System.currentTimeMillis() < current.expires.getTime()) {
+            return current;
+        }
+        // Rebuild from the cached entries, which drops the expired ones,
+        // unless a refresh replaced the snapshot in the meantime.
+        Snapshot rebuilt = buildSnapshot();
+        return snapshot.compareAndSet(current, rebuilt) ? rebuilt : snapshot.get();
+    }
+
+    /**
+     * Fetch OCSP responses and CRLs that are missing or expire before the next
+     * refresh, and rebuild the snapshot. Fetch errors are logged and the
+     * previously cached data is kept until it expires.
+     */
+    synchronized void refresh() {
+        Date horizon = new Date(System.currentTimeMillis() + refreshMillis);
+
+        for (int i = 0; i + 1 < chain.length; i++) {
+            X509Certificate cert = chain[i];
+            X509Certificate issuer = chain[i + 1];
+
+            // Responders are alternatives, so one good response is enough.
+            String key = ocspKey(cert);
+            if (!isFresh(key, horizon)) {
+                for (String url : ocspUrls(cert)) {
+                    try {
+                        store(key, fetchOcsp(url, cert, issuer));
+                        break;
+                    } catch (IOException | GeneralSecurityException | OCSPException | OperatorCreationException e) {
+                        System.err.println("Error fetching OCSP response from " + url + ": " + e.getMessage());
+                    }
+                }
+            }
+
+            for (String url : crlUrls(cert)) {
+                if (isFresh(crlKey(url), horizon)) {
+                    continue;
+                }
+                try {
+                    store(crlKey(url), fetchCrl(url, issuer));
+                } catch (IOException | GeneralSecurityException e) {
+                    System.err.println("Error fetching CRL from " + url + ": " + e.getMessage());
+                }
+            }
+        }
+
+        snapshot.set(buildSnapshot());
+    }
+
+    private Snapshot buildSnapshot() {
+        Date now = new Date();
+        byte[] signerOcsp = null;
+        List<byte[]> ocsps = new ArrayList<>();
+        List<byte[]> crls = new ArrayList<>();
+        Date expires = null;
+
+        for (int i = 0; i + 1 < chain.length; i++) {
+            Entry ocsp = entries.get(ocspKey(chain[i]));
+            if (ocsp != null && isValid(ocsp, now)) {
+                ocsps.add(ocsp.encoded);
+                expires = earliest(expires, ocsp.nextUpdate);
+                if (i == 0) {
+                    try {
+                        signerOcsp = ((BasicOCSPResp) new OCSPResp(ocsp.encoded).getResponseObject()).getEncoded();
+                    } catch (IOException | OCSPException e) {
+                        System.err.println("Error reading cached OCSP response: " + e.getMessage());
+                    }
+                }
+            }
+            for (String url : crlUrls(chain[i])) {
+                Entry crl = entries.get(crlKey(url));
+                if (crl != null && isValid(crl, now)) {
+                    crls.add(crl.encoded);
+                    expires = earliest(expires, crl.nextUpdate);
+                }
+            }
+        }
+
+        return new Snapshot(signerOcsp, ocsps, crls, expires);
+    }
+
+    private static Date earliest(Date a, Date b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.before(b) ? a : b;
+    }
+
+    private Entry fetchOcsp(String url, X509Certificate cert, X509Certificate issuer)
+            throws IOException, GeneralSecurityException, OCSPException, OperatorCreationException {
+        CertificateID id = new CertificateID(
+                new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                new JcaX509CertificateHolder(issuer),
+                cert.getSerialNumber());
+        OCSPReq req = new OCSPReqBuilder().addRequest(id).build();
+
+        byte[] body = send(HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/ocsp-request")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(req.getEncoded())));
+
+        OCSPResp resp = new OCSPResp(body);
+        if (resp.getStatus() != OCSPResp.SUCCESSFUL) {
+            throw new IOException("OCSP responder returned status " + resp.getStatus());
+        }
+        BasicOCSPResp basic = (BasicOCSPResp) resp.getResponseObject();
+        verifyOcsp(basic, issuer);
+
+        for (SingleResp single : basic.getResponses()) {
+            if (!single.getCertID().equals(id)) {
+                continue;
+            }
+            if (single.getCertStatus() != CertificateStatus.GOOD) {
+                throw new IOException("Certificate " + cert.getSubjectX500Principal() + " is not valid per OCSP");
+            }
+            return new Entry(resp.getEncoded(), single.getNextUpdate());
+        }
+        throw new IOException("OCSP response does not cover " + cert.getSubjectX500Principal());
+    }
+
+    // The response must be signed by the issuer, or by a responder certificate
+    // the issuer signed.
+    private static void verifyOcsp(BasicOCSPResp basic, X509Certificate issuer)
+            throws IOException, OCSPException, OperatorCreationException, GeneralSecurityException {
+        JcaContentVerifierProviderBuilder verifier = new JcaContentVerifierProviderBuilder();
+        if (basic.isSignatureValid(verifier.build(issuer))) {
+            return;
+        }
+        for (X509CertificateHolder responder : basic.getCerts()) {
+            try {
+                if (responder.isSignatureValid(verifier.build(issuer))
+                        && basic.isSignatureValid(verifier.build(responder))) {
+                    return;
+                }
+            } catch (CertException e) {
+                // Not this responder
+            }
+        }
+        throw new IOException("OCSP response signature is not valid");
+    }
+
+    private Entry fetchCrl(String url, X509Certificate issuer) throws IOException, GeneralSecurityException {
+        byte[] body = send(HttpRequest.newBuilder(URI.create(url)).GET());
+        X509CRL crl = parseCrl(body);
+        crl.verify(issuer.getPublicKey());
+        return new Entry(body, crl.getNextUpdate());
+    }
+
+    private byte[] send(HttpRequest.Builder builder) throws IOException {
+        HttpResponse<byte[]> response;
+        try {
+            response = http.send(builder.timeout(timeout).build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching revocation data", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private boolean isFresh(String key, Date horizon) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.nextUpdate != null && entry.nextUpdate.after(horizon);
+    }
+
+    // Data without a nextUpdate is used until it is replaced on refresh.
+    private static boolean isValid(Entry entry, Date now) {
+        return entry.nextUpdate == null || entry.nextUpdate.after(now);
+    }
+
+    private void store(String key, Entry entry) throws IOException {
+        entries.put(key, entry);
+        if (cacheDir != null) {
+            // Write to a temp file and rename, so a crash never leaves a torn entry.
+            Path file = cacheDir.resolve(key);
+            Path tmp = cacheDir.resolve(key + ".tmp");
+            Files.write(tmp, entry.encoded);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // Load the cached entries for the current chain from disk.
+    private void load() {
+        for (int i = 0; i + 1 < chain.length; i++) {
+            loadEntry(ocspKey(chain[i]));
+            for (String url : crlUrls(chain[i])) {
+                loadEntry(crlKey(url));
+            }
+        }
+        snapshot.set(buildSnapshot());
+    }
+
+    private void loadEntry(String key) {
+        Path file = cacheDir.resolve(key);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            byte[] encoded = Files.readAllBytes(file);
+            Date nextUpdate;
+            if (key.endsWith(OCSP)) {
+                BasicOCSPResp basic = (BasicOCSPResp) new OCSPResp(encoded).getResponseObject();
+                nextUpdate = basic.getResponses()[0].getNextUpdate();
+            } else {
+                nextUpdate = parseCrl(encoded).getNextUpdate();
+            }
+            entries.put(key, new Entry(encoded, nextUpdate));
+        } catch (IOException | GeneralSecurityException | OCSPException | RuntimeException e) {
+            System.err.println("Ignoring unreadable revocation cache entry " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static X509CRL parseCrl(byte[] encoded) throws GeneralSecurityException {
+        return (X509CRL) CertificateFactory.getInstance("X.509").generateCRL(new ByteArrayInputStream(encoded));
+    }
+
+    private static String ocspKey(X509Certificate cert) {
+        return hash(cert.getIssuerX500Principal().getName() + "/" + cert.getSerialNumber()) + OCSP;
+    }
+
+    private static String crlKey(String url) {
+        return hash(url) + CRL;
+    }
+
+    private static String hash(String s) {
+        try {
+            return Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // OCSP responder URLs from the Authority Information Access extension.
+    static List<String> ocspUrls(X509Certificate cert) {
+        List<String> urls = new ArrayList<>();
+        ASN1Primitive value = extension(cert, Extension.authorityInfoAccess.getId());
+        if (value == null) {
+            return urls;
+        }
+        for (AccessDescription ad : AuthorityInformationAccess.getInstance(value).getAccessDescriptions()) {
+            if (AccessDescription.id_ad_ocsp.equals(ad.getAccessMethod())) {
+                addUri(urls, ad.getAccessLocation());
+            }
+        }
+        return urls;
+    }
+
+    // CRL URLs from the CRL Distribution Points extension.
+    static List<String> crlUrls(X509Certificate cert) {
+        List<String> urls = new ArrayList<>();
+        ASN1Primitive value = extension(cert, Extension.cRLDistributionPoints.getId());
+        if (value == null) {
+            return urls;
+        }
+        for (DistributionPoint dp : CRLDistPoint.getInstance(value).getDistributionPoints()) {
+            DistributionPointName name = dp.getDistributionPoint();
+            if (name != null && name.getType() == DistributionPointName.FULL_NAME) {
+                for (GeneralName gn : GeneralNames.getInstance(name.getName()).getNames()) {
+                    addUri(urls, gn);
+                }
+            }
+        }
+        return urls;
+    }
+
+    private static void addUri(List<String> urls, GeneralName name) {
+        if (name.getTagNo() == GeneralName.uniformResourceIdentifier) {
+            String url = name.getName().toString();
+            if (url.startsWith("http://") || url.startsWith("https://")) {
+                urls.add(url);
+            }
+        }
+    }
+
+    private static ASN1Primitive extension(X509Certificate cert, String oid) {
+        byte[] value = cert.getExtensionValue(oid);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return JcaX509ExtensionUtils.parseExtensionValue(value);
+        } catch (IOException e) {
+            System.err.println("Error reading certificate extension " + oid + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,6 +1,7 @@
 package com.zerodha.jpdfsigner;
 
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
@@ -9,26 +10,68 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * S3Handler handles file operations with AWS S3, supporting IAM role-based
  * authentication.
- * Files are processed in memory without writing to disk.
+ * Files are processed in memory without writing to disk, except for documents
+ * above the spill threshold, which go through downloadToFile and
+ * uploadFileToS3.
  */
 public class S3Handler implements AutoCloseable {
     private final S3Client s3Client;
     private static final String S3_PREFIX = "s3://";
     private static final String APPLICATION_PDF = "application/pdf";
 
+    // User metadata key on signed outputs recording the ETag of the input they
+    // were produced from. Used to skip re-signing unchanged documents.
+    static final String SOURCE_ETAG_METADATA = StorageBackend.SOURCE_VERSION_METADATA;
+
+    // S3 bucket naming rules: 3-63 lowercase letters, digits, dots and hyphens,
+    // starting and ending with a letter or digit.
+    private static final Pattern BUCKET_NAME = Pattern.compile("[a-z0-9][a-z0-9.-]{1,61}[a-z0-9]");
+    private static final int MAX_KEY_BYTES = 1024;
+
+    // Receives the parts of a download, from several threads at once.
+    private interface PartSink {
+        void allocate(long size) throws IOException;
+
+        void write(long offset, InputStream in, long length) throws IOException;
+    }
+
+    private boolean skipUnchanged = false;
+    private long partSize = 8L * 1024 * 1024;
+    private int downloadConcurrency = 1;
+    private ExecutorService downloadExecutor;
+
     /**
      * Constructs an S3Handler with the given AWS region.
      * Uses IAM role credentials from the instance's default credentials provider.
@@ -73,6 +116,43 @@ public class S3Handler implements AutoCloseable {
         return this.s3Client;
     }
 
+    /**
+     * Enables skipping of S3 to S3 signs whose output already records the
+     * current ETag of the input.
+     */
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    public boolean isSkipUnchanged() {
+        return this.skipUnchanged;
+    }
+
+    /**
+     * Download objects larger than partSize as ranged GETs of partSize bytes,
+     * up to concurrency of them in parallel per object. A concurrency of 1
+     * downloads every object with a single GET.
+     *
+     * @param partSize    Bytes per ranged GET
+     * @param concurrency Maximum parallel GETs per object
+     * @throws IllegalArgumentException if partSize or concurrency is not
+     *                                  positive
+     */
+    public synchronized void setParallelDownload(long partSize, int concurrency) {
+        if (partSize <= 0 || concurrency < 1) {
+            throw new IllegalArgumentException("Part size and concurrency must be positive");
+        }
+        this.partSize = partSize;
+        this.downloadConcurrency = concurrency;
+        if (concurrency > 1 && downloadExecutor == null) {
+            downloadExecutor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "s3-download");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
     /**
      * Checks if the given path is an S3 path.
      *
@@ -110,6 +190,94 @@ public class S3Handler implements AutoCloseable {
         return new String[] { bucket, key };
     }
 
+    /**
+     * Validates an S3 object path without contacting S3. The bucket must follow
+     * the S3 bucket naming rules and the key must be at most 1024 bytes.
+     *
+     * @param s3Path Path in format s3://bucket-name/path/to/object
+     * @throws IllegalArgumentException if the path is invalid
+     */
+    public static void validatePath(String s3Path) {
+        if (s3Path == null || !isS3Path(s3Path)) {
+            throw new IllegalArgumentException("Invalid S3 path: " + s3Path);
+        }
+
+        String path = s3Path.substring(S3_PREFIX.length());
+        int firstSlash = path.indexOf('/');
+        if (firstSlash == -1) {
+            throw new IllegalArgumentException("Invalid S3 path format (missing key): " + s3Path);
+        }
+        String bucket = path.substring(0, firstSlash);
+        String key = path.substring(firstSlash + 1);
+
+        if (!BUCKET_NAME.matcher(bucket).matches() || bucket.contains("..")) {
+            throw new IllegalArgumentException("Invalid S3 bucket name: " + s3Path);
+        }
+        if (key.isEmpty() || key.getBytes(StandardCharsets.UTF_8).length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Invalid S3 key (empty or longer than "
+                    + MAX_KEY_BYTES + " bytes): " + s3Path);
+        }
+    }
+
+    /**
+     * Extracts bucket and key prefix from an S3 prefix path. Unlike
+     * extractBucketAndKey, the prefix may be empty to address a whole bucket.
+     *
+     * @param s3Path Path in format s3://bucket-name/path/to/prefix/
+     * @return Array containing bucket name at index 0 and key prefix at index 1
+     * @throws IllegalArgumentException if the path is invalid
+     */
+    private String[] extractBucketAndPrefix(String s3Path) {
+        if (s3Path == null || !isS3Path(s3Path)) {
+            throw new IllegalArgumentException("Invalid S3 path: " + s3Path);
+        }
+
+        String path = s3Path.substring(S3_PREFIX.length());
+        int firstSlash = path.indexOf('/');
+        String bucket = firstSlash == -1 ? path : path.substring(0, firstSlash);
+        String prefix = firstSlash == -1 ? "" : path.substring(firstSlash + 1);
+
+        if (bucket.isEmpty()) {
+            throw new IllegalArgumentException("Invalid S3 path (empty bucket): " + s3Path);
+        }
+
+        return new String[] { bucket, prefix };
+    }
+
+    /**
+     * Lists the PDF objects directly under an S3 prefix, without descending into
+     * sub-prefixes. Pages are fetched from ListObjectsV2 lazily while the result
+     * is iterated, so callers can start work before the listing completes.
+     * A prefix without a trailing / is taken as the same "directory", as
+     * s3://bucket/in would otherwise only match the in/ common prefix.
+     *
+     * @param s3Prefix S3 prefix in format s3://bucket-name/path/to/prefix/
+     * @return Iterable of S3 paths in format s3://bucket-name/path/to/object.pdf
+     * @throws IllegalArgumentException if s3Prefix is invalid
+     */
+    public Iterable<String> listPdfObjects(String s3Prefix) {
+        String[] bucketAndPrefix = extractBucketAndPrefix(s3Prefix);
+        String bucket = bucketAndPrefix[0];
+        String prefix = bucketAndPrefix[1];
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+            prefix += "/";
+        }
+
+        ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .delimiter("/")
+                .build();
+
+        return () -> s3Client.listObjectsV2Paginator(listRequest)
+                .contents()
+                .stream()
+                .map(o -> o.key())
+                .filter(key -> key.toLowerCase().endsWith(".pdf"))
+                .map(key -> S3_PREFIX + bucket + "/" + key)
+                .iterator();
+    }
+
     /**
      * Downloads a file from S3 as an InputStream.
      *
@@ -120,10 +288,50 @@ public class S3Handler implements AutoCloseable {
      * @throws IllegalArgumentException if s3Path is invalid
      */
     public InputStream getInputStreamFromS3(String s3Path) throws S3Exception, IOException {
+        return getInputStreamFromS3(s3Path, null);
+    }
+
+    /**
+     * Downloads a file from S3 as an InputStream, optionally conditional on the
+     * object still having the given ETag.
+     *
+     * @param s3Path  S3 path in format s3://bucket-name/path/to/object
+     * @param ifMatch ETag the object must match, or null for an unconditional
+     *                GET
+     * @return InputStream containing the file data
+     * @throws S3Exception              if an S3 service error occurs, including a
+     *                                  412 when the ETag no longer matches
+     * @throws IOException              if there's an error reading the data
+     * @throws IllegalArgumentException if s3Path is invalid
+     */
+    public InputStream getInputStreamFromS3(String s3Path, String ifMatch) throws S3Exception, IOException {
+        return new ByteArrayInputStream(getBytesFromS3(s3Path, ifMatch));
+    }
+
+    /**
+     * Downloads a file from S3 into an array of exactly its size, optionally
+     * conditional on the object still having the given ETag. The array is
+     * allocated once from the object's Content-Length and read into directly,
+     * and can be parsed by PdfReader without another copy.
+     *
+     * @param s3Path  S3 path in format s3://bucket-name/path/to/object
+     * @param ifMatch ETag the object must match, or null for an unconditional
+     *                GET
+     * @return The file data
+     * @throws S3Exception              if an S3 service error occurs, including a
+     *                                  412 when the ETag no longer matches
+     * @throws IOException              if there's an error reading the data
+     * @throws IllegalArgumentException if s3Path is invalid
+     */
+    public byte[] getBytesFromS3(String s3Path, String ifMatch) throws S3Exception, IOException {
         if (s3Path == null) {
             throw new IllegalArgumentException("S3 path cannot be null");
         }
 
+        if (downloadConcurrency > 1) {
+            return downloadToMemory(s3Path, ifMatch);
+        }
+
         String[] bucketAndKey = extractBucketAndKey(s3Path);
         String bucket = bucketAndKey[0];
         String key = bucketAndKey[1];
@@ -131,24 +339,33 @@ public class S3Handler implements AutoCloseable {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(bucket)
                 .key(key)
+                .ifMatch(ifMatch)
                 .build();
 
         ResponseInputStream<GetObjectResponse> s3Object = null;
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        BufferPool.Buffer buffer = null;
 
         try {
             s3Object = s3Client.getObject(getObjectRequest);
 
             // Read all bytes into memory to avoid keeping connection open
-            byte[] data = new byte[8192]; // 8K buffer
-            int bytesRead;
-            while ((bytesRead = s3Object.read(data)) != -1) {
-                buffer.write(data, 0, bytesRead);
+            byte[] data;
+            Long length = s3Object.response().contentLength();
+            if (length != null && length <= Integer.MAX_VALUE - 8) {
+                data = new byte[length.intValue()];
+                if (s3Object.readNBytes(data, 0, data.length) != data.length) {
+                    throw new IOException("Short read of S3 object: " + s3Path);
+                }
+            } else {
+                // Unknown length: collect into pooled chunks, which grow
+                // without copying, then copy once into the result.
+                buffer = BufferPool.shared().buffer();
+                buffer.readFrom(s3Object);
+                data = buffer.toByteArray();
             }
-            buffer.flush();
 
             System.out.println("Downloaded S3 file to memory buffer: " + s3Path);
-            return new ByteArrayInputStream(buffer.toByteArray());
+            return data;
         } catch (S3Exception e) {
             System.err.println("Failed to download from S3: " + s3Path + " - " + e.getMessage());
             throw e; // Rethrow the original exception
@@ -162,14 +379,246 @@ public class S3Handler implements AutoCloseable {
                     System.err.println("Error closing S3 object stream: " + e.getMessage());
                 }
             }
-            try {
-                buffer.close();
-            } catch (IOException e) {
-                System.err.println("Error closing buffer: " + e.getMessage());
+            if (buffer != null) {
+                buffer.release();
             }
         }
     }
 
+    /**
+     * Downloads an S3 object to a local file, optionally conditional on the
+     * object still having the given ETag. Used for documents too large to
+     * hold in memory.
+     *
+     * @param s3Path  S3 path in format s3://bucket-name/path/to/object
+     * @param ifMatch ETag the object must match, or null for an unconditional
+     *                GET
+     * @param file    File to write to, replaced if it exists
+     * @throws S3Exception              if an S3 service error occurs
+     * @throws IOException              if there's an error writing the file
+     * @throws IllegalArgumentException if s3Path is invalid
+     */
+    public void downloadToFile(String s3Path, String ifMatch, Path file) throws S3Exception, IOException {
+        if (s3Path == null) {
+            throw new IllegalArgumentException("S3 path cannot be null");
+        }
+
+        if (downloadConcurrency > 1) {
+            downloadToChannel(s3Path, ifMatch, file);
+            return;
+        }
+
+        String[] bucketAndKey = extractBucketAndKey(s3Path);
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketAndKey[0])
+                .key(bucketAndKey[1])
+                .ifMatch(ifMatch)
+                .build();
+
+        try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(getObjectRequest)) {
+            Files.copy(s3Object, file, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Downloaded S3 file to " + file + ": " + s3Path);
+        } catch (S3Exception e) {
+            System.err.println("Failed to download from S3: " + s3Path + " - " + e.getMessage());
+            throw e;
+        } catch (IOException e) {
+            throw new IOException("Failed to write S3 object data to " + file + ": " + s3Path, e);
+        }
+    }
+
+    // Download into a byte array sized from the first part's Content-Range.
+    private byte[] downloadToMemory(String s3Path, String ifMatch) throws IOException {
+        byte[][] data = new byte[1][];
+        downloadParts(s3Path, ifMatch, new PartSink() {
+            @Override
+            public void allocate(long size) throws IOException {
+                if (size > Integer.MAX_VALUE - 8) {
+                    throw new IOException("S3 object too large to hold in memory: " + s3Path);
+                }
+                data[0] = new byte[(int) size];
+            }
+
+            @Override
+            public void write(long offset, InputStream in, long length) throws IOException {
+                if (in.readNBytes(data[0], (int) offset, (int) length) != length) {
+                    throw new IOException("Short read at offset " + offset + " of S3 object: " + s3Path);
+                }
+            }
+        });
+        System.out.println("Downloaded S3 file to memory buffer: " + s3Path);
+        return data[0];
+    }
+
+    // Download with positional writes into the file, so parts can land in any
+    // order.
+    private void downloadToChannel(String s3Path, String ifMatch, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            downloadParts(s3Path, ifMatch, new PartSink() {
+                @Override
+                public void allocate(long size) {
+                }
+
+                @Override
+                public void write(long offset, InputStream in, long length) throws IOException {
+                    byte[] buf = BufferPool.shared().acquire(BufferPool.MIN_SIZE);
+                    long position = offset;
+                    try {
+                        int n;
+                        while ((n = in.read(buf)) > 0) {
+                            ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+                            while (bb.hasRemaining()) {
+                                position += channel.write(bb, position);
+                            }
+                        }
+                    } finally {
+                        BufferPool.shared().release(buf);
+                    }
+                    if (position - offset != length) {
+                        throw new IOException("Short read at offset " + offset + " of S3 object: " + s3Path);
+                    }
+                }
+            });
+        }
+        System.out.println("Downloaded S3 file to " + file + ": " + s3Path);
+    }
+
+    /**
+     * Download an object as ranged GETs of partSize bytes. The first GET also
+     * returns the object's size and ETag; the remaining parts are then fetched
+     * in parallel, pinned to that ETag so that all parts come from the same
+     * version of the object.
+     */
+    private void downloadParts(String s3Path, String ifMatch, PartSink sink) throws IOException {
+        String[] bucketAndKey = extractBucketAndKey(s3Path);
+        long size;
+        String eTag;
+
+        try (ResponseInputStream<GetObjectResponse> first = s3Client.getObject(
+                partRequest(bucketAndKey, "bytes=0-" + (partSize - 1), ifMatch))) {
+            GetObjectResponse response = first.response();
+            size = totalSize(response.contentRange());
+            eTag = ifMatch != null ? ifMatch : response.eTag();
+            if (size < 0) {
+                // Not a partial response: the whole object is in the body.
+                byte[] body = first.readAllBytes();
+                sink.allocate(body.length);
+                sink.write(0, new ByteArrayInputStream(body), body.length);
+                return;
+            }
+            sink.allocate(size);
+            sink.write(0, first, Math.min(partSize, size));
+        } catch (S3Exception e) {
+            // An empty object has no satisfiable range.
+            if (e.statusCode() != 416) {
+                System.err.println("Failed to download from S3: " + s3Path + " - " + e.getMessage());
+                throw e;
+            }
+            sink.allocate(0);
+            return;
+        }
+
+        int parts = (int) ((size + partSize - 1) / partSize);
+        if (parts <= 1) {
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger(1);
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int w = 0; w < Math.min(downloadConcurrency, parts - 1); w++) {
+            workers.add(downloadExecutor.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < parts) {
+                    long start = i * partSize;
+                    long end = Math.min(size, start + partSize) - 1;
+                    try (ResponseInputStream<GetObjectResponse> part = s3Client.getObject(
+                            partRequest(bucketAndKey, "bytes=" + start + "-" + end, eTag))) {
+                        sink.write(start, part, end - start + 1);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            next.set(parts);
+            workers.forEach(w -> w.cancel(true));
+            System.err.println("Failed to download from S3: " + s3Path + " - " + e.getCause().getMessage());
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Failed to download S3 object: " + s3Path, e.getCause());
+        } catch (InterruptedException e) {
+            next.set(parts);
+            workers.forEach(w -> w.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading S3 object: " + s3Path);
+        }
+    }
+
+    private static GetObjectRequest partRequest(String[] bucketAndKey, String range, String ifMatch) {
+        return GetObjectRequest.builder()
+                .bucket(bucketAndKey[0])
+                .key(bucketAndKey[1])
+                .range(range)
+                .ifMatch(ifMatch)
+                .build();
+    }
+
+    // Total size from a Content-Range such as "bytes 0-8388607/104857600", or
+    // -1 if there is none.
+    static long totalSize(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0 || contentRange.endsWith("*")) {
+            return -1;
+        }
+        return Long.parseLong(contentRange.substring(slash + 1).trim());
+    }
+
+    /**
+     * Downloads a byte range of an S3 object, optionally conditional on the
+     * object still having the given ETag.
+     *
+     * @param s3Path  S3 path in format s3://bucket-name/path/to/object
+     * @param range   HTTP range, e.g. bytes=0-1023 or bytes=-1024
+     * @param ifMatch ETag the object must match, or null for an unconditional
+     *                GET
+     * @return The bytes in the range
+     * @throws S3Exception              if an S3 service error occurs
+     * @throws IllegalArgumentException if s3Path is invalid
+     */
+    public byte[] getRange(String s3Path, String range, String ifMatch) throws S3Exception {
+        if (s3Path == null) {
+            throw new IllegalArgumentException("S3 path cannot be null");
+        }
+
+        String[] bucketAndKey = extractBucketAndKey(s3Path);
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketAndKey[0])
+                .key(bucketAndKey[1])
+                .range(range)
+                .ifMatch(ifMatch)
+                .build();
+
+        try {
+            ResponseBytes<GetObjectResponse> bytes = s3Client.getObjectAsBytes(getObjectRequest);
+            return bytes.asByteArray();
+        } catch (S3Exception e) {
+            System.err.println("Failed to download range " + range + " from S3: " + s3Path + " - " + e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * Uploads data to S3 from an InputStream.
      *
@@ -181,6 +630,23 @@ public class S3Handler implements AutoCloseable {
      * @throws IllegalArgumentException if inputStream is null or s3Path is invalid
      */
     public void uploadToS3(InputStream inputStream, long length, String s3Path) throws S3Exception {
+        uploadToS3(inputStream, length, s3Path, null);
+    }
+
+    /**
+     * Uploads data to S3 from an InputStream, attaching the given user metadata
+     * to the object.
+     *
+     * @param inputStream The InputStream containing the data to upload (must not be
+     *                    null)
+     * @param length      The length of the data in bytes
+     * @param s3Path      S3 path in format s3://bucket-name/path/to/object
+     * @param metadata    User metadata to store on the object, or null
+     * @throws S3Exception              if an S3 service error occurs
+     * @throws IllegalArgumentException if inputStream is null or s3Path is invalid
+     */
+    public void uploadToS3(InputStream inputStream, long length, String s3Path, Map<String, String> metadata)
+            throws S3Exception {
         if (inputStream == null) {
             throw new IllegalArgumentException("Input stream cannot be null");
         }
@@ -197,6 +663,7 @@ public class S3Handler implements AutoCloseable {
                     .bucket(bucket)
                     .key(key)
                     .contentType(APPLICATION_PDF)
+                    .metadata(metadata)
                     .build();
 
             s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, length));
@@ -210,11 +677,97 @@ public class S3Handler implements AutoCloseable {
         }
     }
 
+    /**
+     * Uploads a local file to S3, attaching the given user metadata to the
+     * object. The file is streamed from disk rather than buffered in memory.
+     *
+     * @param file     The file to upload
+     * @param s3Path   S3 path in format s3://bucket-name/path/to/object
+     * @param metadata User metadata to store on the object, or null
+     * @throws S3Exception              if an S3 service error occurs
+     * @throws IllegalArgumentException if s3Path is invalid
+     */
+    public void uploadFileToS3(Path file, String s3Path, Map<String, String> metadata) throws S3Exception {
+        if (s3Path == null) {
+            throw new IllegalArgumentException("S3 path cannot be null");
+        }
+
+        String[] bucketAndKey = extractBucketAndKey(s3Path);
+        try {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketAndKey[0])
+                    .key(bucketAndKey[1])
+                    .contentType(APPLICATION_PDF)
+                    .metadata(metadata)
+                    .build();
+
+            s3Client.putObject(putObjectRequest, RequestBody.fromFile(file));
+            System.out.println("Uploaded " + file + " to S3: " + s3Path);
+        } catch (SdkException e) {
+            System.err.println("Failed to upload to S3: " + s3Path + " - " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches the metadata of an S3 object with a HEAD request.
+     *
+     * @param s3Path S3 path in format s3://bucket-name/path/to/object
+     * @return the HEAD response, or null if the object does not exist
+     * @throws S3Exception              if an S3 service error other than a 404
+     *                                  occurs
+     * @throws IllegalArgumentException if s3Path is invalid
+     */
+    public HeadObjectResponse headObject(String s3Path) throws S3Exception {
+        if (s3Path == null) {
+            throw new IllegalArgumentException("S3 path cannot be null");
+        }
+
+        String[] bucketAndKey = extractBucketAndKey(s3Path);
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                .bucket(bucketAndKey[0])
+                .key(bucketAndKey[1])
+                .build();
+
+        try {
+            return s3Client.headObject(headObjectRequest);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            System.err.println("Failed to HEAD S3 object: " + s3Path + " - " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the output object was produced from an input with the given
+     * ETag, by comparing against the metadata written by uploadToS3.
+     *
+     * @param sourceETag ETag of the input object
+     * @param destPath   S3 path of the signed output
+     * @return true if the output exists and records the same source ETag
+     */
+    public boolean isUpToDate(String sourceETag, String destPath) throws S3Exception {
+        if (sourceETag == null) {
+            return false;
+        }
+
+        HeadObjectResponse dest = headObject(destPath);
+        if (dest == null || !dest.hasMetadata()) {
+            return false;
+        }
+        return sourceETag.equals(dest.metadata().get(SOURCE_ETAG_METADATA));
+    }
+
     /**
      * Closes the S3 client and releases resources.
      */
     @Override
     public void close() {
+        if (downloadExecutor != null) {
+            downloadExecutor.shutdownNow();
+        }
         if (s3Client != null) {
             s3Client.close();
         }
@@ -0,0 +1,113 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * S3StorageBackend stores objects in S3 through an S3Handler. Objects are
+ * versioned by their ETag: reads pinned to a version are conditional GETs, so
+ * an object replaced mid-sign fails the read instead of mixing versions.
+ * Outputs record the ETag of their input when skip-unchanged is enabled.
+ */
+public class S3StorageBackend implements StorageBackend {
+
+    private final S3Handler s3Handler;
+
+    public S3StorageBackend(S3Handler s3Handler) {
+        this.s3Handler = s3Handler;
+    }
+
+    @Override
+    public ObjectInfo stat(String path) {
+        HeadObjectResponse head = s3Handler.headObject(path);
+        if (head == null) {
+            return null;
+        }
+        return new ObjectInfo(head.contentLength() != null ? head.contentLength() : 0, head.eTag());
+    }
+
+    @Override
+    public InputStream openRead(String path, String version) throws IOException {
+        return s3Handler.getInputStreamFromS3(path, version);
+    }
+
+    @Override
+    public byte[] readAll(String path, String version) throws IOException {
+        return s3Handler.getBytesFromS3(path, version);
+    }
+
+    /**
+     * The object is buffered in memory, in arrays from the shared BufferPool,
+     * and uploaded on commit. The arrays go back to the pool after the upload
+     * or on abort. Use writeFromFile for large objects.
+     */
+    @Override
+    public Output openWrite(String path, Map<String, String> metadata) {
+        BufferPool.Buffer buffer = BufferPool.shared().buffer();
+        return new Output() {
+            private boolean done;
+
+            @Override
+            public OutputStream stream() {
+                // Closing a Buffer does nothing
+                return buffer;
+            }
+
+            @Override
+            public void commit() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                try {
+                    // Upload straight from the pooled arrays instead of a copy of them.
+                    s3Handler.uploadToS3(buffer.toInputStream(), buffer.size(), path, metadata);
+                } finally {
+                    buffer.release();
+                }
+            }
+
+            @Override
+            public void abort() {
+                if (!done) {
+                    done = true;
+                    buffer.release();
+                }
+            }
+        };
+    }
+
+    @Override
+    public byte[] readRange(String path, long offset, int length, String version) {
+        return s3Handler.getRange(path, "bytes=" + offset + "-" + (offset + length - 1), version);
+    }
+
+    @Override
+    public void readToFile(String path, String version, Path file) throws IOException {
+        s3Handler.downloadToFile(path, version, file);
+    }
+
+    @Override
+    public void writeFromFile(Path file, String path, Map<String, String> metadata) {
+        s3Handler.uploadFileToS3(file, path, metadata);
+    }
+
+    @Override
+    public void validate(String path) {
+        S3Handler.validatePath(path);
+    }
+
+    @Override
+    public boolean isSkipUnchanged() {
+        return s3Handler.isSkipUnchanged();
+    }
+
+    @Override
+    public boolean isUpToDate(String sourceVersion, String dest) {
+        return s3Handler.isUpToDate(sourceVersion, dest);
+    }
+}
@@ -4,10 +4,52 @@ import com.lowagie.text.Font;
 import com.lowagie.text.Rectangle;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class SignParams {
 
+    /**
+     * Mode is what is done to a document: signed, password protected, or
+     * both. Without an explicit mode, documents are signed and also protected
+     * when they have a password.
+     */
+    public enum Mode {
+        SIGN("sign"), ENCRYPT("encrypt"), SIGN_ENCRYPT("sign+encrypt");
+
+        private final String name;
+
+        Mode(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Parse sign, encrypt or sign+encrypt.
+         *
+         * @return The mode, or null if name is null or blank
+         * @throws PreflightException if name is no mode
+         */
+        public static Mode parse(String name) throws PreflightException {
+            if (name == null || name.isBlank()) {
+                return null;
+            }
+            for (Mode mode : values()) {
+                if (mode.name.equalsIgnoreCase(name.trim())) {
+                    return mode;
+                }
+            }
+            throw new PreflightException(PreflightException.Code.INVALID_MODE,
+                    "Invalid mode: " + name + ", expected sign, encrypt or sign+encrypt");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+
     private String src;
     private String dest;
     private String reason;
@@ -19,6 +61,9 @@ public class SignParams {
     private Rectangle rect;
     private Font font;
     private int page;
+    private List<SignaturePlacement> placements;
+    private AppearanceTemplate appearance;
+    private Mode mode;
 
     // Constructor
     public SignParams() {
@@ -112,4 +157,33 @@ public class SignParams {
     public void setPage(int page) {
         this.page = page;
     }
+
+    // Placements of the visible signature. When set, they take precedence over
+    // page and rect.
+    public List<SignaturePlacement> getPlacements() {
+        return placements != null ? new ArrayList<>(placements) : null;
+    }
+
+    public void setPlacements(List<SignaturePlacement> placements) {
+        this.placements = placements != null ? new ArrayList<>(placements) : null;
+    }
+
+    // Template for the visible signature. When null, OpenPDF's default text
+    // layout is used.
+    public AppearanceTemplate getAppearance() {
+        return appearance;
+    }
+
+    public void setAppearance(AppearanceTemplate appearance) {
+        this.appearance = appearance;
+    }
+
+    // Explicit mode, or null to decide by whether there is a password.
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
 }
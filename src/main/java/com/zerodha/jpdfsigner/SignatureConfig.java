@@ -18,9 +18,16 @@ public class SignatureConfig {
     private final int page;
     private final PrivateKey key;
     private final Certificate[] chain;
+    private final AppearanceTemplate appearance;
 
     public SignatureConfig(Font font, String reason, String contact, String location,
             Rectangle rect, int page, PrivateKey key, Certificate[] chain) {
+        this(font, reason, contact, location, rect, page, key, chain, null);
+    }
+
+    public SignatureConfig(Font font, String reason, String contact, String location,
+            Rectangle rect, int page, PrivateKey key, Certificate[] chain,
+            AppearanceTemplate appearance) {
         this.font = font;
         this.reason = reason;
         this.contact = contact;
@@ -29,6 +36,7 @@ public class SignatureConfig {
         this.page = page;
         this.key = key;
         this.chain = chain;
+        this.appearance = appearance;
     }
 
     public Font getFont() {
@@ -62,4 +70,8 @@ public class SignatureConfig {
     public Certificate[] getChain() {
         return chain;
     }
+
+    public AppearanceTemplate getAppearance() {
+        return appearance;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A position at which the visible signature appearance is drawn. The page is
+ * either a 1-based page number, "all" for every page or "last" for the last
+ * page of the document.
+ */
+public class SignaturePlacement {
+    public static final String ALL_PAGES = "all";
+    public static final String LAST_PAGE = "last";
+
+    private final String page;
+    private final Rectangle rect;
+
+    public SignaturePlacement(String page, Rectangle rect) {
+        this.page = page;
+        this.rect = rect;
+    }
+
+    public SignaturePlacement(int page, Rectangle rect) {
+        this(Integer.toString(page), rect);
+    }
+
+    public String getPage() {
+        return page;
+    }
+
+    public Rectangle getRect() {
+        return rect;
+    }
+
+    /**
+     * Resolves the page specification against a document.
+     *
+     * @param numberOfPages Number of pages in the document
+     * @return 1-based page numbers this placement applies to
+     * @throws IllegalArgumentException if the page is invalid or out of range
+     */
+    public List<Integer> resolvePages(int numberOfPages) {
+        List<Integer> pages = new ArrayList<>();
+
+        if (ALL_PAGES.equalsIgnoreCase(page)) {
+            for (int i = 1; i <= numberOfPages; i++) {
+                pages.add(i);
+            }
+            return pages;
+        }
+
+        if (LAST_PAGE.equalsIgnoreCase(page)) {
+            pages.add(numberOfPages);
+            return pages;
+        }
+
+        int n;
+        try {
+            n = Integer.parseInt(page);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid signature page: " + page);
+        }
+        if (n < 1 || n > numberOfPages) {
+            throw new IllegalArgumentException(
+                    "Signature page " + n + " out of range, document has " + numberOfPages + " pages");
+        }
+        pages.add(n);
+        return pages;
+    }
+}
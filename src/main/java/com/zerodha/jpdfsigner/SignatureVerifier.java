@@ -0,0 +1,504 @@
+package com.zerodha.jpdfsigner;
+
+import com.google.gson.annotations.SerializedName;
+import com.lowagie.text.exceptions.BadPasswordException;
+import com.lowagie.text.pdf.AcroFields;
+import com.lowagie.text.pdf.PdfArray;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfString;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.CMSAttributes;
+import org.bouncycastle.asn1.cms.Time;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.CMSTypedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.Selector;
+import org.bouncycastle.util.Store;
+
+/**
+ * SignatureVerifier checks signed PDFs with the same reader and crypto stack
+ * used to sign them. For every document it checks that each signature matches
+ * the bytes it covers and the last one covers the whole document (integrity),
+ * that each signing certificate chains up to a trusted certificate (chain),
+ * and that the document is encrypted if and only if a password is expected.
+ */
+public class SignatureVerifier {
+
+    static final String STATUS_OK = "ok";
+    static final String STATUS_INVALID = "invalid";
+    static final String STATUS_ERROR = "error";
+
+    // Result is the JSON reported for every verified document.
+    static class Result {
+        @SerializedName("file")
+        String file;
+
+        @SerializedName("status")
+        String status;
+
+        @SerializedName("signatures")
+        int signatures;
+
+        @SerializedName("integrity")
+        boolean integrity;
+
+        @SerializedName("chain")
+        boolean chain;
+
+        @SerializedName("encrypted")
+        boolean encrypted;
+
+        @SerializedName("error")
+        String error;
+    }
+
+    // Summary counts the results of a bulk verification.
+    static class Summary {
+        final LongAdder ok = new LongAdder();
+        final LongAdder invalid = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        void add(Result result) {
+            if (STATUS_OK.equals(result.status)) {
+                ok.increment();
+            } else if (STATUS_INVALID.equals(result.status)) {
+                invalid.increment();
+            } else {
+                errors.increment();
+            }
+        }
+
+        long total() {
+            return ok.sum() + invalid.sum() + errors.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Verified " + total() + " files: " + ok.sum() + " ok, " + invalid.sum() + " invalid, "
+                    + errors.sum() + " errors";
+        }
+    }
+
+    private final List<X509Certificate> trusted;
+    private final S3Handler s3Handler;
+    private final JcaX509CertificateConverter converter = new JcaX509CertificateConverter();
+
+    /**
+     * @param trusted   Certificates that signing chains must end in
+     * @param s3Handler Handler for S3 paths, or null if S3 is disabled
+     */
+    public SignatureVerifier(List<X509Certificate> trusted, S3Handler s3Handler) {
+        this.trusted = new ArrayList<>(trusted);
+        this.s3Handler = s3Handler;
+    }
+
+    /**
+     * Create a verifier that trusts the root of the signing chain and the
+     * certificates in verify_trusted_certs.
+     *
+     * @param config    Properties containing the optional verify_trusted_certs
+     * @param chain     Certificate chain used for signing
+     * @param s3Handler Handler for S3 paths, or null if S3 is disabled
+     * @return The verifier
+     * @throws IOException          if verify_trusted_certs cannot be read
+     * @throws CertificateException if verify_trusted_certs cannot be parsed
+     */
+    public static SignatureVerifier fromConfig(Properties config, Certificate[] chain, S3Handler s3Handler)
+            throws IOException, CertificateException {
+        List<X509Certificate> trusted = new ArrayList<>();
+        if (chain != null && chain.length > 0) {
+            trusted.add((X509Certificate) chain[chain.length - 1]);
+        }
+
+        // PEM or DER, one or more certificates.
+        String trustedCerts = config.getProperty("verify_trusted_certs");
+        if (trustedCerts != null && !trustedCerts.isEmpty()) {
+            try (InputStream in = new FileInputStream(trustedCerts)) {
+                for (Certificate cert : CertificateFactory.getInstance("X.509").generateCertificates(in)) {
+                    trusted.add((X509Certificate) cert);
+                }
+            }
+        }
+
+        return new SignatureVerifier(trusted, s3Handler);
+    }
+
+    /**
+     * Verify a document from the filesystem or S3.
+     *
+     * @param path     Local or S3 path of the document
+     * @param password Password the document is expected to be encrypted with,
+     *                 or null or empty if it is expected to be unencrypted
+     * @return The result of the checks
+     * @throws IOException if the document cannot be read
+     */
+    public Result verify(String path, String password) throws IOException {
+        byte[] pdf;
+        if (S3Handler.isS3Path(path)) {
+            if (s3Handler == null) {
+                throw new IllegalStateException("S3Handler not initialized but S3 path provided for input");
+            }
+            try (InputStream in = s3Handler.getInputStreamFromS3(path)) {
+                pdf = in.readAllBytes();
+            }
+        } else {
+            pdf = Files.readAllBytes(Paths.get(path));
+        }
+
+        Result result = verify(pdf, password);
+        result.file = path;
+        return result;
+    }
+
+    /**
+     * Verify a document.
+     *
+     * @param pdf      The document
+     * @param password Password the document is expected to be encrypted with,
+     *                 or null or empty if it is expected to be unencrypted
+     * @return The result of the checks
+     */
+    Result verify(byte[] pdf, String password) {
+        Result result = new Result();
+        boolean expectEncrypted = password != null && !password.isEmpty();
+
+        // A partial read only loads the objects the checks touch.
+        PdfReader reader;
+        try {
+            reader = new PdfReader(new RandomAccessFileOrArray(pdf),
+                    expectEncrypted ? password.getBytes(StandardCharsets.UTF_8) : null);
+        } catch (BadPasswordException e) {
+            return invalid(result, "Wrong password or not encrypted with the expected password");
+        } catch (IOException | RuntimeException e) {
+            return error(result, "Not a valid PDF: " + e.getMessage());
+        }
+
+        try {
+            result.encrypted = reader.isEncrypted();
+            AcroFields fields = reader.getAcroFields();
+            List<String> names = fields.getSignedFieldNames();
+            result.signatures = names.size();
+            if (names.isEmpty()) {
+                return invalid(result, "No signatures");
+            }
+
+            result.integrity = fields.signatureCoversWholeDocument(names.get(names.size() - 1));
+            result.chain = true;
+            String failure = result.integrity ? null : "Last signature does not cover the whole document";
+            for (String name : names) {
+                String check = checkSignature(pdf, fields.getSignatureDictionary(name), result);
+                if (check != null && failure == null) {
+                    failure = name + ": " + check;
+                }
+            }
+
+            if (failure == null && result.encrypted != expectEncrypted) {
+                failure = expectEncrypted ? "Document is not encrypted" : "Document is encrypted";
+            }
+            if (failure != null) {
+                return invalid(result, failure);
+            }
+
+            result.status = STATUS_OK;
+            return result;
+        } catch (RuntimeException e) {
+            return error(result, e.toString());
+        } finally {
+            reader.close();
+        }
+    }
+
+    // Check one signature, clearing the integrity or chain flag of the result
+    // on failure. Returns the reason for the failure, or null.
+    private String checkSignature(byte[] pdf, PdfDictionary sig, Result result) {
+        try {
+            PdfArray range = sig.getAsArray(PdfName.BYTERANGE);
+            PdfString contents = sig.getAsString(PdfName.CONTENTS);
+            if (range == null || contents == null || range.size() % 2 != 0) {
+                result.integrity = false;
+                return "Missing ByteRange or Contents";
+            }
+            long[] ranges = new long[range.size()];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = range.getAsNumber(i).intValue();
+            }
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] < 0 || ranges[i + 1] < 0 || ranges[i] + ranges[i + 1] > pdf.length) {
+                    result.integrity = false;
+                    return "ByteRange outside of the document";
+                }
+            }
+            RangeContent signed = new RangeContent(pdf, ranges);
+
+            CMSSignedData cms;
+            if (PdfName.ADBE_PKCS7_DETACHED.equals(sig.getAsName(PdfName.SUBFILTER))) {
+                // The signed attributes carry the digest, checked by SignerInformation.verify.
+                cms = new CMSSignedData(signed, contents.getOriginalBytes());
+            } else {
+                // adbe.pkcs7.sha1 encapsulates the SHA-1 digest of the signed ranges.
+                cms = new CMSSignedData(contents.getOriginalBytes());
+                MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+                signed.write(new DigestOutputStream(sha1));
+                if (!MessageDigest.isEqual((byte[]) cms.getSignedContent().getContent(), sha1.digest())) {
+                    result.integrity = false;
+                    return "Digest does not match the document";
+                }
+            }
+
+            Store<X509CertificateHolder> store = cms.getCertificates();
+            Collection<X509CertificateHolder> certs = store.getMatches(null);
+            for (SignerInformation info : cms.getSignerInfos().getSigners()) {
+                // SignerId is a raw Selector
+                @SuppressWarnings("unchecked")
+                Selector<X509CertificateHolder> sid = info.getSID();
+                Collection<X509CertificateHolder> matches = store.getMatches(sid);
+                if (matches.isEmpty()) {
+                    result.integrity = false;
+                    return "Signing certificate not included";
+                }
+                X509Certificate signer = converter.getCertificate(matches.iterator().next());
+                if (!info.verify(new JcaSimpleSignerInfoVerifierBuilder().build(signer))) {
+                    result.integrity = false;
+                    return "Signature does not match the document";
+                }
+                if (!chains(signer, certs, signingTime(info))) {
+                    result.chain = false;
+                    return "Certificate chain not trusted or not valid at signing time: "
+                            + signer.getSubjectX500Principal().getName();
+                }
+            }
+            return null;
+        } catch (CMSException | GeneralSecurityException | OperatorCreationException | IOException e) {
+            result.integrity = false;
+            return "Invalid signature: " + e.getMessage();
+        }
+    }
+
+    // Whether the certificate chains up to a trusted certificate through the
+    // certificates embedded in the signature, with every certificate on the
+    // path valid at the given time.
+    private boolean chains(X509Certificate cert, Collection<X509CertificateHolder> embedded, Date at)
+            throws CertificateException {
+        List<X509Certificate> pool = new ArrayList<>();
+        for (X509CertificateHolder holder : embedded) {
+            pool.add(converter.getCertificate(holder));
+        }
+
+        X509Certificate current = cert;
+        for (int depth = 0; depth <= pool.size(); depth++) {
+            try {
+                current.checkValidity(at);
+            } catch (CertificateException e) {
+                return false;
+            }
+            if (trusted.contains(current)) {
+                return true;
+            }
+            for (X509Certificate anchor : trusted) {
+                if (issuedBy(current, anchor)) {
+                    return true;
+                }
+            }
+
+            X509Certificate issuer = null;
+            for (X509Certificate candidate : pool) {
+                if (!candidate.equals(current) && issuedBy(current, candidate)) {
+                    issuer = candidate;
+                    break;
+                }
+            }
+            if (issuer == null) {
+                return false;
+            }
+            current = issuer;
+        }
+        return false;
+    }
+
+    private static boolean issuedBy(X509Certificate cert, X509Certificate issuer) {
+        if (!cert.getIssuerX500Principal().equals(issuer.getSubjectX500Principal())) {
+            return false;
+        }
+        try {
+            cert.verify(issuer.getPublicKey());
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    // The signing time from the signed attributes, or now if there is none.
+    private static Date signingTime(SignerInformation info) {
+        if (info.getSignedAttributes() != null) {
+            Attribute attr = info.getSignedAttributes().get(CMSAttributes.signingTime);
+            if (attr != null) {
+                return Time.getInstance(attr.getAttrValues().getObjectAt(0)).getDate();
+            }
+        }
+        return new Date();
+    }
+
+    /**
+     * Verify documents in parallel, writing one JSON result per line to the
+     * report as each finishes. Entries are consumed lazily and only a bounded
+     * number are in flight, so the input can be a listing of any size.
+     *
+     * @param entries     Pairs of path and expected password
+     * @param parallelism Number of documents verified concurrently
+     * @param report      Writer for the newline-delimited JSON results
+     * @return Counts of the results
+     * @throws IOException if the report cannot be written
+     */
+    Summary verifyAll(Iterable<String[]> entries, int parallelism, Writer report) throws IOException {
+        Summary summary = new Summary();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        IOException[] writeError = new IOException[1];
+
+        try {
+            for (String[] entry : entries) {
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        Result result = verifyQuietly(entry[0], entry.length > 1 ? entry[1] : null);
+                        summary.add(result);
+                        synchronized (report) {
+                            report.write(RequestDecoder.GSON.toJson(result));
+                            report.write('\n');
+                        }
+                    } catch (IOException e) {
+                        synchronized (report) {
+                            writeError[0] = e;
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while verifying", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        synchronized (report) {
+            if (writeError[0] != null) {
+                throw new IOException("Failed to write verification report", writeError[0]);
+            }
+            report.flush();
+        }
+        return summary;
+    }
+
+    // Verify a document, reporting a failure to read it as an error result.
+    private Result verifyQuietly(String path, String password) {
+        try {
+            return verify(path, password);
+        } catch (Exception e) {
+            Result result = error(new Result(), e.toString());
+            result.file = path;
+            return result;
+        }
+    }
+
+    static String toJson(Result result) {
+        return RequestDecoder.GSON.toJson(result);
+    }
+
+    private static Result invalid(Result result, String error) {
+        result.status = STATUS_INVALID;
+        result.error = error;
+        return result;
+    }
+
+    private static Result error(Result result, String error) {
+        result.status = STATUS_ERROR;
+        result.error = error;
+        return result;
+    }
+
+    // RangeContent is the signed content of a signature, written straight from
+    // the ByteRange of the document without copying it.
+    private static class RangeContent implements CMSTypedData {
+        private final byte[] pdf;
+        private final long[] ranges;
+
+        RangeContent(byte[] pdf, long[] ranges) {
+            this.pdf = pdf;
+            this.ranges = ranges;
+        }
+
+        @Override
+        public ASN1ObjectIdentifier getContentType() {
+            return PKCSObjectIdentifiers.data;
+        }
+
+        @Override
+        public void write(OutputStream out) throws IOException {
+            for (int i = 0; i < ranges.length; i += 2) {
+                out.write(pdf, (int) ranges[i], (int) ranges[i + 1]);
+            }
+        }
+
+        @Override
+        public Object getContent() {
+            return pdf;
+        }
+    }
+
+    // DigestOutputStream feeds everything written to it into a digest.
+    private static class DigestOutputStream extends OutputStream {
+        private final MessageDigest digest;
+
+        DigestOutputStream(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(int b) {
+            digest.update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            digest.update(b, off, len);
+        }
+    }
+}
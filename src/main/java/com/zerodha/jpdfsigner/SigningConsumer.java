@@ -0,0 +1,147 @@
+package com.zerodha.jpdfsigner;
+
+import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SigningConsumer pulls signing requests from a MessageSource in batches,
+ * signs each batch with bounded parallelism, publishes one result per message
+ * and then commits the batch.
+ */
+public class SigningConsumer {
+
+    // Result is the JSON published for every consumed message.
+    static class Result {
+        @SerializedName("key")
+        String key;
+
+        @SerializedName("input_file")
+        String inputFile;
+
+        @SerializedName("output_file")
+        String outputFile;
+
+        @SerializedName("status")
+        String status;
+
+        @SerializedName("error")
+        String error;
+
+        // Pre-flight error code, set when the request itself is invalid and
+        // should not be retried.
+        @SerializedName("code")
+        String code;
+    }
+
+    private final MessageSource source;
+    private final OpenPdfSigner app;
+    private final SignatureConfig sigConfig;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final long pollTimeoutMs;
+
+    private volatile boolean running = true;
+
+    public SigningConsumer(
+            MessageSource source,
+            OpenPdfSigner app,
+            SignatureConfig sigConfig,
+            int parallelism,
+            int batchSize,
+            long pollTimeoutMs) {
+        this.source = source;
+        this.app = app;
+        this.sigConfig = sigConfig;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+        this.batchSize = batchSize;
+        this.pollTimeoutMs = pollTimeoutMs;
+    }
+
+    /**
+     * Consumes batches until stop() is called or the source fails.
+     */
+    public void run() throws IOException {
+        try {
+            while (running) {
+                processBatch();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stops the consumer after the batch in progress has been committed.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Polls, signs, publishes and commits a single batch.
+     *
+     * @return Number of messages processed
+     * @throws IOException if the source fails to poll, publish or commit
+     */
+    int processBatch() throws IOException {
+        List<MessageSource.Message> messages = source.poll(batchSize, pollTimeoutMs);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<Result>> futures = new ArrayList<>(messages.size());
+        for (MessageSource.Message message : messages) {
+            futures.add(executor.submit(() -> process(message)));
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            Result result;
+            try {
+                result = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while signing batch", e);
+            } catch (ExecutionException e) {
+                result = new Result();
+                result.key = messages.get(i).getKey();
+                result.status = "error";
+                result.error = e.getCause().toString();
+            }
+            source.publish(messages.get(i), RequestDecoder.GSON.toJson(result));
+        }
+
+        source.commit();
+        return messages.size();
+    }
+
+    private Result process(MessageSource.Message message) {
+        Result result = new Result();
+        result.key = message.getKey();
+
+        try {
+            Request req = RequestDecoder.decode(message.getPayload());
+            result.inputFile = req.getInputFile();
+            result.outputFile = req.getOutputFile();
+
+            app.sign(SigningRequest.createSignParams(req, sigConfig));
+            result.status = "ok";
+        } catch (PreflightException e) {
+            System.err.println("Rejected message " + message.getKey() + ": " + e.getMessage());
+            result.status = "error";
+            result.code = e.getCode().name();
+            result.error = e.getMessage();
+        } catch (Exception e) {
+            System.err.println("Error processing message " + message.getKey() + ": " + e.getMessage());
+            result.status = "error";
+            result.error = e.toString();
+        }
+
+        return result;
+    }
+}
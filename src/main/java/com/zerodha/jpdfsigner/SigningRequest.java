@@ -1,17 +1,17 @@
 package com.zerodha.jpdfsigner;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.lowagie.text.Font;
 import com.lowagie.text.Rectangle;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.RequestTooBigException;
 import io.undertow.util.Headers;
 import io.undertow.util.Methods;
 import io.undertow.util.StatusCodes;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 public class SigningRequest {
@@ -19,15 +19,8 @@ public class SigningRequest {
     private static final String CONTENT_TYPE = "text/plain; charset=UTF-8";
     private static final String METHOD_NOT_ALLOWED = "Method not allowed";
 
-    private final PrivateKey key;
-    private final Certificate[] chain;
-    private final String reason;
-    private final String contact;
-    private final String location;
-    private final Rectangle rect;
+    private final SignatureConfig defaults;
     private final OpenPdfSigner app;
-    private final Font font;
-    private final int page;
     private final ExecutorService executor;
 
     public SigningRequest(
@@ -41,15 +34,12 @@ public class SigningRequest {
             Font font,
             int page,
             ExecutorService executor) {
-        this.key = key;
-        this.chain = chain;
-        this.reason = reason;
-        this.contact = contact;
-        this.location = location;
-        this.rect = rect;
+        this(new SignatureConfig(font, reason, contact, location, rect, page, key, chain), app, executor);
+    }
+
+    public SigningRequest(SignatureConfig defaults, OpenPdfSigner app, ExecutorService executor) {
+        this.defaults = defaults;
         this.app = app;
-        this.font = font;
-        this.page = page;
         this.executor = executor;
     }
 
@@ -71,38 +61,46 @@ public class SigningRequest {
             return;
         }
 
-        if (httpExchange.isInIoThread()) {
-            httpExchange.dispatch(executor, () -> handleRequestWithMeta(httpExchange));
-            return;
-        }
-
-        httpExchange.startBlocking();
-        try {
-            String requestBody = readInputStream(httpExchange.getInputStream());
-            processRequest(requestBody, httpExchange);
-        } catch (IOException e) {
-            System.err.println("Error reading request body: " + e.getMessage());
-            sendResponse(
-                    "Error reading request",
-                    StatusCodes.INTERNAL_SERVER_ERROR,
-                    httpExchange);
-        }
-    }
-
-    private String readInputStream(InputStream inputStream) throws IOException {
-        try (inputStream) {
-            return new String(
-                    inputStream.readAllBytes(),
-                    StandardCharsets.UTF_8);
-        }
+        // Read the body asynchronously on the IO thread so that slow clients
+        // don't hold a signing worker. The request is handed to the executor
+        // only once it has been fully received and parsed.
+        httpExchange.getRequestReceiver().receiveFullBytes(
+                (exchange, body) -> {
+                    Request req;
+                    try {
+                        req = RequestDecoder.decode(body);
+                    } catch (JsonParseException e) {
+                        System.err.println("Error parsing request body: " + e.getMessage());
+                        sendResponse(e.toString(), StatusCodes.BAD_REQUEST, exchange);
+                        return;
+                    }
+                    if (req == null) {
+                        sendResponse("Empty request body", StatusCodes.BAD_REQUEST, exchange);
+                        return;
+                    }
+                    exchange.dispatch(executor, () -> processRequest(req, exchange));
+                },
+                (exchange, e) -> {
+                    if (e instanceof RequestTooBigException) {
+                        sendResponse(
+                                "Request body too large",
+                                StatusCodes.REQUEST_ENTITY_TOO_LARGE,
+                                exchange);
+                        return;
+                    }
+                    System.err.println("Error reading request body: " + e.getMessage());
+                    sendResponse(
+                            "Error reading request",
+                            StatusCodes.INTERNAL_SERVER_ERROR,
+                            exchange);
+                });
     }
 
     private void processRequest(
-            String requestBody,
+            Request req,
             HttpServerExchange httpExchange) {
         try {
-            Request req = new Gson().fromJson(requestBody, Request.class);
-            SignParams params = createSignParams(req);
+            SignParams params = createSignParams(req, defaults);
             app.sign(params);
             System.out.println(
                     "Signing file at src: " +
@@ -110,6 +108,18 @@ public class SigningRequest {
                             " to output: " +
                             req.getOutputFile());
             sendResponse("", StatusCodes.OK, httpExchange);
+        } catch (PreflightException e) {
+            // The request itself is invalid, so a 4xx tells clients not to retry.
+            System.err.println("Rejected request: " + e.getMessage());
+            sendResponse(
+                    e.getCode() + ": " + e.getMessage(),
+                    e.getStatus(),
+                    httpExchange);
+        } catch (MemoryBudget.AdmissionTimeoutException e) {
+            // The server is busy with other documents, so the client may retry.
+            System.err.println("Rejected request: " + e.getMessage());
+            httpExchange.getResponseHeaders().put(Headers.RETRY_AFTER, "1");
+            sendResponse(e.getMessage(), StatusCodes.SERVICE_UNAVAILABLE, httpExchange);
         } catch (Exception e) {
             System.err.println("Error processing request: " + e.getMessage());
             sendResponse(
@@ -119,44 +129,57 @@ public class SigningRequest {
         }
     }
 
-    private SignParams createSignParams(Request req) {
+    // Build the parameters for signing a request, falling back to the configured
+    // defaults for anything the request leaves out.
+    static SignParams createSignParams(Request req, SignatureConfig defaults) throws PreflightException {
         SignParams params = new SignParams();
         params.setSrc(req.getInputFile());
         params.setDest(req.getOutputFile());
         params.setPassword(req.getPassword());
+        params.setMode(SignParams.Mode.parse(req.getMode()));
         params.setContact(
                 (req.getContact() != null && !req.getContact().isBlank())
                         ? req.getContact()
-                        : contact);
+                        : defaults.getContact());
         params.setLocation(
                 (req.getLocation() != null && !req.getLocation().isBlank())
                         ? req.getLocation()
-                        : location);
+                        : defaults.getLocation());
         params.setReason(
                 (req.getReason() != null && !req.getReason().isBlank())
                         ? req.getReason()
-                        : reason);
-        params.setChain(chain);
-        params.setKey(key);
-
-        // Use custom coordinates from request if provided and valid
-        if (req.getCoordinates() != null && req.getCoordinates().isValid()) {
-            params.setRect(new Rectangle(
-                req.getCoordinates().getX1(),
-                req.getCoordinates().getY1(),
-                req.getCoordinates().getX2(),
-                req.getCoordinates().getY2()
-            ));
-        } else {
-            // Use default coordinates from config
-            params.setRect(rect);
-        }
+                        : defaults.getReason());
+        params.setChain(defaults.getChain());
+        params.setKey(defaults.getKey());
 
-        params.setFont(font);
+        // Use custom coordinates from request if provided and valid,
+        // otherwise use default coordinates from config
+        params.setRect(toRect(req.getCoordinates(), defaults.getRect()));
+
+        params.setFont(defaults.getFont());
+        params.setAppearance(defaults.getAppearance());
 
         // Use custom page from request if provided, otherwise use default from config
-        params.setPage(req.getPage() != null ? req.getPage() : page);
+        params.setPage(req.getPage() != null ? req.getPage() : defaults.getPage());
+
+        // Multiple placements, each defaulting to the page and coordinates above
+        if (req.getPlacements() != null && !req.getPlacements().isEmpty()) {
+            List<SignaturePlacement> placements = new ArrayList<>();
+            for (Placement p : req.getPlacements()) {
+                placements.add(new SignaturePlacement(
+                        p.getPage() != null ? p.getPage() : Integer.toString(params.getPage()),
+                        toRect(p.getCoordinates(), params.getRect())));
+            }
+            params.setPlacements(placements);
+        }
 
         return params;
     }
+
+    private static Rectangle toRect(Coordinates c, Rectangle fallback) {
+        if (c == null || !c.isValid()) {
+            return fallback;
+        }
+        return new Rectangle(c.getX1(), c.getY1(), c.getX2(), c.getY2());
+    }
 }
@@ -0,0 +1,59 @@
+package com.zerodha.jpdfsigner;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Storage resolves paths to the StorageBackend registered for their URI
+ * scheme. Paths without a scheme, and file:// URIs, are local files.
+ */
+public class Storage {
+
+    static final String FILE = "file";
+
+    private static final Pattern SCHEME = Pattern.compile("^([a-zA-Z][a-zA-Z0-9+.-]*)://");
+
+    private final Map<String, StorageBackend> backends = new ConcurrentHashMap<>();
+
+    public Storage() {
+        register(FILE, new FileStorageBackend());
+    }
+
+    /**
+     * Register the backend for a scheme, replacing any earlier one. A null
+     * backend removes the scheme.
+     */
+    public void register(String scheme, StorageBackend backend) {
+        String key = scheme.toLowerCase(Locale.ROOT);
+        if (backend == null) {
+            backends.remove(key);
+        } else {
+            backends.put(key, backend);
+        }
+    }
+
+    /**
+     * The backend for a path.
+     *
+     * @throws IllegalStateException if no backend is registered for its scheme
+     */
+    public StorageBackend resolve(String path) {
+        String scheme = scheme(path);
+        StorageBackend backend = backends.get(scheme);
+        if (backend == null) {
+            throw new IllegalStateException("No storage backend for " + scheme + ":// paths: " + path);
+        }
+        return backend;
+    }
+
+    /**
+     * The lower-cased URI scheme of a path, or "file" if it has none.
+     */
+    static String scheme(String path) {
+        Matcher m = SCHEME.matcher(path);
+        return m.find() ? m.group(1).toLowerCase(Locale.ROOT) : FILE;
+    }
+}
@@ -0,0 +1,188 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * StorageBackend reads and writes the documents under one URI scheme, such as
+ * s3:// or mem://. Backends are registered by scheme in a Storage and the
+ * signing core only talks to this interface, so a backend can optimise its own
+ * I/O without changes to signing.
+ *
+ * Only stat, openRead and openWrite have to be implemented. The other methods
+ * have streaming defaults that backends may replace with something cheaper.
+ */
+public interface StorageBackend {
+
+    /**
+     * Metadata key under which outputs record the version of their input.
+     */
+    String SOURCE_VERSION_METADATA = "source-etag";
+
+    /**
+     * ObjectInfo describes a stored object.
+     */
+    final class ObjectInfo {
+        private final long size;
+        private final String version;
+
+        /**
+         * @param size    Size in bytes
+         * @param version Version of the object, such as an S3 ETag, or null if
+         *                the backend doesn't version objects
+         */
+        public ObjectInfo(long size, String version) {
+            this.size = size;
+            this.version = version;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Look an object up.
+     *
+     * @return The object's info, or null if it doesn't exist
+     */
+    ObjectInfo stat(String path) throws IOException;
+
+    /**
+     * Open an object for reading.
+     *
+     * @param version If not null, fail instead of reading any other version
+     */
+    InputStream openRead(String path, String version) throws IOException;
+
+    /**
+     * Output is one object being written. Nothing is stored until commit, and
+     * abort drops whatever was written, so a sign that fails halfway never
+     * stores a truncated document. Abort after commit does nothing.
+     */
+    interface Output {
+        /**
+         * The stream to write the object through. PdfStamper closes it when
+         * the document is done and ignores what close throws, so closing it
+         * only flushes it: storing the object, and reporting a failure to,
+         * is left to commit.
+         */
+        OutputStream stream();
+
+        /**
+         * Store the object, and only then make it visible to readers on
+         * backends that support it.
+         */
+        void commit() throws IOException;
+
+        /**
+         * Drop the object and release what it holds, unless it was committed.
+         */
+        void abort();
+    }
+
+    /**
+     * Open an object for writing.
+     *
+     * @param metadata Metadata stored with the object, or null. Backends that
+     *                 don't store metadata ignore it.
+     */
+    Output openWrite(String path, Map<String, String> metadata) throws IOException;
+
+    /**
+     * Read a whole object into an array of exactly its size, which PdfReader
+     * parses without copying it again.
+     *
+     * @param version If not null, fail instead of reading any other version
+     */
+    default byte[] readAll(String path, String version) throws IOException {
+        try (InputStream in = openRead(path, version)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Read length bytes of an object starting at offset, or fewer if the
+     * object ends first.
+     */
+    default byte[] readRange(String path, long offset, int length, String version) throws IOException {
+        try (InputStream in = openRead(path, version)) {
+            long skipped = 0;
+            while (skipped < offset) {
+                long n = in.skip(offset - skipped);
+                if (n <= 0) {
+                    if (in.read() < 0) {
+                        return new byte[0];
+                    }
+                    n = 1;
+                }
+                skipped += n;
+            }
+            return in.readNBytes(length);
+        }
+    }
+
+    /**
+     * Copy an object into a local file, replacing it.
+     */
+    default void readToFile(String path, String version, Path file) throws IOException {
+        try (InputStream in = openRead(path, version)) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Store a local file as an object.
+     */
+    default void writeFromFile(Path file, String path, Map<String, String> metadata) throws IOException {
+        Output out = openWrite(path, metadata);
+        try {
+            Files.copy(file, out.stream());
+            out.commit();
+        } finally {
+            out.abort();
+        }
+    }
+
+    /**
+     * The local file holding an object, if the backend stores objects as
+     * local files. Such objects are read in place instead of through a stream.
+     *
+     * @return The file, or null
+     */
+    default Path localPath(String path) {
+        return null;
+    }
+
+    /**
+     * Check that a path is well formed for this backend without any I/O.
+     *
+     * @throws IllegalArgumentException if it isn't
+     */
+    default void validate(String path) {
+    }
+
+    /**
+     * Whether outputs on this backend record the version of the input they
+     * were signed from, so that re-signing an unchanged input can be skipped.
+     */
+    default boolean isSkipUnchanged() {
+        return false;
+    }
+
+    /**
+     * Whether dest was already signed from the given version of its input.
+     */
+    default boolean isUpToDate(String sourceVersion, String dest) throws IOException {
+        return false;
+    }
+}
@@ -0,0 +1,216 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.pdf.PdfPKCS7;
+import com.lowagie.text.pdf.TSAClient;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.operator.DefaultDigestAlgorithmIdentifierFinder;
+import org.bouncycastle.tsp.TSPException;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampRequestGenerator;
+import org.bouncycastle.tsp.TimeStampResponse;
+import org.bouncycastle.tsp.TimeStampToken;
+
+/**
+ * TsaClient fetches RFC 3161 timestamp tokens for signatures. All requests go
+ * through one pooled HTTP client and are bounded by a concurrency limit. TSAs
+ * are tried in the configured order, each behind its own circuit breaker, so a
+ * failing TSA is skipped instead of adding its timeout to every sign.
+ */
+public class TsaClient implements TSAClient {
+
+    static final String LATENCY_METRIC = "jpdfsigner_tsa_request_seconds";
+    static final String FAILURES_METRIC = "jpdfsigner_tsa_failures_total";
+    static final String UNAVAILABLE_METRIC = "jpdfsigner_tsa_unavailable_total";
+
+    private static final String CONTENT_TYPE = "application/timestamp-query";
+
+    private final List<String> urls;
+    private final Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+    private final HttpClient http;
+    private final Duration timeout;
+    private final Semaphore permits;
+    private final String digestAlgorithm;
+    private final ASN1ObjectIdentifier digestOid;
+    private final int tokenSizeEstimate;
+    private final SecureRandom random = new SecureRandom();
+
+    private final LatencyHistogram latency = Metrics.histogram(LATENCY_METRIC);
+    private final LongAdder failures = Metrics.counter(FAILURES_METRIC);
+    private final LongAdder unavailable = Metrics.counter(UNAVAILABLE_METRIC);
+
+    public TsaClient(
+            List<String> urls,
+            Duration timeout,
+            int maxConcurrent,
+            String digestAlgorithm,
+            int tokenSizeEstimate,
+            int breakerFailures,
+            long breakerOpenMillis) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one TSA URL is required");
+        }
+        this.urls = new ArrayList<>(urls);
+        for (String url : urls) {
+            breakers.put(url, new CircuitBreaker(breakerFailures, breakerOpenMillis));
+        }
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.timeout = timeout;
+        this.permits = new Semaphore(maxConcurrent);
+        this.digestAlgorithm = digestAlgorithm;
+        this.digestOid = new DefaultDigestAlgorithmIdentifierFinder().find(digestAlgorithm).getAlgorithm();
+        this.tokenSizeEstimate = tokenSizeEstimate;
+    }
+
+    /**
+     * Create a TsaClient from the tsa_* settings.
+     *
+     * @param config Properties containing tsa_urls and the optional tsa_*
+     *               tuning settings
+     * @return The client, or null if tsa_urls is not set
+     */
+    public static TsaClient fromConfig(Properties config) {
+        String urls = config.getProperty("tsa_urls");
+        if (urls == null || urls.isBlank()) {
+            return null;
+        }
+
+        List<String> list = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                list.add(url.trim());
+            }
+        }
+
+        return new TsaClient(
+                list,
+                Duration.ofMillis(Long.parseLong(config.getProperty("tsa_timeout_ms", "10000"))),
+                Integer.parseInt(config.getProperty("tsa_max_concurrent", "16")),
+                config.getProperty("tsa_digest", "SHA-256"),
+                Integer.parseInt(config.getProperty("tsa_token_size_estimate", "4096")),
+                Integer.parseInt(config.getProperty("tsa_breaker_failures", "5")),
+                Long.parseLong(config.getProperty("tsa_breaker_open_ms", "30000")));
+    }
+
+    @Override
+    public int getTokenSizeEstimate() {
+        return tokenSizeEstimate;
+    }
+
+    @Override
+    public MessageDigest getMessageDigest() throws GeneralSecurityException {
+        return MessageDigest.getInstance(digestAlgorithm);
+    }
+
+    @Override
+    public byte[] getTimeStampToken(PdfPKCS7 caller, byte[] imprint) throws IOException {
+        return timestamp(imprint);
+    }
+
+    /**
+     * Get a timestamp token for a digest, trying each TSA in order.
+     *
+     * @param imprint Digest of the data to timestamp
+     * @return The DER encoded timestamp token
+     * @throws IOException if no TSA returned a valid token
+     */
+    public byte[] timestamp(byte[] imprint) throws IOException {
+        try {
+            if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                unavailable.increment();
+                throw new IOException("Timed out waiting for a TSA request slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a TSA request slot", e);
+        }
+
+        try {
+            IOException last = null;
+            for (String url : urls) {
+                CircuitBreaker breaker = breakers.get(url);
+                if (!breaker.allowRequest()) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    byte[] token = request(url, imprint);
+                    latency.record(System.nanoTime() - start);
+                    breaker.recordSuccess();
+                    return token;
+                } catch (IOException e) {
+                    latency.record(System.nanoTime() - start);
+                    breaker.recordFailure();
+                    failures.increment();
+                    System.err.println("TSA request to " + url + " failed: " + e.getMessage());
+                    last = e;
+                }
+            }
+
+            unavailable.increment();
+            throw new IOException("No TSA available", last);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private byte[] request(String url, byte[] imprint) throws IOException {
+        TimeStampRequestGenerator generator = new TimeStampRequestGenerator();
+        generator.setCertReq(true);
+        TimeStampRequest req = generator.generate(digestOid, imprint, new BigInteger(64, random));
+
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(req.getEncoded()))
+                .build();
+
+        HttpResponse<byte[]> httpResponse;
+        try {
+            httpResponse = http.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during TSA request", e);
+        }
+        if (httpResponse.statusCode() != 200) {
+            throw new IOException("TSA returned HTTP " + httpResponse.statusCode());
+        }
+
+        try {
+            TimeStampResponse response = new TimeStampResponse(httpResponse.body());
+            response.validate(req);
+            TimeStampToken token = response.getTimeStampToken();
+            if (token == null) {
+                throw new IOException("TSA rejected request: " + response.getStatusString());
+            }
+            return token.getEncoded();
+        } catch (TSPException e) {
+            throw new IOException("Invalid TSA response: " + e.getMessage(), e);
+        }
+    }
+
+    boolean isBreakerOpen(String url) {
+        return breakers.get(url).isOpen();
+    }
+}
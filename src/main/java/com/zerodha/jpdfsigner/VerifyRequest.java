@@ -0,0 +1,75 @@
+package com.zerodha.jpdfsigner;
+
+import com.google.gson.JsonParseException;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.ExecutorService;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * VerifyRequest handles POST /verify. The body has the same format as /sign;
+ * input_file is the signed document to verify and password the password it is
+ * expected to be encrypted with. The response is the JSON verification result,
+ * whose status is ok when every check passed.
+ */
+public class VerifyRequest {
+
+    private static final String CONTENT_TYPE = "application/json; charset=UTF-8";
+
+    private final SignatureVerifier verifier;
+    private final ExecutorService executor;
+
+    public VerifyRequest(SignatureVerifier verifier, ExecutorService executor) {
+        this.verifier = verifier;
+        this.executor = executor;
+    }
+
+    public void handleRequest(HttpServerExchange httpExchange) {
+        if (!httpExchange.getRequestMethod().equals(Methods.POST)) {
+            SigningRequest.sendResponse("Method not allowed", StatusCodes.METHOD_NOT_ALLOWED, httpExchange);
+            return;
+        }
+
+        httpExchange.getRequestReceiver().receiveFullBytes(
+                (exchange, body) -> {
+                    Request req;
+                    try {
+                        req = RequestDecoder.decode(body);
+                    } catch (JsonParseException e) {
+                        SigningRequest.sendResponse(e.toString(), StatusCodes.BAD_REQUEST, exchange);
+                        return;
+                    }
+                    if (req == null || req.getInputFile() == null || req.getInputFile().isBlank()) {
+                        SigningRequest.sendResponse("Missing input_file", StatusCodes.BAD_REQUEST, exchange);
+                        return;
+                    }
+                    exchange.dispatch(executor, () -> processRequest(req, exchange));
+                },
+                (exchange, e) -> {
+                    System.err.println("Error reading request body: " + e.getMessage());
+                    SigningRequest.sendResponse("Error reading request", StatusCodes.BAD_REQUEST, exchange);
+                });
+    }
+
+    private void processRequest(Request req, HttpServerExchange httpExchange) {
+        try {
+            SignatureVerifier.Result result = verifier.verify(req.getInputFile(), req.getPassword());
+            httpExchange.getResponseHeaders().put(Headers.CONTENT_TYPE, CONTENT_TYPE);
+            httpExchange.setStatusCode(StatusCodes.OK);
+            httpExchange.getResponseSender().send(SignatureVerifier.toJson(result));
+        } catch (NoSuchFileException e) {
+            SigningRequest.sendResponse("File not found: " + req.getInputFile(), StatusCodes.NOT_FOUND,
+                    httpExchange);
+        } catch (S3Exception e) {
+            SigningRequest.sendResponse(e.toString(),
+                    e.statusCode() == 404 ? StatusCodes.NOT_FOUND : StatusCodes.INTERNAL_SERVER_ERROR,
+                    httpExchange);
+        } catch (Exception e) {
+            System.err.println("Error verifying " + req.getInputFile() + ": " + e.getMessage());
+            SigningRequest.sendResponse(e.toString(), StatusCodes.INTERNAL_SERVER_ERROR, httpExchange);
+        }
+    }
+}
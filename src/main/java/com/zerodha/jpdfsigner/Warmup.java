@@ -0,0 +1,119 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+/**
+ * Warmup signs synthetic in-memory PDFs on startup so that the JIT has
+ * compiled the signing path and the crypto providers are initialized before
+ * the server reports ready. Documents alternate between plain and encrypted
+ * so both paths are warmed. Nothing is read from or written to storage.
+ */
+public class Warmup {
+
+    // Password of the encrypted warmup documents.
+    private static final String PASSWORD = "warmup";
+
+    private final OpenPdfSigner app;
+    private final SignatureConfig sigConfig;
+    private final int iterations;
+
+    private volatile boolean done;
+
+    /**
+     * @param app        Signer to warm up. It should not have a TsaClient, so
+     *                   the warmup doesn't send requests to the TSA.
+     * @param sigConfig  Signature settings used for the warmup signs
+     * @param iterations Number of documents to sign
+     */
+    public Warmup(OpenPdfSigner app, SignatureConfig sigConfig, int iterations) {
+        this.app = app;
+        this.sigConfig = sigConfig;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Create a warmup from the warmup_iterations setting.
+     *
+     * @param config    Properties containing the optional warmup_iterations
+     * @param app       Signer to warm up
+     * @param sigConfig Signature settings used for the warmup signs
+     */
+    public static Warmup fromConfig(Properties config, OpenPdfSigner app, SignatureConfig sigConfig) {
+        return new Warmup(app, sigConfig, Integer.parseInt(config.getProperty("warmup_iterations", "100")));
+    }
+
+    /**
+     * Whether the warmup has finished, successfully or not.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Run the warmup in a background thread.
+     */
+    public void start() {
+        if (iterations <= 0) {
+            done = true;
+            return;
+        }
+
+        Thread thread = new Thread(this::run, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Run the warmup in the calling thread. A failure is logged and still
+     * ends the warmup, so the server isn't kept out of rotation by it.
+     */
+    void run() {
+        long start = System.nanoTime();
+        try {
+            byte[] pdf = syntheticPdf(Math.max(1, sigConfig.getPage()));
+            for (int i = 0; i < iterations; i++) {
+                SignParams params = signParams(i % 2 == 0 ? null : PASSWORD);
+                app.sign(new PdfReader(pdf), new ByteArrayOutputStream(pdf.length + 16384), params);
+            }
+            System.out.println("Warmup signed " + iterations + " documents in "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+        } catch (Exception e) {
+            System.err.println("Warmup failed: " + e);
+        } finally {
+            done = true;
+        }
+    }
+
+    private SignParams signParams(String password) {
+        SignParams params = new SignParams();
+        params.setPassword(password);
+        params.setReason(sigConfig.getReason());
+        params.setContact(sigConfig.getContact());
+        params.setLocation(sigConfig.getLocation());
+        params.setKey(sigConfig.getKey());
+        params.setChain(sigConfig.getChain());
+        params.setRect(sigConfig.getRect());
+        params.setFont(sigConfig.getFont());
+        params.setPage(sigConfig.getPage());
+        params.setAppearance(sigConfig.getAppearance());
+        return params;
+    }
+
+    private static byte[] syntheticPdf(int pages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        for (int i = 1; i <= pages; i++) {
+            document.add(new Paragraph("Warmup page " + i));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.security.cert.Certificate;
+import java.util.Properties;
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppearanceTemplateTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fromConfig_withoutTextOrImage_returnsNull() throws Exception {
+        // Arrange
+        Properties config = new Properties();
+
+        // Act
+        AppearanceTemplate template = AppearanceTemplate.fromConfig(config, new Font(Font.HELVETICA, 9));
+
+        // Assert
+        assertNull(template);
+    }
+
+    @Test
+    void fromConfig_withImage_rendersImageOnlyAppearance() throws Exception {
+        // Arrange
+        Path image = tempDir.resolve("seal.png");
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "png", image.toFile());
+        Properties config = new Properties();
+        config.setProperty("appearance_image", image.toString());
+
+        // Act
+        AppearanceTemplate template = AppearanceTemplate.fromConfig(config, new Font(Font.HELVETICA, 9));
+        AppearanceTemplate.Rendered rendered = template.render("Signer", null, null, null, 278, 59);
+
+        // Assert
+        PdfReader reader = new PdfReader(rendered.pdf);
+        assertEquals(1, reader.getNumberOfPages());
+        assertEquals(278, reader.getPageSize(1).getWidth(), 0.01);
+        assertNotNull(reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT));
+    }
+
+    @Test
+    void formatText_replacesPlaceholders() {
+        // Arrange
+        AppearanceTemplate template = new AppearanceTemplate(
+                "Signed by {signer}\nReason: {reason}\n{location} {contact}", null, false,
+                new Font(Font.HELVETICA, 9));
+
+        // Act
+        String text = template.formatText("Test Signer", "Regulatory", null, "Bangalore");
+
+        // Assert
+        assertEquals("Signed by Test Signer\nReason: Regulatory\nBangalore ", text);
+    }
+
+    @Test
+    void render_withSameValues_reusesTemplate() throws Exception {
+        // Arrange
+        AppearanceTemplate template = new AppearanceTemplate(
+                "Signed by {signer}\nReason: {reason}", null, true, new Font(Font.HELVETICA, 9));
+
+        // Act
+        AppearanceTemplate.Rendered first = template.render("Test Signer", "Regulatory", null, null, 278, 59);
+        AppearanceTemplate.Rendered second = template.render("Test Signer", "Regulatory", null, null, 278, 59);
+        AppearanceTemplate.Rendered other = template.render("Test Signer", "Other", null, null, 278, 59);
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(first, other);
+        String text = new PdfTextExtractor(new PdfReader(first.pdf)).getTextFromPage(1);
+        assertTrue(text.contains("Signed by Test Signer"), text);
+        assertTrue(text.contains("Reason: Regulatory"), text);
+
+        // The date line sits below the two lines of text.
+        assertTrue(first.dateY < 59 - 2 * 9, "dateY " + first.dateY);
+    }
+
+    @Test
+    void signerName_returnsCommonName() throws Exception {
+        // Act
+        String name = AppearanceTemplate.signerName(new Certificate[] { TestFixtures.certificate() });
+
+        // Assert
+        assertEquals("Test Signer", name);
+    }
+}
@@ -0,0 +1,176 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void commit_replacesDestination() throws Exception {
+        for (AtomicFileWriter.Durability durability : new AtomicFileWriter.Durability[] {
+                AtomicFileWriter.Durability.NONE, AtomicFileWriter.Durability.FSYNC }) {
+            // Arrange
+            Path dest = dir.resolve(durability + ".pdf");
+            Files.write(dest, bytes("old"));
+            AtomicFileWriter writer = new AtomicFileWriter(durability, 0, 0);
+
+            // Act
+            AtomicFileWriter.Output output = writer.open(dest);
+            output.stream().write(bytes("new"));
+            assertEquals("old", read(dest));
+            output.commit();
+
+            // Assert
+            assertEquals("new", read(dest));
+        }
+        assertEquals(2, count());
+    }
+
+    @Test
+    void abort_keepsDestinationAndDeletesTempFile() throws Exception {
+        // Arrange
+        Path dest = dir.resolve("out.pdf");
+        Files.write(dest, bytes("old"));
+        AtomicFileWriter writer = new AtomicFileWriter(AtomicFileWriter.Durability.NONE, 0, 0);
+
+        // Act
+        AtomicFileWriter.Output output = writer.open(dest);
+        output.stream().write(bytes("partial"));
+        output.abort();
+
+        // Assert
+        assertEquals("old", read(dest));
+        assertEquals(1, count());
+    }
+
+    @Test
+    void commit_keepsUmaskModeOrModeOfReplacedFile() throws Exception {
+        assumeTrue(Files.getFileAttributeView(dir, PosixFileAttributeView.class) != null);
+        // Arrange
+        Path reference = Files.write(dir.resolve("reference"), bytes("x"));
+        Path existing = Files.write(dir.resolve("existing.pdf"), bytes("old"));
+        Set<PosixFilePermission> mode = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(existing, mode);
+        AtomicFileWriter writer = new AtomicFileWriter(AtomicFileWriter.Durability.NONE, 0, 0);
+
+        // Act
+        write(writer, "new.pdf");
+        write(writer, "existing.pdf");
+
+        // Assert
+        assertEquals(Files.getPosixFilePermissions(reference),
+                Files.getPosixFilePermissions(dir.resolve("new.pdf")));
+        assertEquals(mode, Files.getPosixFilePermissions(existing));
+    }
+
+    @Test
+    void group_commitsEveryGroupFilesAndOnClose() throws Exception {
+        // Arrange
+        AtomicFileWriter writer = new AtomicFileWriter(AtomicFileWriter.Durability.GROUP, 2, 0);
+
+        // Act & Assert
+        write(writer, "a.pdf");
+        assertFalse(Files.exists(dir.resolve("a.pdf")));
+        write(writer, "b.pdf");
+        assertTrue(Files.exists(dir.resolve("a.pdf")));
+        assertTrue(Files.exists(dir.resolve("b.pdf")));
+
+        write(writer, "c.pdf");
+        assertFalse(Files.exists(dir.resolve("c.pdf")));
+        writer.close();
+        assertEquals("c.pdf", read(dir.resolve("c.pdf")));
+        assertEquals(3, count());
+    }
+
+    @Test
+    void group_commitsAfterGroupMillis() throws Exception {
+        // Arrange
+        AtomicFileWriter writer = new AtomicFileWriter(AtomicFileWriter.Durability.GROUP, 100, 20);
+
+        // Act
+        write(writer, "a.pdf");
+
+        // Assert
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(dir.resolve("a.pdf")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(Files.exists(dir.resolve("a.pdf")));
+        writer.close();
+    }
+
+    @Test
+    void group_timerCommitFails_closeThrows() throws Exception {
+        // Arrange
+        Path sub = Files.createDirectory(dir.resolve("sub"));
+        AtomicFileWriter writer = new AtomicFileWriter(AtomicFileWriter.Durability.GROUP, 100, 20);
+        AtomicFileWriter.Output output = writer.open(sub.resolve("a.pdf"));
+        output.stream().write(bytes("a"));
+        output.commit();
+
+        // Act: the directory is gone by the time the timer commits the group
+        try (Stream<Path> files = Files.list(sub)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(sub);
+        Thread.sleep(500);
+
+        // Assert
+        assertThrows(NoSuchFileException.class, writer::close);
+    }
+
+    @Test
+    void fromConfig_groupOutsideBulk_fallsBackToFsync() throws Exception {
+        // Arrange
+        Properties config = new Properties();
+        config.setProperty("output_durability", "group");
+
+        // Act & Assert
+        assertEquals(AtomicFileWriter.Durability.FSYNC, AtomicFileWriter.fromConfig(config, false).getDurability());
+        try (AtomicFileWriter writer = AtomicFileWriter.fromConfig(config, true)) {
+            assertEquals(AtomicFileWriter.Durability.GROUP, writer.getDurability());
+        }
+    }
+
+    private void write(AtomicFileWriter writer, String name) throws Exception {
+        AtomicFileWriter.Output output = writer.open(dir.resolve(name));
+        output.stream().write(bytes(name));
+        output.commit();
+    }
+
+    private long count() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String read(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+    }
+}
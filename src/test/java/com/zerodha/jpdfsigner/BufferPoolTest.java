@@ -0,0 +1,106 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+    @Test
+    void acquire_roundsUpToSizeClassAndReusesReleasedArrays() {
+        // Arrange
+        BufferPool pool = new BufferPool(Long.MAX_VALUE);
+        long reused = Metrics.counter("jpdfsigner_buffer_pool_reused_bytes_total").sum();
+
+        // Act
+        byte[] small = pool.acquire(1);
+        byte[] medium = pool.acquire(BufferPool.MIN_SIZE + 1);
+        pool.release(medium);
+
+        // Assert
+        assertEquals(BufferPool.MIN_SIZE, small.length);
+        assertEquals(2 * BufferPool.MIN_SIZE, medium.length);
+        assertEquals(medium.length, pool.getRetained());
+        assertSame(medium, pool.acquire(2 * BufferPool.MIN_SIZE - 5));
+        assertEquals(0, pool.getRetained());
+        assertTrue(Metrics.counter("jpdfsigner_buffer_pool_reused_bytes_total").sum() >= reused + medium.length);
+    }
+
+    @Test
+    void release_keepsAtMostMaxRetainedAndNoOddSizes() {
+        // Arrange
+        BufferPool pool = new BufferPool(BufferPool.MIN_SIZE);
+        byte[] first = pool.acquire(1);
+        byte[] second = pool.acquire(1);
+
+        // Act
+        pool.release(first);
+        pool.release(second);
+        pool.release(new byte[1000]);
+        pool.release(new byte[BufferPool.MAX_SIZE + 1]);
+
+        // Assert
+        assertEquals(BufferPool.MIN_SIZE, pool.getRetained());
+        assertSame(first, pool.acquire(1));
+        assertNotSame(second, pool.acquire(1));
+        assertEquals(BufferPool.MAX_SIZE + 1, pool.acquire(BufferPool.MAX_SIZE + 1).length);
+    }
+
+    @Test
+    void buffer_growsByChunksAndReadsBackInOrder() throws Exception {
+        // Arrange: spans the 64, 128 and 256 KiB chunks
+        BufferPool pool = new BufferPool(Long.MAX_VALUE);
+        byte[] data = new byte[300 * 1024];
+        new Random(1).nextBytes(data);
+        BufferPool.Buffer buffer = pool.buffer();
+
+        // Act
+        buffer.write(data[0]);
+        buffer.write(data, 1, 100_000);
+        buffer.readFrom(new ByteArrayInputStream(data, 100_001, data.length - 100_001));
+
+        // Assert
+        assertEquals(data.length, buffer.size());
+        assertArrayEquals(data, buffer.toByteArray());
+        try (InputStream in = buffer.toInputStream()) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        buffer.release();
+        assertEquals(0, buffer.size());
+        assertEquals((1 + 2 + 4) * BufferPool.MIN_SIZE, pool.getRetained());
+    }
+
+    @Test
+    void buffer_inputStreamResetsToMarkPastReadLimit() throws Exception {
+        // Arrange
+        BufferPool pool = new BufferPool(Long.MAX_VALUE);
+        byte[] data = new byte[200 * 1024];
+        new Random(2).nextBytes(data);
+        BufferPool.Buffer buffer = pool.buffer();
+        buffer.write(data);
+        InputStream in = buffer.toInputStream();
+
+        // Act: read past the first chunk, as a failed upload attempt would
+        assertTrue(in.markSupported());
+        in.mark(128 * 1024);
+        in.readNBytes(150 * 1024);
+        in.reset();
+
+        // Assert
+        assertArrayEquals(data, in.readAllBytes());
+        in.reset();
+        in.skip(1000);
+        in.mark(1);
+        in.readAllBytes();
+        in.reset();
+        assertEquals(data.length - 1000, in.readAllBytes().length);
+    }
+}
@@ -0,0 +1,77 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void recordFailure_atThreshold_opensBreaker() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000, now::get);
+
+        // Act
+        breaker.recordFailure();
+        boolean allowedAfterOne = breaker.allowRequest();
+        breaker.recordFailure();
+
+        // Assert
+        assertTrue(allowedAfterOne);
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void allowRequest_afterOpenPeriod_allowsSingleTrial() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+        breaker.recordFailure();
+        now.addAndGet(1000);
+
+        // Act & Assert
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void recordSuccess_afterTrial_closesBreaker() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+        breaker.recordFailure();
+        now.addAndGet(1000);
+        breaker.allowRequest();
+
+        // Act
+        breaker.recordSuccess();
+
+        // Assert
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void recordFailure_afterTrial_reopensBreaker() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000, now::get);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        now.addAndGet(1000);
+        breaker.allowRequest();
+
+        // Act
+        breaker.recordFailure();
+
+        // Assert
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+}
@@ -0,0 +1,53 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.pdf.PdfWriter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EncryptionConfigTest {
+
+    @Test
+    void fromConfig_withoutSettings_isAes128AllowingPrinting() {
+        // Act
+        EncryptionConfig encryption = EncryptionConfig.fromConfig(new Properties());
+
+        // Assert
+        assertEquals(PdfWriter.ENCRYPTION_AES_128, encryption.getAlgorithm());
+        assertEquals(PdfWriter.ALLOW_PRINTING, encryption.getPermissions());
+    }
+
+    @Test
+    void fromConfig_readsAlgorithmAndPermissions() {
+        // Arrange
+        Properties config = new Properties();
+        config.setProperty("encryption_algorithm", "RC4_128");
+        config.setProperty("encryption_permissions", "copy, fill_in");
+
+        // Act
+        EncryptionConfig encryption = EncryptionConfig.fromConfig(config);
+
+        // Assert
+        assertEquals(PdfWriter.STANDARD_ENCRYPTION_128, encryption.getAlgorithm());
+        assertEquals(PdfWriter.ALLOW_COPY | PdfWriter.ALLOW_FILL_IN, encryption.getPermissions());
+
+        config.setProperty("encryption_permissions", "none");
+        assertEquals(0, EncryptionConfig.fromConfig(config).getPermissions());
+    }
+
+    @Test
+    void fromConfig_unsupportedAlgorithmOrPermission_throws() {
+        // Arrange
+        Properties algorithm = new Properties();
+        algorithm.setProperty("encryption_algorithm", "aes_256");
+        Properties permission = new Properties();
+        permission.setProperty("encryption_permissions", "print,delete");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> EncryptionConfig.fromConfig(algorithm));
+        assertThrows(IllegalArgumentException.class, () -> EncryptionConfig.fromConfig(permission));
+    }
+}
@@ -0,0 +1,81 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileMessageSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void poll_returnsCompleteLinesUpToMax() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("requests.ndjson");
+        Files.write(file, "{\"a\":1}\n\n{\"b\":2}\n{\"c\":3}\n".getBytes(StandardCharsets.UTF_8));
+
+        try (FileMessageSource source = new FileMessageSource(file.toString())) {
+            // Act
+            List<MessageSource.Message> first = source.poll(2, 0);
+            List<MessageSource.Message> second = source.poll(2, 0);
+
+            // Assert
+            assertEquals(2, first.size());
+            assertEquals("{\"a\":1}", first.get(0).getPayload());
+            assertEquals("{\"b\":2}", first.get(1).getPayload());
+            assertEquals(1, second.size());
+            assertEquals("{\"c\":3}", second.get(0).getPayload());
+        }
+    }
+
+    @Test
+    void poll_partialLine_isReturnedOnceComplete() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("requests.ndjson");
+        Files.write(file, "{\"a\":".getBytes(StandardCharsets.UTF_8));
+
+        try (FileMessageSource source = new FileMessageSource(file.toString())) {
+            // Act & Assert
+            assertTrue(source.poll(10, 0).isEmpty());
+
+            Files.write(file, "1}\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            List<MessageSource.Message> messages = source.poll(10, 1000);
+            assertEquals(1, messages.size());
+            assertEquals("{\"a\":1}", messages.get(0).getPayload());
+        }
+    }
+
+    @Test
+    void commit_resumesFromCommittedOffsetAndWritesResults() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("requests.ndjson");
+        Files.write(file, "{\"a\":1}\n{\"b\":2}\n".getBytes(StandardCharsets.UTF_8));
+
+        try (FileMessageSource source = new FileMessageSource(file.toString())) {
+            MessageSource.Message message = source.poll(1, 0).get(0);
+            source.publish(message, "{\"status\":\"ok\"}");
+            source.commit();
+        }
+
+        // Act
+        try (FileMessageSource source = new FileMessageSource(file.toString())) {
+            List<MessageSource.Message> messages = source.poll(10, 0);
+
+            // Assert
+            assertEquals(1, messages.size());
+            assertEquals("{\"b\":2}", messages.get(0).getPayload());
+        }
+        assertEquals("{\"status\":\"ok\"}",
+                Files.readAllLines(tempDir.resolve("requests.ndjson.results")).get(0));
+    }
+}
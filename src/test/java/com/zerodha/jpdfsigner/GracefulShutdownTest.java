@@ -0,0 +1,118 @@
+package com.zerodha.jpdfsigner;
+
+import io.undertow.Undertow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GracefulShutdownTest {
+
+    private ExecutorService executor;
+    private Undertow server;
+    private URI uri;
+    private HttpClient client;
+    private CountDownLatch started;
+    private CountDownLatch release;
+    private AtomicBoolean closed;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        client = HttpClient.newHttpClient();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        closed = new AtomicBoolean();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shutdown_drainsInFlightRequestsAndRejectsNewOnes() throws Exception {
+        // Arrange
+        GracefulShutdown shutdown = start(5000);
+        CompletableFuture<HttpResponse<String>> inFlight = send();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<Boolean> drained = CompletableFuture.supplyAsync(shutdown::shutdown);
+        Thread.sleep(100);
+        HttpResponse<String> rejected = send().get(5, TimeUnit.SECONDS);
+        boolean closedWhileInFlight = closed.get();
+        release.countDown();
+
+        // Assert
+        assertTrue(shutdown.isDraining());
+        assertEquals(503, rejected.statusCode());
+        assertFalse(closedWhileInFlight);
+        assertEquals(200, inFlight.get(5, TimeUnit.SECONDS).statusCode());
+        assertTrue(drained.get(5, TimeUnit.SECONDS));
+        assertTrue(executor.isShutdown());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void shutdown_deadlinePassed_stillReleasesResources() throws Exception {
+        // Arrange
+        GracefulShutdown shutdown = start(100);
+        send();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        boolean drained = shutdown.shutdown();
+
+        // Assert
+        assertFalse(drained);
+        assertTrue(executor.isShutdown());
+        assertTrue(closed.get());
+    }
+
+    private GracefulShutdown start(long timeoutMillis) {
+        GracefulShutdown shutdown = new GracefulShutdown(0, timeoutMillis);
+        shutdown.setExecutor(executor);
+        shutdown.closeOnShutdown(() -> closed.set(true));
+        shutdown.closeOnShutdown(null);
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(shutdown.wrap(exchange -> exchange.dispatch(executor, () -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    exchange.getResponseSender().send("done");
+                })))
+                .build();
+        shutdown.setServer(server);
+        server.start();
+
+        int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        uri = URI.create("http://localhost:" + port + "/sign");
+        return shutdown;
+    }
+
+    private CompletableFuture<HttpResponse<String>> send() {
+        return client.sendAsync(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
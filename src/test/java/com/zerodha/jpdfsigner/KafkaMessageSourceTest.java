@@ -0,0 +1,48 @@
+package com.zerodha.jpdfsigner;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KafkaMessageSourceTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("requests", 0);
+
+    @Test
+    void poll_returnsAtMostMaxAndCommitsOnlyReturnedOffsets() throws Exception {
+        // Arrange
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Collections.singletonList(PARTITION));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        for (int i = 0; i < 3; i++) {
+            consumer.addRecord(new ConsumerRecord<>("requests", 0, i, null, "{\"n\":" + i + "}"));
+        }
+
+        try (KafkaMessageSource source = new KafkaMessageSource(consumer, null, null)) {
+            // Act
+            List<MessageSource.Message> first = source.poll(2, 0);
+            source.commit();
+            Map<TopicPartition, OffsetAndMetadata> afterFirst = consumer.committed(Collections.singleton(PARTITION));
+            List<MessageSource.Message> second = source.poll(2, 0);
+            source.commit();
+
+            // Assert
+            assertEquals(2, first.size());
+            assertEquals("{\"n\":0}", first.get(0).getPayload());
+            assertEquals("requests-0@1", first.get(1).getKey());
+            assertEquals(2, afterFirst.get(PARTITION).offset());
+            assertEquals(1, second.size());
+            assertEquals("{\"n\":2}", second.get(0).getPayload());
+            assertEquals(3, consumer.committed(Collections.singleton(PARTITION)).get(PARTITION).offset());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void writeTo_writesCumulativeBuckets() {
+        // Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(40));
+        histogram.record(TimeUnit.SECONDS.toNanos(20));
+        StringBuilder sb = new StringBuilder();
+
+        // Act
+        histogram.writeTo(sb, "test_seconds");
+
+        // Assert
+        String text = sb.toString();
+        assertEquals(3, histogram.getCount());
+        assertTrue(text.contains("# TYPE test_seconds histogram\n"), text);
+        assertTrue(text.contains("test_seconds_bucket{le=\"0.005\"} 1\n"), text);
+        assertTrue(text.contains("test_seconds_bucket{le=\"0.05\"} 2\n"), text);
+        assertTrue(text.contains("test_seconds_bucket{le=\"10.0\"} 2\n"), text);
+        assertTrue(text.contains("test_seconds_bucket{le=\"+Inf\"} 3\n"), text);
+        assertTrue(text.contains("test_seconds_count 3\n"), text);
+    }
+
+    @Test
+    void metricsRender_includesRegisteredMetrics() {
+        // Arrange
+        Metrics.counter("test_render_total").add(2);
+        Metrics.histogram("test_render_seconds").record(1);
+
+        // Act
+        String text = Metrics.render();
+
+        // Assert
+        assertTrue(text.contains("# TYPE test_render_total counter\ntest_render_total 2\n"), text);
+        assertTrue(text.contains("test_render_seconds_count 1\n"), text);
+    }
+}
@@ -0,0 +1,97 @@
+package com.zerodha.jpdfsigner;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadTestHarness fires concurrent POST requests at a running server and
+ * reports throughput and latency percentiles. It is not run as part of the
+ * test suite; run it with `make loadtest` against a server started with
+ * different server_* settings to compare them.
+ *
+ * Usage: LoadTestHarness url body.json requests concurrency [http1|http2]
+ */
+public class LoadTestHarness {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: LoadTestHarness url body.json requests concurrency [http1|http2]");
+            System.exit(1);
+        }
+
+        URI uri = URI.create(args[0]);
+        byte[] body = Files.readAllBytes(Paths.get(args[1]));
+        int total = Integer.parseInt(args[2]);
+        int concurrency = Integer.parseInt(args[3]);
+        HttpClient.Version version = args.length > 4 && args[4].equals("http2")
+                ? HttpClient.Version.HTTP_2
+                : HttpClient.Version.HTTP_1_1;
+
+        // The client keeps its own executor: the pool's threads all block in
+        // send, so sharing it would leave none to complete the responses.
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong http2 = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        long start = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < total) {
+                    HttpRequest req = HttpRequest.newBuilder(uri)
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                            .build();
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+                        if (resp.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        if (resp.version() == HttpClient.Version.HTTP_2) {
+                            http2.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - t0;
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("requests=%d concurrency=%d version=%s errors=%d http2_responses=%d%n",
+                total, concurrency, version, errors.get(), http2.get());
+        System.out.printf("throughput=%.1f req/s%n", total / (elapsed / 1e9));
+        System.out.printf("latency p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms%n",
+                percentile(latencies, 50), percentile(latencies, 90),
+                percentile(latencies, 99), latencies[total - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(idx, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,157 @@
+package com.zerodha.jpdfsigner;
+
+import io.undertow.Handlers;
+import io.undertow.Undertow;
+import io.undertow.util.Headers;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+/**
+ * A local certificate authority with an OCSP responder and a CRL endpoint
+ * served by Undertow on a random port. It issues a signing certificate whose
+ * AIA and CRL distribution point extensions point at the local server.
+ */
+final class LocalCa implements AutoCloseable {
+
+    private final Undertow server;
+    private final KeyPair caKeys;
+    private final KeyPair signerKeys;
+    private final X509Certificate caCertificate;
+    private final X509Certificate signerCertificate;
+    private final AtomicInteger ocspRequests = new AtomicInteger();
+    private final AtomicInteger crlRequests = new AtomicInteger();
+    private volatile long validityMillis = 86_400_000L;
+
+    LocalCa() throws Exception {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        caKeys = keyGen.generateKeyPair();
+        signerKeys = keyGen.generateKeyPair();
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(Handlers.path()
+                        .addExactPath("/ocsp", exchange -> exchange.getRequestReceiver().receiveFullBytes(
+                                (ex, body) -> {
+                                    ocspRequests.incrementAndGet();
+                                    try {
+                                        ex.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/ocsp-response");
+                                        ex.getResponseSender().send(ByteBuffer.wrap(ocspResponse(new OCSPReq(body))));
+                                    } catch (Exception e) {
+                                        ex.setStatusCode(500);
+                                        ex.endExchange();
+                                    }
+                                }))
+                        .addExactPath("/crl", exchange -> {
+                            crlRequests.incrementAndGet();
+                            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/pkix-crl");
+                            exchange.getResponseSender().send(ByteBuffer.wrap(crl()));
+                        }))
+                .build();
+        server.start();
+
+        Date now = new Date();
+        Date notAfter = new Date(now.getTime() + 86_400_000L);
+        X500Name caName = new X500Name("CN=Local CA,O=ACME");
+        JcaX509v3CertificateBuilder ca = new JcaX509v3CertificateBuilder(caName, BigInteger.ONE, now, notAfter,
+                caName, caKeys.getPublic());
+        ca.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+        caCertificate = new JcaX509CertificateConverter().getCertificate(ca.build(signer()));
+
+        JcaX509v3CertificateBuilder leaf = new JcaX509v3CertificateBuilder(caName, BigInteger.TWO, now, notAfter,
+                new X500Name("CN=LTV Signer,O=ACME"), signerKeys.getPublic());
+        leaf.addExtension(Extension.authorityInfoAccess, false, new AuthorityInformationAccess(
+                AccessDescription.id_ad_ocsp,
+                new GeneralName(GeneralName.uniformResourceIdentifier, url() + "ocsp")));
+        leaf.addExtension(Extension.cRLDistributionPoints, false, new CRLDistPoint(new DistributionPoint[] {
+                new DistributionPoint(new DistributionPointName(new GeneralNames(
+                        new GeneralName(GeneralName.uniformResourceIdentifier, url() + "crl"))), null, null) }));
+        signerCertificate = new JcaX509CertificateConverter().getCertificate(leaf.build(signer()));
+    }
+
+    private ContentSigner signer() throws Exception {
+        return new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.getPrivate());
+    }
+
+    private byte[] ocspResponse(OCSPReq req) throws Exception {
+        Date now = new Date();
+        BasicOCSPRespBuilder builder = new JcaBasicOCSPRespBuilder(caKeys.getPublic(),
+                new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1));
+        for (Req r : req.getRequestList()) {
+            builder.addResponse(r.getCertID(), CertificateStatus.GOOD, now, new Date(now.getTime() + validityMillis));
+        }
+        return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, builder.build(signer(), null, now)).getEncoded();
+    }
+
+    private byte[] crl() {
+        try {
+            Date now = new Date();
+            X509v2CRLBuilder builder = new X509v2CRLBuilder(new JcaX509CertificateHolder(caCertificate).getSubject(), now);
+            builder.setNextUpdate(new Date(now.getTime() + validityMillis));
+            return builder.build(signer()).getEncoded();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String url() {
+        InetSocketAddress address = (InetSocketAddress) server.getListenerInfo().get(0).getAddress();
+        return "http://localhost:" + address.getPort() + "/";
+    }
+
+    KeyPair signerKeys() {
+        return signerKeys;
+    }
+
+    X509Certificate[] chain() {
+        return new X509Certificate[] { signerCertificate, caCertificate };
+    }
+
+    int ocspRequests() {
+        return ocspRequests.get();
+    }
+
+    int crlRequests() {
+        return crlRequests.get();
+    }
+
+    // How long issued OCSP responses and CRLs are valid for.
+    void setValidityMillis(long validityMillis) {
+        this.validityMillis = validityMillis;
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
@@ -0,0 +1,112 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.pdf.PdfReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalFileIOTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void wrap_writesSameBytesInEveryMode() throws Exception {
+        // Arrange: larger than the buffer, written in pieces of all sizes
+        byte[] data = new byte[3 * 4096 + 123];
+        new Random(1).nextBytes(data);
+
+        for (LocalFileIO.OutputMode mode : LocalFileIO.OutputMode.values()) {
+            LocalFileIO io = new LocalFileIO(mode, LocalFileIO.InputMode.MAP, 4096);
+            Path file = dir.resolve(mode + ".bin");
+
+            // Act
+            try (OutputStream out = io.wrap(new FileOutputStream(file.toFile()))) {
+                out.write(data[0]);
+                out.write(data, 1, 10);
+                out.write(data, 11, 5000);
+                out.flush();
+                out.write(data, 5011, data.length - 5011);
+            }
+
+            // Assert
+            assertArrayEquals(data, Files.readAllBytes(file), mode.toString());
+        }
+    }
+
+    @Test
+    void readFully_readsWholeFileInChunks() throws Exception {
+        // Arrange
+        byte[] data = new byte[10_000];
+        new Random(2).nextBytes(data);
+        Path file = dir.resolve("in.bin");
+        Files.write(file, data);
+        LocalFileIO io = new LocalFileIO(LocalFileIO.OutputMode.STREAM, LocalFileIO.InputMode.CHANNEL, 4096);
+
+        // Act & Assert
+        assertArrayEquals(data, io.readFully(file));
+        assertEquals(0, io.readFully(Files.write(dir.resolve("empty.bin"), new byte[0])).length);
+    }
+
+    @Test
+    void openReader_parsesPdfInEveryMode() throws Exception {
+        // Arrange
+        Path file = Files.write(dir.resolve("in.pdf"), TestFixtures.pdf(3));
+
+        for (LocalFileIO.InputMode mode : LocalFileIO.InputMode.values()) {
+            // Act
+            PdfReader reader = new LocalFileIO(LocalFileIO.OutputMode.STREAM, mode, 4096).openReader(file);
+
+            // Assert
+            assertEquals(3, reader.getNumberOfPages(), mode.toString());
+            reader.close();
+        }
+    }
+
+    @Test
+    void channelOutput_isCommittedByAtomicFileWriter() throws Exception {
+        // Arrange
+        Path dest = dir.resolve("out.pdf");
+        byte[] data = new byte[9000];
+        new Random(3).nextBytes(data);
+        AtomicFileWriter writer = new AtomicFileWriter(AtomicFileWriter.Durability.FSYNC, 0, 0,
+                new LocalFileIO(LocalFileIO.OutputMode.CHANNEL, LocalFileIO.InputMode.MAP, 4096));
+
+        // Act
+        AtomicFileWriter.Output output = writer.open(dest);
+        output.stream().write(data);
+        output.commit();
+
+        // Assert
+        assertArrayEquals(data, Files.readAllBytes(dest));
+    }
+
+    @Test
+    void fromConfig_readsModes() {
+        // Arrange
+        Properties config = new Properties();
+        config.setProperty("local_output_io", "Channel");
+        config.setProperty("local_input_io", "channel");
+
+        // Act
+        LocalFileIO io = LocalFileIO.fromConfig(config);
+
+        // Assert
+        assertEquals(LocalFileIO.OutputMode.CHANNEL, io.getOutputMode());
+        assertEquals(LocalFileIO.InputMode.CHANNEL, io.getInputMode());
+        assertEquals(LocalFileIO.OutputMode.BUFFERED, LocalFileIO.fromConfig(new Properties()).getOutputMode());
+
+        config.setProperty("local_output_io", "direct");
+        assertThrows(IllegalArgumentException.class, () -> LocalFileIO.fromConfig(config));
+    }
+}
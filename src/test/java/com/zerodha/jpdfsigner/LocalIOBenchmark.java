@@ -0,0 +1,81 @@
+package com.zerodha.jpdfsigner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * LocalIOBenchmark signs local files in process with every combination of
+ * local_output_io and local_input_io, in each of the given directories, and
+ * reports the mean time per document. Pass a directory on local disk, one on
+ * tmpfs and one on a network volume to see what the I/O costs on each. It is
+ * not run as part of the test suite; run it with `make io-bench`.
+ *
+ * Every combination signs the same input files. A first pass over all of
+ * them is discarded to warm up the JIT.
+ *
+ * Usage: LocalIOBenchmark files pages buffer-kb dir...
+ */
+public class LocalIOBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: LocalIOBenchmark files pages buffer-kb dir...");
+            System.exit(1);
+        }
+
+        int files = Integer.parseInt(args[0]);
+        byte[] pdf = TestFixtures.pdf(Integer.parseInt(args[1]));
+        int bufferSize = Integer.parseInt(args[2]) * 1024;
+        System.out.printf("%d files of %d KiB, %d KiB buffers%n", files, pdf.length / 1024, bufferSize / 1024);
+
+        for (int i = 3; i < args.length; i++) {
+            Path dir = Files.createTempDirectory(Paths.get(args[i]), "io-bench");
+            List<Path> inputs = new ArrayList<>();
+            for (int f = 0; f < files; f++) {
+                inputs.add(Files.write(dir.resolve("in-" + f + ".pdf"), pdf));
+            }
+
+            System.out.println();
+            System.out.println(args[i]);
+            for (boolean report : new boolean[] { false, true }) {
+                for (LocalFileIO.OutputMode output : LocalFileIO.OutputMode.values()) {
+                    for (LocalFileIO.InputMode input : LocalFileIO.InputMode.values()) {
+                        bench(dir, inputs, output, input, bufferSize, report);
+                    }
+                }
+            }
+
+            try (Stream<Path> all = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) all::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void bench(Path dir, List<Path> inputs, LocalFileIO.OutputMode output,
+            LocalFileIO.InputMode input, int bufferSize, boolean report) throws Exception {
+        LocalFileIO io = new LocalFileIO(output, input, bufferSize);
+        OpenPdfSigner app = new OpenPdfSigner();
+        app.setFileIO(io);
+        app.setFileWriter(new AtomicFileWriter(AtomicFileWriter.Durability.NONE, 0, 0, io));
+
+        long start = System.nanoTime();
+        for (Path in : inputs) {
+            Path out = dir.resolve("out-" + in.getFileName());
+            app.sign(TestFixtures.signParams(in.toString(), out.toString()));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (report) {
+            System.out.printf("  output=%-8s input=%-7s %8.3f ms/doc%n",
+                    output.name().toLowerCase(), input.name().toLowerCase(),
+                    elapsed / 1e6 / inputs.size());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.zerodha.jpdfsigner;
+
+import io.undertow.Undertow;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampResponseGenerator;
+import org.bouncycastle.tsp.TimeStampTokenGenerator;
+
+/**
+ * A local stand-in for an RFC 3161 timestamp authority, served by Undertow on
+ * a random port. It can be told to fail so fallback and circuit breaking can
+ * be tested.
+ */
+final class LocalTsa implements AutoCloseable {
+
+    private final Undertow server;
+    private final X509Certificate certificate;
+    private final TimeStampResponseGenerator generator;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong serial = new AtomicLong();
+    private volatile boolean failing;
+
+    LocalTsa() throws Exception {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+        keyGen.initialize(2048);
+        KeyPair keyPair = keyGen.generateKeyPair();
+
+        // A TSA certificate must have the critical timeStamping extended key usage.
+        X500Name name = new X500Name("CN=Local TSA,O=ACME");
+        Date now = new Date();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.TEN, now,
+                new Date(now.getTime() + 86_400_000L), name, keyPair.getPublic());
+        builder.addExtension(Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+        certificate = new JcaX509CertificateConverter().getCertificate(
+                builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+
+        TimeStampTokenGenerator tokens = new TimeStampTokenGenerator(
+                new JcaSimpleSignerInfoGeneratorBuilder().build("SHA256withRSA", keyPair.getPrivate(), certificate),
+                new JcaDigestCalculatorProviderBuilder().build().get(new AlgorithmIdentifier(OIWObjectIdentifiers.idSHA1)),
+                new ASN1ObjectIdentifier("1.2.3.4.1"));
+        tokens.addCertificates(new JcaCertStore(Collections.singletonList(certificate)));
+        generator = new TimeStampResponseGenerator(tokens, TSPAlgorithms.ALLOWED);
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(exchange -> exchange.getRequestReceiver().receiveFullBytes((ex, body) -> {
+                    requests.incrementAndGet();
+                    if (failing) {
+                        ex.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+                        ex.endExchange();
+                        return;
+                    }
+                    try {
+                        byte[] response = generator.generate(new TimeStampRequest(body),
+                                BigInteger.valueOf(serial.incrementAndGet()), new Date()).getEncoded();
+                        ex.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/timestamp-reply");
+                        ex.getResponseSender().send(ByteBuffer.wrap(response));
+                    } catch (Exception e) {
+                        ex.setStatusCode(StatusCodes.BAD_REQUEST);
+                        ex.endExchange();
+                    }
+                }))
+                .build();
+        server.start();
+    }
+
+    String url() {
+        InetSocketAddress address = (InetSocketAddress) server.getListenerInfo().get(0).getAddress();
+        return "http://localhost:" + address.getPort() + "/";
+    }
+
+    X509Certificate certificate() {
+        return certificate;
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
@@ -0,0 +1,130 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ManifestTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void legacyRows_readFilesPasswordAndMode() throws Exception {
+        // Arrange
+        Path file = write("# comment\n"
+                + "a.pdf|a-signed.pdf\n"
+                + "\n"
+                + "b.pdf|b-signed.pdf| secret |encrypt\n"
+                + "skipped\n");
+
+        // Act
+        List<Request> requests = readAll(file);
+
+        // Assert
+        assertEquals(2, requests.size());
+        assertEquals("a.pdf", requests.get(0).getInputFile());
+        assertEquals("a-signed.pdf", requests.get(0).getOutputFile());
+        assertEquals("", requests.get(0).getPassword());
+        assertNull(requests.get(0).getMode());
+        assertEquals(" secret ", requests.get(1).getPassword());
+        assertEquals("encrypt", requests.get(1).getMode());
+    }
+
+    @Test
+    void headeredRows_readPerDocumentParameters() throws Exception {
+        // Arrange
+        Path file = write("input_file|output_file|reason|location|page|x1|y1|x2|y2\n"
+                + "a.pdf|a-signed.pdf|Contract note|Bengaluru, India|2|10|20|110|70\n"
+                + "b.pdf|b-signed.pdf||||||\n");
+
+        // Act
+        List<Request> requests = readAll(file);
+
+        // Assert
+        Request a = requests.get(0);
+        assertEquals("Contract note", a.getReason());
+        assertEquals("Bengaluru, India", a.getLocation());
+        assertEquals(2, a.getPage());
+        assertTrue(a.getCoordinates().isValid());
+        assertEquals(110f, a.getCoordinates().getX2());
+
+        Request b = requests.get(1);
+        assertEquals("b.pdf", b.getInputFile());
+        assertNull(b.getReason());
+        assertNull(b.getPage());
+        assertNull(b.getCoordinates());
+    }
+
+    @Test
+    void json_readsNdjsonAndArrays() throws Exception {
+        // Arrange
+        Path file = write("\n  {\"input_file\":\"a.pdf\",\"output_file\":\"a-signed.pdf\",\"page\":3,"
+                + "\"coordinates\":{\"x1\":1,\"y1\":2,\"x2\":3,\"y2\":4}}\n"
+                + "[{\"input_file\":\"b.pdf\",\"mode\":\"sign+encrypt\",\"password\":\"p\"}]\n");
+
+        // Act
+        List<Request> requests = readAll(file);
+
+        // Assert
+        assertEquals(2, requests.size());
+        assertEquals(3, requests.get(0).getPage());
+        assertTrue(requests.get(0).getCoordinates().isValid());
+        assertEquals("sign+encrypt", requests.get(1).getMode());
+    }
+
+    @Test
+    void invalidEntries_failWithTheLine() throws Exception {
+        // Arrange
+        Path unknown = write("input_file|output_file|signer\n");
+        Path partial = write("input_file|output_file|x1|y1\n\na.pdf|b.pdf|1|2\n");
+        Path page = write("input_file|page\na.pdf|first\n");
+        Path legacy = write("a.pdf|b.pdf\na.pdf|b.pdf|secret|encrypt|extra\n");
+
+        // Act
+        IllegalArgumentException e1 = assertThrows(IllegalArgumentException.class, () -> readAll(unknown));
+        IllegalArgumentException e2 = assertThrows(IllegalArgumentException.class, () -> readAll(partial));
+        IllegalArgumentException e3 = assertThrows(IllegalArgumentException.class, () -> readAll(page));
+        IllegalArgumentException e4 = assertThrows(IllegalArgumentException.class, () -> readAll(legacy));
+
+        // Assert
+        assertTrue(e1.getMessage().contains("line 1: unknown column signer"));
+        assertTrue(e2.getMessage().contains("line 3: x1, y1, x2 and y2 must be given together"));
+        assertTrue(e3.getMessage().contains("line 2: invalid page first"));
+        assertTrue(e4.getMessage().contains("line 2: 5 fields but at most 4"));
+    }
+
+    @Test
+    void iterator_canOnlyBeTakenOnce() throws Exception {
+        // Arrange
+        Path file = write("a.pdf|b.pdf\n");
+
+        // Act & Assert
+        try (Manifest manifest = Manifest.open(file.toString())) {
+            manifest.iterator();
+            assertThrows(IllegalStateException.class, manifest::iterator);
+        }
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.writeString(Files.createTempFile(dir, "manifest", ".csv"), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<Request> readAll(Path file) throws Exception {
+        List<Request> requests = new ArrayList<>();
+        try (Manifest manifest = Manifest.open(file.toString())) {
+            manifest.forEach(requests::add);
+        }
+        return requests;
+    }
+}
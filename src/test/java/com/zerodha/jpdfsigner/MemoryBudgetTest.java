@@ -0,0 +1,112 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MemoryBudgetTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void reserve_withinBudget_reservesEstimateUntilClosed() throws Exception {
+        // Arrange
+        MemoryBudget budget = new MemoryBudget(100 * MB, 2, 1000);
+
+        // Act
+        MemoryBudget.Reservation reservation = budget.reserve(10 * MB);
+
+        // Assert
+        assertEquals(MemoryBudget.BASE_COST + 20 * MB, reservation.bytes());
+        assertEquals(100 * MB - reservation.bytes(), budget.available());
+
+        reservation.close();
+        reservation.close();
+        assertEquals(100 * MB, budget.available());
+    }
+
+    @Test
+    void reserve_spilled_usesSpilledCostFactor() throws Exception {
+        // Arrange
+        MemoryBudget budget = new MemoryBudget(100 * MB, 4, 0.5, 1000);
+
+        // Act
+        try (MemoryBudget.Reservation reservation = budget.reserve(20 * MB, true)) {
+            // Assert
+            assertEquals(MemoryBudget.BASE_COST + 10 * MB, reservation.bytes());
+        }
+    }
+
+    @Test
+    void reserve_largerThanBudget_isCappedToWholeBudget() throws Exception {
+        // Arrange
+        MemoryBudget budget = new MemoryBudget(10 * MB, 4, 1000);
+
+        // Act
+        try (MemoryBudget.Reservation reservation = budget.reserve(200 * MB)) {
+            // Assert
+            assertEquals(10 * MB, reservation.bytes());
+            assertEquals(0, budget.available());
+        }
+    }
+
+    @Test
+    void reserve_budgetExhausted_timesOut() throws Exception {
+        // Arrange
+        MemoryBudget budget = new MemoryBudget(10 * MB, 1, 50);
+
+        try (MemoryBudget.Reservation held = budget.reserve(8 * MB)) {
+            // Act & Assert
+            assertThrows(MemoryBudget.AdmissionTimeoutException.class, () -> budget.reserve(2 * MB));
+        }
+    }
+
+    @Test
+    void reserve_largeWaiter_isNotOvertakenBySmallerOnes() throws Exception {
+        // Arrange
+        MemoryBudget budget = new MemoryBudget(10 * MB, 1, 5000);
+        MemoryBudget.Reservation held = budget.reserve(7 * MB);
+
+        CompletableFuture<MemoryBudget.Reservation> large = CompletableFuture.supplyAsync(() -> reserve(budget, 5 * MB));
+        // Give the large reservation time to queue.
+        Thread.sleep(100);
+        assertFalse(large.isDone());
+        CompletableFuture<MemoryBudget.Reservation> small = CompletableFuture.supplyAsync(() -> reserve(budget, 0));
+
+        // Act
+        Thread.sleep(100);
+        boolean smallAdmittedEarly = small.isDone();
+        held.close();
+
+        // Assert
+        assertFalse(smallAdmittedEarly);
+        large.get(5, TimeUnit.SECONDS).close();
+        small.get(5, TimeUnit.SECONDS).close();
+        assertEquals(10 * MB, budget.available());
+    }
+
+    @Test
+    void fromConfig_zeroBudget_returnsNull() {
+        // Arrange
+        Properties config = new Properties();
+        config.setProperty("memory_budget_mb", "0");
+
+        // Act & Assert
+        assertNull(MemoryBudget.fromConfig(config));
+    }
+
+    private static MemoryBudget.Reservation reserve(MemoryBudget budget, long bytes) {
+        try {
+            return budget.reserve(bytes);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
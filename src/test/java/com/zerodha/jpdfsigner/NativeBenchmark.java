@@ -0,0 +1,110 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * NativeBenchmark signs a directory of synthetic PDFs with the CLI, once with
+ * the jar on the JVM and once with the native image, and reports the wall time
+ * and peak RSS of each run for a small and a large batch. It is not run as part
+ * of the test suite; run it with `make native-bench` after `make native`.
+ *
+ * The config is copied to a temp directory with the server and consumer turned
+ * off, and a relative keyfile is resolved against the config's directory.
+ *
+ * Usage: NativeBenchmark jar config.ini small large [native-binary]
+ */
+public class NativeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: NativeBenchmark jar config.ini small large [native-binary]");
+            System.exit(1);
+        }
+
+        String jar = Paths.get(args[0]).toAbsolutePath().toString();
+        Path configFile = Paths.get(args[1]).toAbsolutePath();
+        int[] batches = { Integer.parseInt(args[2]), Integer.parseInt(args[3]) };
+        String binary = args.length > 4 ? Paths.get(args[4]).toAbsolutePath().toString() : null;
+
+        Properties config = new Properties();
+        try (InputStream in = new FileInputStream(configFile.toFile())) {
+            config.load(in);
+        }
+        config.setProperty("server", "false");
+        config.setProperty("consumer", "false");
+        config.setProperty("keyfile",
+                configFile.getParent().resolve(config.getProperty("keyfile")).toString());
+
+        Path dir = Files.createTempDirectory("native-bench");
+        try (OutputStream out = new FileOutputStream(dir.resolve("config.ini").toFile())) {
+            config.store(out, null);
+        }
+
+        byte[] pdf = TestFixtures.pdf(3);
+        for (int files : batches) {
+            Path in = Files.createDirectories(dir.resolve("in-" + files));
+            for (int i = 0; i < files; i++) {
+                Files.write(in.resolve("doc-" + i + ".pdf"), pdf);
+            }
+
+            run("jvm", files, dir, in, "java", "-jar", jar);
+            if (binary != null) {
+                run("native", files, dir, in, binary);
+            }
+        }
+    }
+
+    private static void run(String name, int files, Path dir, Path in, String... command) throws Exception {
+        Path out = dir.resolve("out-" + name + "-" + files);
+        Files.createDirectories(out);
+
+        List<String> cmd = new ArrayList<>(Arrays.asList(command));
+        cmd.add(in.toString());
+        cmd.add(out.toString());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(cmd)
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(new File(dir.toFile(), name + ".log"))
+                .start();
+
+        // VmHWM is the process's peak RSS so far; the last value read before
+        // it exits is its peak.
+        long peakKb = 0;
+        Path status = Paths.get("/proc", String.valueOf(process.pid()), "status");
+        while (process.isAlive()) {
+            peakKb = Math.max(peakKb, peakRss(status));
+            Thread.sleep(10);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s files=%d exit=%d time=%.0fms peak_rss=%.1fMB%n",
+                name, files, process.exitValue(), elapsed / 1e6, peakKb / 1024.0);
+    }
+
+    private static long peakRss(Path status) {
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // The process exited between the checks.
+        }
+        return 0;
+    }
+}
@@ -3,6 +3,14 @@ package com.zerodha.jpdfsigner;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.Font;
 import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PRStream;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfIndirectReference;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.tsp.TimeStampToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,15 +22,27 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Properties;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -93,6 +113,533 @@ class OpenPdfSignerSignTest {
         });
     }
 
+    @Test
+    void sign_withLocalPaths_producesValidSignature() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(2));
+
+        // Act
+        openPdfSigner.sign(TestFixtures.signParams(src.toString(), dest.toString()));
+
+        // Assert
+        assertTrue(TestFixtures.signaturesValid(Files.readAllBytes(dest), null));
+    }
+
+    @Test
+    void sign_withMemoryBackend_readsAndWritesThroughStorage() throws Exception {
+        // Arrange
+        MemoryStorageBackend memory = new MemoryStorageBackend();
+        memory.put("mem://in.pdf", TestFixtures.pdf(2));
+        openPdfSigner.getStorage().register("mem", memory);
+
+        // Act
+        openPdfSigner.sign(TestFixtures.signParams("mem://in.pdf", "mem://out.pdf"));
+
+        // Assert
+        assertTrue(TestFixtures.signaturesValid(memory.get("mem://out.pdf"), null));
+    }
+
+    @Test
+    void sign_unchangedInput_skipsBeforePreflightReads() throws Exception {
+        // Arrange: a backend whose output is always up to date
+        MemoryStorageBackend memory = new MemoryStorageBackend() {
+            @Override
+            public ObjectInfo stat(String path) {
+                return new ObjectInfo(4096, "\"v1\"");
+            }
+
+            @Override
+            public byte[] readRange(String path, long offset, int length, String version) {
+                throw new AssertionError("Preflight read " + path);
+            }
+
+            @Override
+            public boolean isSkipUnchanged() {
+                return true;
+            }
+
+            @Override
+            public boolean isUpToDate(String sourceVersion, String dest) {
+                return sourceVersion.equals("\"v1\"");
+            }
+        };
+        openPdfSigner.getStorage().register("mem", memory);
+
+        // Act
+        openPdfSigner.sign(TestFixtures.signParams("mem://in.pdf", "mem://out.pdf"));
+
+        // Assert
+        assertNull(memory.get("mem://out.pdf"));
+    }
+
+    @Test
+    void sign_withUnknownScheme_throwsException() {
+        assertThrows(IllegalStateException.class,
+                () -> openPdfSigner.sign(TestFixtures.signParams("gs://bucket/in.pdf", "gs://bucket/out.pdf")));
+    }
+
+    @Test
+    void sign_withMemoryBudget_releasesReservationAfterSign() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(2));
+        MemoryBudget budget = new MemoryBudget(16 * 1024 * 1024, 4, 1000);
+        openPdfSigner.setMemoryBudget(budget);
+
+        // Act
+        openPdfSigner.sign(TestFixtures.signParams(src.toString(), dest.toString()));
+
+        // Assert
+        assertTrue(TestFixtures.signaturesValid(Files.readAllBytes(dest), null));
+        assertEquals(budget.capacity(), budget.available());
+    }
+
+    @Test
+    void sign_aboveSpillThreshold_readsInputThroughMemoryMap() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(3));
+        openPdfSigner.setSpill(0, tempDir);
+        SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+        params.setPassword("secret");
+
+        // Act
+        openPdfSigner.sign(params);
+
+        // Assert
+        byte[] signed = Files.readAllBytes(dest);
+        assertTrue(TestFixtures.signaturesValid(signed, "secret".getBytes()));
+        assertEquals(3, new PdfReader(signed, "secret".getBytes()).getNumberOfPages());
+    }
+
+    @Test
+    void sign_s3AboveSpillThreshold_spillsToTempFilesAndCleansUp() throws Exception {
+        // Arrange
+        Path spillDir = Files.createDirectory(tempDir.resolve("spill"));
+        byte[] input = TestFixtures.pdf(2);
+        byte[][] uploaded = new byte[1][];
+        S3Handler handler = mock(S3Handler.class);
+        doAnswer(inv -> Files.write(inv.getArgument(2), input))
+                .when(handler).downloadToFile(eq("s3://bucket/in.pdf"), any(), any(Path.class));
+        doAnswer(inv -> uploaded[0] = Files.readAllBytes(inv.getArgument(0)))
+                .when(handler).uploadFileToS3(any(Path.class), eq("s3://bucket/out.pdf"), any());
+
+        openPdfSigner.setS3Handler(handler);
+        openPdfSigner.setPreflight(false);
+        openPdfSigner.setSpill(0, spillDir);
+
+        // Act
+        openPdfSigner.sign(TestFixtures.signParams("s3://bucket/in.pdf", "s3://bucket/out.pdf"));
+
+        // Assert
+        assertTrue(TestFixtures.signaturesValid(uploaded[0], null));
+        verify(handler, never()).getInputStreamFromS3(any(), any());
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sign_s3SpillUploadFails_deletesTempFiles() throws Exception {
+        // Arrange
+        Path spillDir = Files.createDirectory(tempDir.resolve("spill"));
+        byte[] input = TestFixtures.pdf(1);
+        S3Handler handler = mock(S3Handler.class);
+        doAnswer(inv -> Files.write(inv.getArgument(2), input))
+                .when(handler).downloadToFile(eq("s3://bucket/in.pdf"), any(), any(Path.class));
+        doThrow(new RuntimeException("upload failed"))
+                .when(handler).uploadFileToS3(any(Path.class), eq("s3://bucket/out.pdf"), any());
+
+        openPdfSigner.setS3Handler(handler);
+        openPdfSigner.setPreflight(false);
+        openPdfSigner.setSpill(0, spillDir);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> openPdfSigner.sign(
+                TestFixtures.signParams("s3://bucket/in.pdf", "s3://bucket/out.pdf")));
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sign_s3UploadFails_throwsException() throws Exception {
+        // Arrange
+        S3Handler handler = mock(S3Handler.class);
+        when(handler.getBytesFromS3(eq("s3://bucket/in.pdf"), any())).thenReturn(TestFixtures.pdf(1));
+        doThrow(new RuntimeException("upload failed"))
+                .when(handler).uploadToS3(any(), anyLong(), eq("s3://bucket/out.pdf"), any());
+
+        openPdfSigner.setS3Handler(handler);
+        openPdfSigner.setPreflight(false);
+
+        // Act & Assert
+        IOException e = assertThrows(IOException.class, () -> openPdfSigner.sign(
+                TestFixtures.signParams("s3://bucket/in.pdf", "s3://bucket/out.pdf")));
+        assertEquals("upload failed", e.getCause().getMessage());
+    }
+
+    @Test
+    void sign_remoteOutputSignFails_storesNothing() throws Exception {
+        // Arrange
+        MemoryStorageBackend memory = new MemoryStorageBackend();
+        memory.put("mem://in.pdf", TestFixtures.pdf(1));
+        openPdfSigner.getStorage().register("mem", memory);
+        openPdfSigner.setPreflight(false);
+        SignParams params = TestFixtures.signParams("mem://in.pdf", "mem://out.pdf");
+        params.setPage(5);
+
+        // Act & Assert
+        assertThrows(PreflightException.class, () -> openPdfSigner.sign(params));
+        assertNull(memory.get("mem://out.pdf"));
+    }
+
+    @Test
+    void sign_localOutputFails_keepsExistingOutputAndNoTempFile() throws Exception {
+        // Arrange
+        Path outDir = Files.createDirectory(tempDir.resolve("out"));
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = outDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        Files.write(dest, "previous".getBytes());
+        SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+        params.setPage(5);
+        openPdfSigner.setPreflight(false);
+
+        // Act & Assert
+        assertThrows(PreflightException.class, () -> openPdfSigner.sign(params));
+        assertEquals("previous", new String(Files.readAllBytes(dest)));
+        try (Stream<Path> files = Files.list(outDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void sign_encryptMode_encryptsWithoutSignature() throws Exception {
+        // Arrange: page 5 would be out of range if a signature were placed
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+        params.setPage(5);
+        params.setPassword("secret");
+        params.setMode(SignParams.Mode.ENCRYPT);
+
+        // Act
+        openPdfSigner.sign(params);
+
+        // Assert
+        PdfReader reader = new PdfReader(Files.readAllBytes(dest), "secret".getBytes());
+        assertTrue(reader.isEncrypted());
+        assertTrue(reader.getAcroFields().getSignatureNames().isEmpty());
+        assertEquals(1, reader.getNumberOfPages());
+    }
+
+    @Test
+    void sign_signEncryptMode_appliesConfiguredEncryption() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        Properties encryption = new Properties();
+        encryption.setProperty("encryption_permissions", "copy");
+        encryption.setProperty("encryption_owner_password", "owner");
+        openPdfSigner.setEncryption(EncryptionConfig.fromConfig(encryption));
+        SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+        params.setPassword("secret");
+        params.setMode(SignParams.Mode.SIGN_ENCRYPT);
+
+        // Act
+        openPdfSigner.sign(params);
+
+        // Assert
+        byte[] signed = Files.readAllBytes(dest);
+        assertTrue(TestFixtures.signaturesValid(signed, "secret".getBytes()));
+        PdfReader reader = new PdfReader(signed, "secret".getBytes());
+        assertEquals(PdfWriter.ALLOW_COPY, reader.getPermissions() & PdfWriter.ALLOW_COPY);
+        assertEquals(0, reader.getPermissions() & PdfWriter.ALLOW_PRINTING);
+        assertEquals(1, new PdfReader(signed, "owner".getBytes()).getNumberOfPages());
+    }
+
+    @Test
+    void sign_modeNotMatchingPassword_throwsInvalidMode() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams sign = TestFixtures.signParams(src.toString(), tempDir.resolve("a.pdf").toString());
+        sign.setPassword("secret");
+        sign.setMode(SignParams.Mode.SIGN);
+        SignParams encrypt = TestFixtures.signParams(src.toString(), tempDir.resolve("b.pdf").toString());
+        encrypt.setMode(SignParams.Mode.ENCRYPT);
+
+        // Act & Assert
+        assertEquals(PreflightException.Code.INVALID_MODE,
+                assertThrows(PreflightException.class, () -> openPdfSigner.sign(sign)).getCode());
+        assertEquals(PreflightException.Code.INVALID_MODE,
+                assertThrows(PreflightException.class, () -> openPdfSigner.sign(encrypt)).getCode());
+        assertFalse(Files.exists(tempDir.resolve("a.pdf")));
+    }
+
+    @Test
+    void sign_withFsync_writesValidSignedPdf() throws Exception {
+        // Arrange: PdfStamper closes the output stream before commit syncs it
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(2));
+        openPdfSigner.setFileWriter(new AtomicFileWriter(AtomicFileWriter.Durability.FSYNC, 0, 0));
+
+        // Act
+        openPdfSigner.sign(TestFixtures.signParams(src.toString(), dest.toString()));
+
+        // Assert
+        assertTrue(TestFixtures.signaturesValid(Files.readAllBytes(dest), null));
+    }
+
+    @Test
+    void sign_withFsyncAndChannelIO_writesValidSignedPdf() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(2));
+        LocalFileIO io = new LocalFileIO(LocalFileIO.OutputMode.CHANNEL, LocalFileIO.InputMode.CHANNEL, 4096);
+        openPdfSigner.setFileIO(io);
+        openPdfSigner.setFileWriter(new AtomicFileWriter(AtomicFileWriter.Durability.FSYNC, 0, 0, io));
+
+        // Act
+        openPdfSigner.sign(TestFixtures.signParams(src.toString(), dest.toString()));
+
+        // Assert
+        assertTrue(TestFixtures.signaturesValid(Files.readAllBytes(dest), null));
+    }
+
+    @Test
+    void sign_withMultiplePlacements_stampsSharedAppearanceInOnePass() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(3));
+
+        SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+        params.setPlacements(Arrays.asList(
+                new SignaturePlacement(1, new Rectangle(0, 609, 278, 550)),
+                new SignaturePlacement(SignaturePlacement.ALL_PAGES, new Rectangle(10, 10, 149, 40))));
+
+        // Act
+        openPdfSigner.sign(params);
+
+        // Assert
+        byte[] signed = Files.readAllBytes(dest);
+        assertTrue(TestFixtures.signaturesValid(signed, null));
+
+        PdfReader reader = new PdfReader(signed);
+        assertEquals(1, reader.getAcroFields().getSignatureNames().size());
+
+        // Pages 1 to 3 each draw the same appearance XObject once.
+        PdfIndirectReference shared = null;
+        for (int page = 1; page <= 3; page++) {
+            PdfDictionary xobjects = reader.getPageN(page)
+                    .getAsDict(PdfName.RESOURCES)
+                    .getAsDict(PdfName.XOBJECT);
+            assertNotNull(xobjects, "page " + page);
+            assertEquals(1, xobjects.size(), "page " + page);
+            PdfIndirectReference ref = (PdfIndirectReference) xobjects.get(xobjects.getKeys().iterator().next());
+            if (shared == null) {
+                shared = ref;
+            }
+            assertEquals(shared.getNumber(), ref.getNumber(), "page " + page);
+        }
+    }
+
+    @Test
+    void sign_withAppearanceTemplate_drawsTemplateInSignatureWidget() throws Exception {
+        // Arrange: the second sign imports from the cached, already parsed template
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        AppearanceTemplate appearance = new AppearanceTemplate(
+                "Signed by {signer}\nReason: {reason}", null, true, new Font(Font.HELVETICA, 9));
+
+        for (String out : new String[] { "first.pdf", "second.pdf" }) {
+            Path dest = tempDir.resolve(out);
+            SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+            params.setAppearance(appearance);
+
+            // Act
+            openPdfSigner.sign(params);
+
+            // Assert
+            byte[] signed = Files.readAllBytes(dest);
+            assertTrue(TestFixtures.signaturesValid(signed, null));
+
+            // Layer 2 of the widget appearance draws the imported template.
+            PdfReader reader = new PdfReader(signed);
+            String name = reader.getAcroFields().getSignatureNames().get(0);
+            PdfDictionary widget = reader.getAcroFields().getFieldItem(name).getWidget(0);
+            PdfDictionary normal = (PdfDictionary) PdfReader.getPdfObject(
+                    widget.getAsDict(PdfName.AP).get(PdfName.N));
+            PdfDictionary frm = (PdfDictionary) PdfReader.getPdfObject(
+                    normal.getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT).get(new PdfName("FRM")));
+            PdfDictionary n2 = (PdfDictionary) PdfReader.getPdfObject(
+                    frm.getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT).get(new PdfName("n2")));
+            PdfDictionary imported = n2.getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            assertNotNull(imported);
+            PRStream page = (PRStream) PdfReader.getPdfObject(imported.get(imported.getKeys().iterator().next()));
+            assertTrue(PdfReader.getStreamBytes(page).length > 0);
+        }
+    }
+
+    @Test
+    void sign_withTsaClient_embedsTimestamp() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+
+        try (LocalTsa tsa = new LocalTsa()) {
+            Properties config = new Properties();
+            config.setProperty("tsa_urls", tsa.url());
+            openPdfSigner.setTsaClient(TsaClient.fromConfig(config));
+
+            SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+            params.setPassword("secret");
+
+            // Act
+            openPdfSigner.sign(params);
+
+            // Assert
+            byte[] signed = Files.readAllBytes(dest);
+            assertTrue(TestFixtures.signaturesValid(signed, "secret".getBytes()));
+            TimeStampToken token = TestFixtures.timestampToken(signed, "secret".getBytes());
+            assertNotNull(token);
+            token.validate(new JcaSimpleSignerInfoVerifierBuilder().build(tsa.certificate()));
+        }
+    }
+
+    @Test
+    void sign_withTooSmallTokenEstimate_reportsReservedSizes() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+
+        try (LocalTsa tsa = new LocalTsa()) {
+            Properties config = new Properties();
+            config.setProperty("tsa_urls", tsa.url());
+            config.setProperty("tsa_token_size_estimate", "1");
+            openPdfSigner.setTsaClient(TsaClient.fromConfig(config));
+
+            // A 4096-bit signature value no longer fits in the overhead's slack.
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(4096);
+            SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+            params.setKey(generator.generateKeyPair().getPrivate());
+
+            // Act
+            IOException e = assertThrows(IOException.class, () -> openPdfSigner.sign(params));
+
+            // Assert
+            assertTrue(e.getMessage().contains("1 timestamp token). Increase tsa_token_size_estimate"),
+                    e.getMessage());
+            assertFalse(Files.exists(dest));
+        }
+    }
+
+    @Test
+    void sign_withTsaUnavailable_throwsException() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+
+        try (LocalTsa tsa = new LocalTsa()) {
+            tsa.setFailing(true);
+            Properties config = new Properties();
+            config.setProperty("tsa_urls", tsa.url());
+            openPdfSigner.setTsaClient(TsaClient.fromConfig(config));
+            SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+
+            // Act & Assert
+            IOException e = assertThrows(IOException.class, () -> openPdfSigner.sign(params));
+            assertTrue(e.getMessage().startsWith("Failed to timestamp signature"), e.getMessage());
+        }
+    }
+
+    @Test
+    void sign_withRevocationCache_embedsDssAndOcsp() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+
+        try (LocalCa ca = new LocalCa()) {
+            RevocationCache cache = new RevocationCache(ca.chain(), null, 3_600_000, Duration.ofSeconds(5));
+            cache.start();
+            openPdfSigner.setRevocationCache(cache);
+
+            SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+            params.setKey(ca.signerKeys().getPrivate());
+            params.setChain(ca.chain());
+
+            // Act
+            openPdfSigner.sign(params);
+            openPdfSigner.sign(params);
+            cache.close();
+
+            // Assert
+            byte[] signed = Files.readAllBytes(dest);
+            assertTrue(TestFixtures.signaturesValid(signed, null, ca.chain()[0]));
+
+            PdfDictionary dss = new PdfReader(signed).getCatalog().getAsDict(new PdfName("DSS"));
+            assertNotNull(dss);
+            assertEquals(2, dss.getAsArray(new PdfName("Certs")).size());
+            assertEquals(1, dss.getAsArray(new PdfName("OCSPs")).size());
+            assertEquals(1, dss.getAsArray(new PdfName("CRLs")).size());
+
+            // Revocation data is fetched once, not per sign.
+            assertEquals(1, ca.ocspRequests());
+            assertEquals(1, ca.crlRequests());
+        }
+    }
+
+    @Test
+    void sign_withPageOutOfRange_throwsException() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+        params.setPlacements(Collections.singletonList(
+                new SignaturePlacement(2, new Rectangle(0, 0, 100, 100))));
+
+        // Act
+        PreflightException e = assertThrows(PreflightException.class, () -> {
+            openPdfSigner.sign(params);
+        });
+
+        // Assert
+        assertEquals(PreflightException.Code.PAGE_OUT_OF_RANGE, e.getCode());
+        assertFalse(Files.exists(tempDir.resolve("out.pdf")));
+    }
+
+    @Test
+    void sign_withPreflightDisabledAndPageOutOfRange_stillThrowsPreflightException() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+        params.setPage(3);
+        openPdfSigner.setPreflight(false);
+
+        // Act
+        PreflightException e = assertThrows(PreflightException.class, () -> {
+            openPdfSigner.sign(params);
+        });
+
+        // Assert
+        assertEquals(PreflightException.Code.PAGE_OUT_OF_RANGE, e.getCode());
+    }
+
     // @Test
     // void sign_withS3SourceAndS3Handler_usesS3Handler() throws IOException, DocumentException {
     //     // Arrange
@@ -1,5 +1,7 @@
 package com.zerodha.jpdfsigner;
 
+import com.lowagie.text.Rectangle;
+import io.undertow.Undertow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,12 +11,22 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class OpenPdfSignerTest {
@@ -31,6 +43,25 @@ class OpenPdfSignerTest {
         config = new Properties();
     }
 
+    @Test
+    void resolvePlacements_duplicatePageAndRect_stampsOnce() {
+        // Arrange: the default page and rect again, flipped, plus page 2
+        SignParams params = new SignParams();
+        params.setPlacements(Arrays.asList(
+                new SignaturePlacement(1, new Rectangle(0, 550, 278, 609)),
+                new SignaturePlacement(1, new Rectangle(278, 609, 0, 550)),
+                new SignaturePlacement(SignaturePlacement.ALL_PAGES, new Rectangle(0, 550, 278, 609))));
+        List<Integer> pages = new ArrayList<>();
+        List<Rectangle> rects = new ArrayList<>();
+
+        // Act
+        OpenPdfSigner.resolvePlacements(params, 2, pages, rects);
+
+        // Assert
+        assertEquals(Arrays.asList(1, 2), pages);
+        assertEquals(2, rects.size());
+    }
+
     @Test
     void initializeS3Handler_whenS3Disabled_returnsNull() {
         // Arrange
@@ -81,6 +112,63 @@ class OpenPdfSignerTest {
         assertEquals(handler, openPdfSigner.getS3Handler());
     }
 
+    @Test
+    void getListFromS3_splitsPasswordAndTargetName() {
+        // Arrange
+        S3Handler handler = mock(S3Handler.class);
+        when(handler.listPdfObjects("s3://bucket/in/")).thenReturn(
+                Arrays.asList("s3://bucket/in/PASS_a.pdf", "s3://bucket/in/b.pdf"));
+        openPdfSigner.setS3Handler(handler);
+
+        // Act
+        List<String[]> entries = new ArrayList<>();
+        openPdfSigner.getListFromS3("s3://bucket/in/", "s3://bucket/out/").forEach(entries::add);
+
+        // Assert
+        assertEquals(2, entries.size());
+        assertArrayEquals(new String[] { "s3://bucket/in/PASS_a.pdf", "s3://bucket/out/a.pdf", "PASS" },
+                entries.get(0));
+        assertArrayEquals(new String[] { "s3://bucket/in/b.pdf", "s3://bucket/out/b.pdf", "" },
+                entries.get(1));
+    }
+
+    @Test
+    void getListFromS3_withoutHandler_throwsException() {
+        assertThrows(IllegalStateException.class, () -> {
+            openPdfSigner.getListFromS3("s3://bucket/in/", "/tmp/out");
+        });
+    }
+
+    @Test
+    void createServerBuilder_withHttp2_negotiatesH2c() throws Exception {
+        // Arrange
+        config.setProperty("server_port", "0");
+        config.setProperty("server_host", "localhost");
+        config.setProperty("server_io_threads", "1");
+        config.setProperty("server_worker_threads", "2");
+        config.setProperty("server_http2", "true");
+        Undertow server = OpenPdfSigner.createServerBuilder(config)
+                .setHandler(exchange -> exchange.getResponseSender().send("ok"))
+                .build();
+        server.start();
+
+        try {
+            int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+
+            // Act
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            // Assert
+            assertEquals(200, response.statusCode());
+            assertEquals(HttpClient.Version.HTTP_2, response.version());
+        } finally {
+            server.stop();
+        }
+    }
+
     @Test
     void initializeSignatureConfig_withValidConfig_returnsConfig() throws IOException, GeneralSecurityException {
         // This test requires a valid keystore file
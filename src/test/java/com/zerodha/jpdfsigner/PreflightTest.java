@@ -0,0 +1,195 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PreflightTest {
+
+    @Mock
+    private S3Handler s3Handler;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void check_validLocalPdf_passes() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(2));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+        params.setPage(2);
+
+        // Act
+        StorageBackend.ObjectInfo info = Preflight.check(params, storage(null));
+
+        // Assert
+        assertNull(info);
+    }
+
+    @Test
+    void check_missingOutput_throwsMissingPath() throws Exception {
+        // Arrange
+        SignParams params = TestFixtures.signParams("in.pdf", " ");
+
+        // Act & Assert
+        assertCode(PreflightException.Code.MISSING_PATH, params, null);
+    }
+
+    @Test
+    void check_missingLocalInput_throwsInputNotFound() throws Exception {
+        // Arrange
+        SignParams params = TestFixtures.signParams(tempDir.resolve("missing.pdf").toString(),
+                tempDir.resolve("out.pdf").toString());
+
+        // Act & Assert
+        assertCode(PreflightException.Code.INPUT_NOT_FOUND, params, null);
+    }
+
+    @Test
+    void check_nonPdfInput_throwsNotPdf() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, "<html></html>".getBytes(StandardCharsets.US_ASCII));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+
+        // Act & Assert
+        assertCode(PreflightException.Code.NOT_PDF, params, null);
+    }
+
+    @Test
+    void check_truncatedPdf_throwsNotPdf() throws Exception {
+        // Arrange
+        byte[] pdf = TestFixtures.pdf(1);
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, Arrays.copyOf(pdf, pdf.length / 2));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+
+        // Act & Assert
+        assertCode(PreflightException.Code.NOT_PDF, params, null);
+    }
+
+    @Test
+    void check_corruptPdf_throwsInvalidPdf() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, "%PDF-1.4\ngarbage\n%%EOF\n".getBytes(StandardCharsets.US_ASCII));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+
+        // Act & Assert
+        assertCode(PreflightException.Code.INVALID_PDF, params, null);
+    }
+
+    @Test
+    void check_pageOutOfRange_throwsPageOutOfRange() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("out.pdf").toString());
+        params.setPage(2);
+
+        // Act & Assert
+        assertCode(PreflightException.Code.PAGE_OUT_OF_RANGE, params, null);
+    }
+
+    @Test
+    void check_outputInMissingDirectory_throwsOutputNotWritable() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), tempDir.resolve("missing/out.pdf").toString());
+
+        // Act & Assert
+        assertCode(PreflightException.Code.OUTPUT_NOT_WRITABLE, params, null);
+    }
+
+    @Test
+    void check_outputSameAsInput_throwsOutputNotWritable() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), src.toString());
+
+        // Act & Assert
+        assertCode(PreflightException.Code.OUTPUT_NOT_WRITABLE, params, null);
+    }
+
+    @Test
+    void check_invalidS3Output_throwsInvalidS3Path() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), "s3://Invalid_Bucket/out.pdf");
+
+        // Act & Assert
+        assertCode(PreflightException.Code.INVALID_S3_PATH, params, s3Handler);
+    }
+
+    @Test
+    void check_missingS3Input_throwsInputNotFound() throws Exception {
+        // Arrange
+        SignParams params = TestFixtures.signParams("s3://bucket/in.pdf", "s3://bucket/out.pdf");
+        when(s3Handler.headObject("s3://bucket/in.pdf")).thenReturn(null);
+
+        // Act & Assert
+        assertCode(PreflightException.Code.INPUT_NOT_FOUND, params, s3Handler);
+        verify(s3Handler, never()).getRange(anyString(), anyString(), any());
+    }
+
+    @Test
+    void check_validS3Input_probesHeaderAndTrailerPinnedToETag() throws Exception {
+        // Arrange
+        byte[] pdf = TestFixtures.pdf(20);
+        SignParams params = TestFixtures.signParams("s3://bucket/in.pdf", "s3://bucket/out.pdf");
+        HeadObjectResponse head = HeadObjectResponse.builder().eTag("\"etag\"").contentLength((long) pdf.length)
+                .build();
+        when(s3Handler.headObject("s3://bucket/in.pdf")).thenReturn(head);
+        when(s3Handler.getRange("s3://bucket/in.pdf", "bytes=0-1023", "\"etag\""))
+                .thenReturn(Arrays.copyOf(pdf, Preflight.PROBE_SIZE));
+        when(s3Handler.getRange("s3://bucket/in.pdf",
+                "bytes=" + (pdf.length - 1024) + "-" + (pdf.length - 1), "\"etag\""))
+                .thenReturn(Arrays.copyOfRange(pdf, pdf.length - Preflight.PROBE_SIZE, pdf.length));
+
+        // Act
+        StorageBackend.ObjectInfo info = Preflight.check(params, storage(s3Handler));
+
+        // Assert
+        assertEquals(pdf.length, info.getSize());
+        assertEquals("\"etag\"", info.getVersion());
+        verify(s3Handler).getRange(eq("s3://bucket/in.pdf"),
+                eq("bytes=" + (pdf.length - 1024) + "-" + (pdf.length - 1)), eq("\"etag\""));
+    }
+
+    private static Storage storage(S3Handler handler) {
+        Storage storage = new Storage();
+        if (handler != null) {
+            storage.register("s3", new S3StorageBackend(handler));
+        }
+        return storage;
+    }
+
+    private void assertCode(PreflightException.Code code, SignParams params, S3Handler handler) {
+        Storage storage = storage(handler);
+        PreflightException e = assertThrows(PreflightException.class, () -> Preflight.check(params, storage));
+        assertEquals(code, e.getCode());
+    }
+}
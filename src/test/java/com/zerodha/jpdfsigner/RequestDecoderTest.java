@@ -0,0 +1,141 @@
+package com.zerodha.jpdfsigner;
+
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestDecoderTest {
+
+    @Test
+    void decode_fullRequest_readsAllFields() {
+        // Arrange
+        byte[] body = ("{\"reason\":\"R\",\"contact\":\"C\",\"location\":\"L\",\"input_file\":\"in.pdf\","
+                + "\"output_file\":\"out.pdf\",\"password\":\"secret\",\"mode\":\"encrypt\",\"page\":2,"
+                + "\"coordinates\":{\"x1\":1,\"y1\":2.5,\"x2\":3,\"y2\":4},\"unknown\":{\"a\":[1,2]}}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        Request req = RequestDecoder.decode(body);
+
+        // Assert
+        assertEquals("R", req.getReason());
+        assertEquals("C", req.getContact());
+        assertEquals("L", req.getLocation());
+        assertEquals("in.pdf", req.getInputFile());
+        assertEquals("out.pdf", req.getOutputFile());
+        assertEquals("secret", req.getPassword());
+        assertEquals("encrypt", req.getMode());
+        assertEquals(2, req.getPage());
+        assertTrue(req.getCoordinates().isValid());
+        assertEquals(2.5f, req.getCoordinates().getY1());
+    }
+
+    @Test
+    void decode_placements_acceptsNumericAndNamedPages() {
+        // Act
+        Request req = RequestDecoder.decode("{\"placements\":[{\"page\":1,"
+                + "\"coordinates\":{\"x1\":1,\"y1\":2,\"x2\":3,\"y2\":4}},{\"page\":\"last\"}]}");
+
+        // Assert
+        assertEquals(2, req.getPlacements().size());
+        assertEquals("1", req.getPlacements().get(0).getPage());
+        assertTrue(req.getPlacements().get(0).getCoordinates().isValid());
+        assertEquals("last", req.getPlacements().get(1).getPage());
+        assertNull(req.getPlacements().get(1).getCoordinates());
+    }
+
+    @Test
+    void decode_nullsAndPartialCoordinates_leavesFieldsUnset() {
+        // Act
+        Request req = RequestDecoder.decode("{\"password\":null,\"page\":null,\"coordinates\":{\"x1\":1}}");
+
+        // Assert
+        assertNull(req.getPassword());
+        assertNull(req.getPage());
+        assertFalse(req.getCoordinates().isValid());
+    }
+
+    @Test
+    void decode_emptyOrNullBody_returnsNull() {
+        assertNull(RequestDecoder.decode(new byte[0]));
+        assertNull(RequestDecoder.decode("null"));
+    }
+
+    @Test
+    void decode_lenientJson_acceptsQuotesAndKeysGsonAccepts() {
+        // Act
+        Request req = RequestDecoder.decode("{'input_file':'a.pdf', output_file:\"b.pdf\"}");
+
+        // Assert
+        assertEquals("a.pdf", req.getInputFile());
+        assertEquals("b.pdf", req.getOutputFile());
+    }
+
+    @Test
+    void decode_invalidJson_throwsJsonParseException() {
+        assertThrows(JsonParseException.class, () -> RequestDecoder.decode("{not json"));
+        assertThrows(JsonParseException.class, () -> RequestDecoder.decode("{\"page\":\"one\"}"));
+        assertThrows(JsonParseException.class, () -> RequestDecoder.decode("{} {}"));
+    }
+
+    @Test
+    void decodeStream_ndjsonAndArrays_decodesEachRequest() {
+        // Arrange
+        String input = "{\"input_file\":\"a.pdf\"}\n"
+                + "{\"input_file\":\"b.pdf\"}\n"
+                + "[{\"input_file\":\"c.pdf\"},{\"input_file\":\"d.pdf\"}]\n";
+
+        // Act
+        List<String> files = new ArrayList<>();
+        RequestDecoder.decodeStream(new StringReader(input), req -> files.add(req.getInputFile()));
+
+        // Assert
+        assertEquals(List.of("a.pdf", "b.pdf", "c.pdf", "d.pdf"), files);
+    }
+
+    @Test
+    void iterate_pullsRequestsOnDemandAndFailsOnInvalidInput() {
+        // Arrange
+        Iterator<Request> it = RequestDecoder.iterate(new StringReader(
+                "[{\"input_file\":\"a.pdf\",\"page\":2}]\n{\"input_file\":\"b.pdf\"}\n{\"page\":\"x\"}"));
+
+        // Act
+        Request first = it.next();
+        Request second = it.next();
+
+        // Assert
+        assertEquals("a.pdf", first.getInputFile());
+        assertEquals(2, first.getPage());
+        assertEquals("b.pdf", second.getInputFile());
+        assertTrue(it.hasNext());
+        assertThrows(JsonParseException.class, it::next);
+    }
+
+    @Test
+    void gson_roundTripsRequest() {
+        // Arrange
+        Request req = RequestDecoder.decode(
+                "{\"input_file\":\"in.pdf\",\"page\":1,\"coordinates\":{\"x1\":1,\"y1\":2,\"x2\":3,\"y2\":4},"
+                        + "\"mode\":\"sign+encrypt\"}");
+
+        // Act
+        Request copy = RequestDecoder.decode(RequestDecoder.GSON.toJson(req));
+
+        // Assert
+        assertEquals("in.pdf", copy.getInputFile());
+        assertEquals(1, copy.getPage());
+        assertEquals(4f, copy.getCoordinates().getY2());
+        assertEquals("sign+encrypt", copy.getMode());
+    }
+}
@@ -0,0 +1,136 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalCa ca;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ca = new LocalCa();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ca.close();
+    }
+
+    @Test
+    void fromConfig_withoutLtv_returnsNull() throws Exception {
+        // Act & Assert
+        assertNull(RevocationCache.fromConfig(new Properties(), ca.chain()));
+    }
+
+    @Test
+    void ocspAndCrlUrls_areReadFromCertificate() {
+        // Act & Assert
+        assertEquals(ca.url() + "ocsp", RevocationCache.ocspUrls(ca.chain()[0]).get(0));
+        assertEquals(ca.url() + "crl", RevocationCache.crlUrls(ca.chain()[0]).get(0));
+        assertTrue(RevocationCache.ocspUrls(ca.chain()[1]).isEmpty());
+    }
+
+    @Test
+    void start_fetchesRevocationDataForChain() throws Exception {
+        // Arrange
+        RevocationCache cache = new RevocationCache(ca.chain(), tempDir, 3_600_000, Duration.ofSeconds(5));
+
+        // Act
+        cache.start();
+
+        // Assert
+        RevocationCache.Snapshot snapshot = cache.getSnapshot();
+        assertNotNull(snapshot.signerOcsp);
+        assertEquals(1, snapshot.ocspResponses.size());
+        assertEquals(1, snapshot.crls.size());
+        assertEquals(1, ca.ocspRequests());
+        assertEquals(1, ca.crlRequests());
+        cache.close();
+    }
+
+    @Test
+    void refresh_withFreshData_doesNotFetchAgain() throws Exception {
+        // Arrange
+        RevocationCache cache = new RevocationCache(ca.chain(), null, 3_600_000, Duration.ofSeconds(5));
+        cache.start();
+
+        // Act
+        cache.refresh();
+        cache.refresh();
+
+        // Assert
+        assertEquals(1, ca.ocspRequests());
+        assertEquals(1, ca.crlRequests());
+        cache.close();
+    }
+
+    @Test
+    void refresh_withDataExpiringBeforeNextRefresh_fetchesAgain() throws Exception {
+        // Arrange
+        ca.setValidityMillis(60_000);
+        RevocationCache cache = new RevocationCache(ca.chain(), null, 3_600_000, Duration.ofSeconds(5));
+        cache.start();
+
+        // Act
+        cache.refresh();
+
+        // Assert
+        assertEquals(2, ca.ocspRequests());
+        assertEquals(2, ca.crlRequests());
+        assertNotNull(cache.getSnapshot().signerOcsp);
+        cache.close();
+    }
+
+    @Test
+    void getSnapshot_afterNextUpdateWithoutRefresh_dropsExpiredData() throws Exception {
+        // Arrange: data valid for 2s and no refresh within the test
+        ca.setValidityMillis(2000);
+        RevocationCache cache = new RevocationCache(ca.chain(), null, 3_600_000, Duration.ofSeconds(5));
+        cache.start();
+        assertNotNull(cache.getSnapshot().signerOcsp);
+
+        // Act
+        Thread.sleep(3000);
+        RevocationCache.Snapshot snapshot = cache.getSnapshot();
+
+        // Assert
+        assertNull(snapshot.signerOcsp);
+        assertTrue(snapshot.isEmpty());
+        assertEquals(1, ca.ocspRequests());
+        cache.close();
+    }
+
+    @Test
+    void start_withDiskCache_loadsWithoutFetching() throws Exception {
+        // Arrange
+        RevocationCache first = new RevocationCache(ca.chain(), tempDir, 3_600_000, Duration.ofSeconds(5));
+        first.start();
+        first.close();
+
+        // Act
+        RevocationCache second = new RevocationCache(ca.chain(), tempDir, 3_600_000, Duration.ofSeconds(5));
+        second.start();
+
+        // Assert
+        assertEquals(1, ca.ocspRequests());
+        assertEquals(1, ca.crlRequests());
+        assertNotNull(second.getSnapshot().signerOcsp);
+        assertEquals(1, second.getSnapshot().crls.size());
+        second.close();
+    }
+}
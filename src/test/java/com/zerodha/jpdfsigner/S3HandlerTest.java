@@ -3,13 +3,21 @@ package com.zerodha.jpdfsigner;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.services.s3.model.S3Exception;
@@ -17,6 +25,13 @@ import software.amazon.awssdk.services.s3.model.S3Exception;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -89,6 +104,33 @@ class S3HandlerTest {
         assertArrayEquals(testData, buffer);
     }
 
+    @Test
+    void getBytesFromS3_withContentLength_readsIntoExactArray() throws IOException {
+        // Arrange
+        byte[] testData = new byte[200_000];
+        new Random(7).nextBytes(testData);
+        when(s3Client.getObject((GetObjectRequest) any())).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength((long) testData.length).build(),
+                new ByteArrayInputStream(testData)));
+
+        // Act
+        byte[] result = s3Handler.getBytesFromS3("s3://test-bucket/test-file.pdf", null);
+
+        // Assert
+        assertArrayEquals(testData, result);
+    }
+
+    @Test
+    void getBytesFromS3_shortBody_throwsIOException() {
+        // Arrange
+        when(s3Client.getObject((GetObjectRequest) any())).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength(10L).build(),
+                new ByteArrayInputStream(new byte[4])));
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> s3Handler.getBytesFromS3("s3://test-bucket/test-file.pdf", null));
+    }
+
     @Test
     void getInputStreamFromS3_invalidPath_throwsException() {
         // Arrange
@@ -170,6 +212,294 @@ class S3HandlerTest {
         });
     }
 
+    @Test
+    void getInputStreamFromS3_withETag_sendsConditionalGet() throws IOException {
+        // Arrange
+        ResponseInputStream<GetObjectResponse> mockResponse = new ResponseInputStream<>(
+                GetObjectResponse.builder().build(),
+                new ByteArrayInputStream("data".getBytes()));
+        when(s3Client.getObject((GetObjectRequest) any())).thenReturn(mockResponse);
+
+        // Act
+        s3Handler.getInputStreamFromS3("s3://bucket/object.pdf", "\"abc\"");
+
+        // Assert
+        verify(s3Client).getObject((GetObjectRequest) argThat(
+                request -> "\"abc\"".equals(((GetObjectRequest) request).ifMatch())));
+    }
+
+    @Test
+    void uploadToS3_withMetadata_attachesMetadata() {
+        // Arrange
+        ByteArrayInputStream inputStream = new ByteArrayInputStream("test".getBytes());
+        when(s3Client.putObject((PutObjectRequest) any(), any(RequestBody.class))).thenReturn(null);
+
+        // Act
+        s3Handler.uploadToS3(inputStream, 4, "s3://bucket/object.pdf",
+                Collections.singletonMap(S3Handler.SOURCE_ETAG_METADATA, "\"abc\""));
+
+        // Assert
+        verify(s3Client).putObject(
+                (PutObjectRequest) argThat(request -> "\"abc\"".equals(
+                        ((PutObjectRequest) request).metadata().get(S3Handler.SOURCE_ETAG_METADATA))),
+                any(RequestBody.class));
+    }
+
+    @Test
+    void headObject_missingObject_returnsNull() {
+        // Arrange
+        AwsServiceException notFound = S3Exception.builder().statusCode(404).message("Not Found").build();
+        when(s3Client.headObject((HeadObjectRequest) any())).thenThrow(notFound);
+
+        // Act & Assert
+        assertNull(s3Handler.headObject("s3://bucket/missing.pdf"));
+    }
+
+    @Test
+    void headObject_serverError_rethrowsException() {
+        // Arrange
+        AwsServiceException s3Exception = S3Exception.builder().statusCode(500).message("S3 Error").build();
+        when(s3Client.headObject((HeadObjectRequest) any())).thenThrow(s3Exception);
+
+        // Act & Assert
+        assertThrows(AwsServiceException.class, () -> {
+            s3Handler.headObject("s3://bucket/object.pdf");
+        });
+    }
+
+    @Test
+    void isUpToDate_matchingSourceETag_returnsTrue() {
+        // Arrange
+        when(s3Client.headObject((HeadObjectRequest) any())).thenReturn(HeadObjectResponse.builder()
+                .metadata(Collections.singletonMap(S3Handler.SOURCE_ETAG_METADATA, "\"abc\""))
+                .build());
+
+        // Act & Assert
+        assertTrue(s3Handler.isUpToDate("\"abc\"", "s3://bucket/output.pdf"));
+        assertFalse(s3Handler.isUpToDate("\"def\"", "s3://bucket/output.pdf"));
+    }
+
+    @Test
+    void isUpToDate_missingOutput_returnsFalse() {
+        // Arrange
+        AwsServiceException notFound = S3Exception.builder().statusCode(404).message("Not Found").build();
+        when(s3Client.headObject((HeadObjectRequest) any())).thenThrow(notFound);
+
+        // Act & Assert
+        assertFalse(s3Handler.isUpToDate("\"abc\"", "s3://bucket/output.pdf"));
+    }
+
+    @Test
+    void listPdfObjects_multiplePages_returnsPdfKeysAcrossPages() {
+        // Arrange
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(inv -> new ListObjectsV2Iterable(s3Client, inv.getArgument(0)));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenReturn(ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("in/PASS_a.pdf").build(),
+                                S3Object.builder().key("in/notes.txt").build())
+                        .isTruncated(true)
+                        .nextContinuationToken("token")
+                        .build())
+                .thenReturn(ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("in/b.PDF").build())
+                        .isTruncated(false)
+                        .build());
+
+        // Act
+        List<String> paths = new ArrayList<>();
+        s3Handler.listPdfObjects("s3://bucket/in/").forEach(paths::add);
+
+        // Assert
+        assertEquals(Arrays.asList("s3://bucket/in/PASS_a.pdf", "s3://bucket/in/b.PDF"), paths);
+        verify(s3Client).listObjectsV2((ListObjectsV2Request) argThat(request -> request != null &&
+                "bucket".equals(((ListObjectsV2Request) request).bucket()) &&
+                "in/".equals(((ListObjectsV2Request) request).prefix()) &&
+                "token".equals(((ListObjectsV2Request) request).continuationToken())));
+    }
+
+    @Test
+    void listPdfObjects_prefixWithoutSlash_listsUnderDirectory() {
+        // Arrange
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(inv -> new ListObjectsV2Iterable(s3Client, inv.getArgument(0)));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenReturn(ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("in/a.pdf").build())
+                        .isTruncated(false)
+                        .build());
+
+        // Act
+        List<String> paths = new ArrayList<>();
+        s3Handler.listPdfObjects("s3://bucket/in").forEach(paths::add);
+
+        // Assert
+        assertEquals(Arrays.asList("s3://bucket/in/a.pdf"), paths);
+        verify(s3Client).listObjectsV2((ListObjectsV2Request) argThat(request -> request != null &&
+                "in/".equals(((ListObjectsV2Request) request).prefix()) &&
+                "/".equals(((ListObjectsV2Request) request).delimiter())));
+    }
+
+    @Test
+    void listPdfObjects_invalidPath_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            s3Handler.listPdfObjects("s3:///prefix/");
+        });
+    }
+
+    @Test
+    void downloadToFile_writesObjectToFile(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        byte[] testData = "Test PDF Content".getBytes();
+        Path file = Files.createFile(tempDir.resolve("in.pdf"));
+        when(s3Client.getObject((GetObjectRequest) any())).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(), new ByteArrayInputStream(testData)));
+
+        // Act
+        s3Handler.downloadToFile("s3://test-bucket/test-file.pdf", "\"etag\"", file);
+
+        // Assert
+        assertArrayEquals(testData, Files.readAllBytes(file));
+        verify(s3Client).getObject((GetObjectRequest) argThat(
+                request -> "\"etag\"".equals(((GetObjectRequest) request).ifMatch())));
+    }
+
+    @Test
+    void uploadFileToS3_uploadsFileContents(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        Path file = Files.write(tempDir.resolve("out.pdf"), "signed".getBytes());
+        when(s3Client.putObject((PutObjectRequest) any(), any(RequestBody.class))).thenReturn(null);
+
+        // Act
+        s3Handler.uploadFileToS3(file, "s3://bucket/object.pdf", null);
+
+        // Assert
+        verify(s3Client).putObject(
+                (PutObjectRequest) argThat(request -> "object.pdf".equals(((PutObjectRequest) request).key())),
+                (RequestBody) argThat(body -> ((RequestBody) body).optionalContentLength().orElse(-1L) == 6L));
+    }
+
+    @Test
+    void getRange_sendsRangedConditionalGet() {
+        // Arrange
+        byte[] testData = "%PDF-1.4".getBytes();
+        when(s3Client.getObjectAsBytes((GetObjectRequest) any())).thenReturn(
+                ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), testData));
+
+        // Act
+        byte[] result = s3Handler.getRange("s3://test-bucket/test-file.pdf", "bytes=0-1023", "\"etag\"");
+
+        // Assert
+        assertArrayEquals(testData, result);
+        verify(s3Client).getObjectAsBytes((GetObjectRequest) argThat(
+                request -> "bytes=0-1023".equals(((GetObjectRequest) request).range())
+                        && "\"etag\"".equals(((GetObjectRequest) request).ifMatch())));
+    }
+
+    @Test
+    void validatePath_validPath_doesNotThrow() {
+        assertDoesNotThrow(() -> S3Handler.validatePath("s3://my-bucket.logs/a/b/file.pdf"));
+    }
+
+    @Test
+    void validatePath_invalidPaths_throwException() {
+        String longKey = String.join("", Collections.nCopies(1025, "k"));
+        for (String path : Arrays.asList(
+                "s3://bucket",
+                "s3://bucket/",
+                "s3://Bucket/file.pdf",
+                "s3://ab/file.pdf",
+                "s3://-bucket/file.pdf",
+                "s3://my..bucket/file.pdf",
+                "s3://bucket/" + longKey,
+                "/local/file.pdf")) {
+            assertThrows(IllegalArgumentException.class, () -> S3Handler.validatePath(path), path);
+        }
+    }
+
+    @Test
+    void getInputStreamFromS3_parallelDownload_assemblesPartsPinnedToETag() throws Exception {
+        // Arrange
+        byte[] data = new byte[95];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        serveRanges(data, "\"etag\"");
+        s3Handler.setParallelDownload(10, 3);
+
+        // Act
+        InputStream result = s3Handler.getInputStreamFromS3("s3://test-bucket/big.pdf", null);
+
+        // Assert
+        assertArrayEquals(data, result.readAllBytes());
+        verify(s3Client, times(10)).getObject(any(GetObjectRequest.class));
+        verify(s3Client).getObject((GetObjectRequest) argThat(
+                request -> "bytes=90-94".equals(((GetObjectRequest) request).range())
+                        && "\"etag\"".equals(((GetObjectRequest) request).ifMatch())));
+    }
+
+    @Test
+    void downloadToFile_parallelDownload_writesPartsInPlace(@TempDir Path dir) throws Exception {
+        // Arrange
+        byte[] data = new byte[1000];
+        new Random(1).nextBytes(data);
+        serveRanges(data, "\"etag\"");
+        s3Handler.setParallelDownload(64, 4);
+        Path file = dir.resolve("in.pdf");
+        Files.write(file, new byte[5000]);
+
+        // Act
+        s3Handler.downloadToFile("s3://test-bucket/big.pdf", "\"etag\"", file);
+
+        // Assert
+        assertArrayEquals(data, Files.readAllBytes(file));
+    }
+
+    @Test
+    void getInputStreamFromS3_parallelDownloadPartFails_throwsPartError() {
+        // Arrange
+        byte[] data = new byte[50];
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            GetObjectRequest request = inv.getArgument(0);
+            if (!request.range().startsWith("bytes=0-")) {
+                throw S3Exception.builder().statusCode(412).message("Precondition Failed").build();
+            }
+            return rangeResponse(data, 0, 9, "\"etag\"");
+        });
+        s3Handler.setParallelDownload(10, 2);
+
+        // Act & Assert
+        S3Exception e = assertThrows(S3Exception.class,
+                () -> s3Handler.getInputStreamFromS3("s3://test-bucket/big.pdf", null));
+        assertEquals(412, e.statusCode());
+    }
+
+    @Test
+    void totalSize_parsesContentRange() {
+        assertEquals(104857600L, S3Handler.totalSize("bytes 0-8388607/104857600"));
+        assertEquals(-1L, S3Handler.totalSize("bytes 0-8388607/*"));
+        assertEquals(-1L, S3Handler.totalSize(null));
+    }
+
+    // Answer ranged GETs from data like S3 does, with a Content-Range.
+    private void serveRanges(byte[] data, String eTag) {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(inv -> {
+            String[] range = ((GetObjectRequest) inv.getArgument(0)).range().substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(range[0]);
+            int end = Math.min(data.length - 1, Integer.parseInt(range[1]));
+            return rangeResponse(data, start, end, eTag);
+        });
+    }
+
+    private static ResponseInputStream<GetObjectResponse> rangeResponse(byte[] data, int start, int end,
+            String eTag) {
+        GetObjectResponse response = GetObjectResponse.builder()
+                .eTag(eTag)
+                .contentRange("bytes " + start + "-" + end + "/" + data.length)
+                .build();
+        return new ResponseInputStream<>(response, new ByteArrayInputStream(data, start, end - start + 1));
+    }
+
     @Test
     void close_closesResources() {
         // Act
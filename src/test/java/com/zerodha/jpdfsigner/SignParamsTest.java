@@ -7,9 +7,13 @@ import org.junit.jupiter.api.Test;
 
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 class SignParamsTest {
@@ -153,4 +157,30 @@ class SignParamsTest {
         // Assert
         assertEquals(page, signParams.getPage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void setPlacements_setsPlacementsAttribute() {
+        // Arrange
+        List<SignaturePlacement> placements = Collections.singletonList(
+                new SignaturePlacement(SignaturePlacement.LAST_PAGE, new Rectangle(10, 20, 30, 40)));
+
+        // Act
+        signParams.setPlacements(placements);
+
+        // Assert
+        assertEquals(1, signParams.getPlacements().size());
+        assertSame(placements.get(0), signParams.getPlacements().get(0));
+    }
+
+    @Test
+    void modeParse_acceptsModeNamesAndRejectsOthers() throws Exception {
+        // Act & Assert
+        assertEquals(SignParams.Mode.SIGN, SignParams.Mode.parse("sign"));
+        assertEquals(SignParams.Mode.ENCRYPT, SignParams.Mode.parse(" Encrypt "));
+        assertEquals(SignParams.Mode.SIGN_ENCRYPT, SignParams.Mode.parse("sign+encrypt"));
+        assertNull(SignParams.Mode.parse(""));
+        assertNull(SignParams.Mode.parse(null));
+        PreflightException e = assertThrows(PreflightException.class, () -> SignParams.Mode.parse("seal"));
+        assertEquals(PreflightException.Code.INVALID_MODE, e.getCode());
+    }
+}
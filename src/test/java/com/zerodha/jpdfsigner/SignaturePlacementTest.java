@@ -0,0 +1,39 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Rectangle;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SignaturePlacementTest {
+
+    private final Rectangle rect = new Rectangle(0, 0, 100, 100);
+
+    @Test
+    void resolvePages_pageNumber_returnsThatPage() {
+        assertEquals(Collections.singletonList(2), new SignaturePlacement(2, rect).resolvePages(3));
+    }
+
+    @Test
+    void resolvePages_all_returnsEveryPage() {
+        assertEquals(Arrays.asList(1, 2, 3),
+                new SignaturePlacement(SignaturePlacement.ALL_PAGES, rect).resolvePages(3));
+    }
+
+    @Test
+    void resolvePages_last_returnsLastPage() {
+        assertEquals(Collections.singletonList(3),
+                new SignaturePlacement(SignaturePlacement.LAST_PAGE, rect).resolvePages(3));
+    }
+
+    @Test
+    void resolvePages_invalidOrOutOfRange_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new SignaturePlacement(4, rect).resolvePages(3));
+        assertThrows(IllegalArgumentException.class, () -> new SignaturePlacement(0, rect).resolvePages(3));
+        assertThrows(IllegalArgumentException.class, () -> new SignaturePlacement("first", rect).resolvePages(3));
+    }
+}
@@ -0,0 +1,195 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignatureVerifierTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OpenPdfSigner signer;
+    private SignatureVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signer = new OpenPdfSigner();
+        verifier = new SignatureVerifier(Collections.singletonList(TestFixtures.certificate()), null);
+    }
+
+    @Test
+    void verify_signedDocument_isOk() throws Exception {
+        // Arrange
+        Path signed = sign("out.pdf", null);
+
+        // Act
+        SignatureVerifier.Result result = verifier.verify(signed.toString(), null);
+
+        // Assert
+        assertEquals(SignatureVerifier.STATUS_OK, result.status);
+        assertEquals(signed.toString(), result.file);
+        assertEquals(1, result.signatures);
+        assertTrue(result.integrity);
+        assertTrue(result.chain);
+        assertFalse(result.encrypted);
+    }
+
+    @Test
+    void verify_encryptedDocument_checksPassword() throws Exception {
+        // Arrange
+        Path signed = sign("out.pdf", "secret");
+
+        // Act
+        SignatureVerifier.Result withPassword = verifier.verify(signed.toString(), "secret");
+        SignatureVerifier.Result withoutPassword = verifier.verify(signed.toString(), "");
+
+        // Assert
+        assertEquals(SignatureVerifier.STATUS_OK, withPassword.status);
+        assertTrue(withPassword.encrypted);
+        assertEquals(SignatureVerifier.STATUS_INVALID, withoutPassword.status);
+    }
+
+    @Test
+    void verify_nonAsciiPassword_opensDocumentEncryptedWithUtf8() throws Exception {
+        // Arrange
+        Path signed = sign("out.pdf", "s\u00e9cr\u00e8t\u20b9");
+
+        // Act
+        SignatureVerifier.Result result = verifier.verify(signed.toString(), "s\u00e9cr\u00e8t\u20b9");
+
+        // Assert
+        assertEquals(SignatureVerifier.STATUS_OK, result.status, result.error);
+        assertTrue(result.encrypted);
+    }
+
+    @Test
+    void verify_unencryptedDocumentWithPassword_isInvalid() throws Exception {
+        // Arrange
+        Path signed = sign("out.pdf", null);
+
+        // Act
+        SignatureVerifier.Result result = verifier.verify(signed.toString(), "secret");
+
+        // Assert
+        assertEquals(SignatureVerifier.STATUS_INVALID, result.status);
+        assertTrue(result.integrity);
+        assertEquals("Document is not encrypted", result.error);
+    }
+
+    @Test
+    void verify_tamperedDocument_failsIntegrity() throws Exception {
+        // Arrange
+        byte[] pdf = Files.readAllBytes(sign("out.pdf", null));
+        // The binary comment on the second line is inside the signed range.
+        pdf[10] ^= 1;
+
+        // Act
+        SignatureVerifier.Result result = verifier.verify(pdf, null);
+
+        // Assert
+        assertEquals(SignatureVerifier.STATUS_INVALID, result.status);
+        assertFalse(result.integrity);
+    }
+
+    @Test
+    void verify_untrustedSigner_failsChain() throws Exception {
+        // Arrange
+        Path signed = sign("out.pdf", null);
+        try (LocalCa ca = new LocalCa()) {
+            SignatureVerifier other = new SignatureVerifier(Arrays.asList(ca.chain()[1]), null);
+
+            // Act
+            SignatureVerifier.Result result = other.verify(signed.toString(), null);
+
+            // Assert
+            assertEquals(SignatureVerifier.STATUS_INVALID, result.status);
+            assertTrue(result.integrity);
+            assertFalse(result.chain);
+        }
+    }
+
+    @Test
+    void verify_signerIssuedByTrustedCa_passesChain() throws Exception {
+        // Arrange
+        try (LocalCa ca = new LocalCa()) {
+            Path src = tempDir.resolve("in.pdf");
+            Path dest = tempDir.resolve("out.pdf");
+            Files.write(src, TestFixtures.pdf(1));
+            SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+            params.setKey(ca.signerKeys().getPrivate());
+            params.setChain(ca.chain());
+            signer.sign(params);
+
+            X509Certificate root = ca.chain()[ca.chain().length - 1];
+            SignatureVerifier caVerifier = new SignatureVerifier(Collections.singletonList(root), null);
+
+            // Act
+            SignatureVerifier.Result result = caVerifier.verify(dest.toString(), null);
+
+            // Assert
+            assertEquals(SignatureVerifier.STATUS_OK, result.status);
+            assertTrue(result.chain);
+        }
+    }
+
+    @Test
+    void verify_unsignedDocument_isInvalid() throws Exception {
+        // Act
+        SignatureVerifier.Result result = verifier.verify(TestFixtures.pdf(1), null);
+
+        // Assert
+        assertEquals(SignatureVerifier.STATUS_INVALID, result.status);
+        assertEquals(0, result.signatures);
+    }
+
+    @Test
+    void verifyAll_writesOneJsonLinePerDocument() throws Exception {
+        // Arrange
+        Path good = sign("good.pdf", null);
+        Path encrypted = sign("encrypted.pdf", "secret");
+        List<String[]> entries = Arrays.asList(
+                new String[] { good.toString(), "" },
+                new String[] { encrypted.toString(), "secret" },
+                new String[] { encrypted.toString(), "" },
+                new String[] { tempDir.resolve("missing.pdf").toString(), "" });
+        StringWriter report = new StringWriter();
+
+        // Act
+        SignatureVerifier.Summary summary = verifier.verifyAll(entries, 2, report);
+
+        // Assert
+        assertEquals(4, summary.total());
+        assertEquals(2, summary.ok.sum());
+        assertEquals(1, summary.invalid.sum());
+        assertEquals(1, summary.errors.sum());
+
+        String[] lines = report.toString().split("\n");
+        assertEquals(4, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{\"file\":"), line);
+        }
+    }
+
+    private Path sign(String name, String password) throws Exception {
+        Path src = tempDir.resolve("in-" + name);
+        Path dest = tempDir.resolve(name);
+        Files.write(src, TestFixtures.pdf(1));
+        SignParams params = TestFixtures.signParams(src.toString(), dest.toString());
+        params.setPassword(password);
+        signer.sign(params);
+        return dest;
+    }
+}
@@ -0,0 +1,94 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Rectangle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SigningConsumerTest {
+
+    @Mock
+    private MessageSource source;
+
+    @Mock
+    private OpenPdfSigner app;
+
+    private SigningConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        SignatureConfig sigConfig = new SignatureConfig(null, "Reason", "Contact", "Location",
+                new Rectangle(0, 0, 100, 100), 1, null, null);
+        consumer = new SigningConsumer(source, app, sigConfig, 2, 10, 0);
+    }
+
+    @Test
+    void processBatch_signsPublishesAndCommits() throws Exception {
+        // Arrange
+        MessageSource.Message ok = new MessageSource.Message("k1",
+                "{\"input_file\":\"in1.pdf\",\"output_file\":\"out1.pdf\",\"page\":2}");
+        MessageSource.Message bad = new MessageSource.Message("k2",
+                "{\"input_file\":\"in2.pdf\",\"output_file\":\"out2.pdf\"}");
+        when(source.poll(anyInt(), anyLong())).thenReturn(Arrays.asList(ok, bad));
+        doAnswer(inv -> {
+            if ("in2.pdf".equals(inv.<SignParams>getArgument(0).getSrc())) {
+                throw new IOException("boom");
+            }
+            return null;
+        }).when(app).sign(any());
+
+        // Act
+        int count = consumer.processBatch();
+
+        // Assert
+        assertEquals(2, count);
+        verify(app).sign(argThat(p -> p != null && "in1.pdf".equals(p.getSrc())
+                && "out1.pdf".equals(p.getDest()) && p.getPage() == 2 && "Reason".equals(p.getReason())));
+
+        ArgumentCaptor<String> results = ArgumentCaptor.forClass(String.class);
+        InOrder order = inOrder(source);
+        order.verify(source, times(2)).publish(any(), results.capture());
+        order.verify(source).commit();
+
+        List<String> published = results.getAllValues();
+        assertTrue(published.get(0).contains("\"status\":\"ok\""));
+        assertTrue(published.get(1).contains("\"status\":\"error\""));
+        assertTrue(published.get(1).contains("boom"));
+    }
+
+    @Test
+    void processBatch_noMessages_doesNotCommit() throws Exception {
+        // Arrange
+        when(source.poll(anyInt(), anyLong())).thenReturn(Collections.emptyList());
+
+        // Act
+        int count = consumer.processBatch();
+
+        // Assert
+        assertEquals(0, count);
+        verify(source, never()).commit();
+    }
+}
@@ -0,0 +1,211 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Rectangle;
+import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SigningRequestTest {
+
+    @Mock
+    private OpenPdfSigner app;
+
+    private ExecutorService executor;
+    private AtomicInteger executorTasks;
+    private Undertow server;
+    private URI uri;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        executorTasks = new AtomicInteger();
+        executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                executorTasks.incrementAndGet();
+                super.execute(command);
+            }
+        };
+
+        SigningRequest request = new SigningRequest(null, null, "Reason", "Contact", "Location",
+                new Rectangle(0, 0, 100, 100), app, null, 1, executor);
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setServerOption(UndertowOptions.MAX_ENTITY_SIZE, 1024L)
+                .setHandler(request::handleRequestWithMeta)
+                .build();
+        server.start();
+
+        int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        uri = URI.create("http://localhost:" + port + "/sign");
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        executor.shutdown();
+    }
+
+    @Test
+    void handleRequest_validBody_signsWithRequestParams() throws Exception {
+        // Act
+        HttpResponse<String> response = post(
+                "{\"input_file\":\"in.pdf\",\"output_file\":\"out.pdf\",\"page\":3}");
+
+        // Assert
+        assertEquals(200, response.statusCode());
+        verify(app).sign(argThat(p -> p != null && "in.pdf".equals(p.getSrc()) && "out.pdf".equals(p.getDest())
+                && p.getPage() == 3 && "Reason".equals(p.getReason())));
+    }
+
+    @Test
+    void createSignParams_withPlacements_defaultsToRequestPageAndRect() throws Exception {
+        // Arrange
+        Request req = RequestDecoder.decode("{\"page\":2,\"coordinates\":{\"x1\":1,\"y1\":2,\"x2\":3,\"y2\":4},"
+                + "\"placements\":[{},{\"page\":\"all\",\"coordinates\":{\"x1\":5,\"y1\":6,\"x2\":7,\"y2\":8}}]}");
+        SignatureConfig defaults = new SignatureConfig(null, "Reason", "Contact", "Location",
+                new Rectangle(0, 0, 100, 100), 1, null, null);
+
+        // Act
+        SignParams params = SigningRequest.createSignParams(req, defaults);
+
+        // Assert
+        assertEquals(2, params.getPlacements().size());
+        assertEquals("2", params.getPlacements().get(0).getPage());
+        assertEquals(4f, params.getPlacements().get(0).getRect().getTop());
+        assertEquals(SignaturePlacement.ALL_PAGES, params.getPlacements().get(1).getPage());
+        assertEquals(8f, params.getPlacements().get(1).getRect().getTop());
+    }
+
+    @Test
+    void handleRequest_invalidJson_returnsBadRequestWithoutDispatch() throws Exception {
+        // Act
+        HttpResponse<String> response = post("{not json");
+
+        // Assert
+        assertEquals(400, response.statusCode());
+        assertEquals(0, executorTasks.get());
+        verify(app, never()).sign(any());
+    }
+
+    @Test
+    void handleRequest_preflightFailure_returnsClientErrorWithCode() throws Exception {
+        // Arrange
+        doThrow(new PreflightException(PreflightException.Code.INPUT_NOT_FOUND, "Input file not found: in.pdf"))
+                .when(app).sign(any());
+
+        // Act
+        HttpResponse<String> response = post("{\"input_file\":\"in.pdf\",\"output_file\":\"out.pdf\"}");
+
+        // Assert
+        assertEquals(404, response.statusCode());
+        assertEquals("INPUT_NOT_FOUND: Input file not found: in.pdf", response.body());
+    }
+
+    @Test
+    void handleRequest_memoryBudgetTimeout_returnsServiceUnavailable() throws Exception {
+        // Arrange
+        doThrow(new MemoryBudget.AdmissionTimeoutException("Timed out waiting for memory budget"))
+                .when(app).sign(any());
+
+        // Act
+        HttpResponse<String> response = post("{\"input_file\":\"in.pdf\",\"output_file\":\"out.pdf\"}");
+
+        // Assert
+        assertEquals(503, response.statusCode());
+        assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+    }
+
+    @Test
+    void handleRequest_bodyTooLarge_returnsEntityTooLarge() throws Exception {
+        // Act
+        HttpResponse<String> response = post("{\"input_file\":\"" + "a".repeat(2048) + "\"}");
+
+        // Assert
+        assertEquals(413, response.statusCode());
+        verify(app, never()).sign(any());
+    }
+
+    @Test
+    void handleRequest_getMethod_returnsMethodNotAllowed() throws Exception {
+        // Act
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Assert
+        assertEquals(405, response.statusCode());
+    }
+
+    @Test
+    void handleRequest_slowBody_isNotDispatchedUntilComplete() throws Exception {
+        String body = "{\"input_file\":\"in.pdf\",\"output_file\":\"out.pdf\"}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /sign HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + bytes.length
+                    + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.write(bytes, 0, 10);
+            out.flush();
+
+            // Assert the partial body has not tied up a signing worker
+            Thread.sleep(200);
+            assertEquals(0, executorTasks.get());
+
+            // Act
+            out.write(bytes, 10, bytes.length - 10);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            byte[] status = new byte[12];
+            int read = 0;
+            while (read < status.length) {
+                int n = in.read(status, read, status.length - read);
+                if (n < 0) {
+                    throw new IOException("Connection closed");
+                }
+                read += n;
+            }
+            assertTrue(new String(status, StandardCharsets.UTF_8).endsWith("200"));
+        }
+        assertEquals(1, executorTasks.get());
+    }
+
+    private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
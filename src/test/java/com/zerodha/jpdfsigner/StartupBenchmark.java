@@ -0,0 +1,114 @@
+package com.zerodha.jpdfsigner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * StartupBenchmark starts the server jar repeatedly and measures how long it
+ * takes until GET /health (serving) and GET /ready (warmed up) return 200,
+ * with and without an AppCDS archive. It is not run as part of the test suite;
+ * run it with `make startup-bench` after `make appcds`.
+ *
+ * The config is copied to a temp directory with warmup_exit turned off, and a
+ * relative keyfile is resolved against the config's directory, so the training
+ * config can be reused as is.
+ *
+ * Usage: StartupBenchmark jar config.ini runs [archive.jsa]
+ */
+public class StartupBenchmark {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: StartupBenchmark jar config.ini runs [archive.jsa]");
+            System.exit(1);
+        }
+
+        String jar = Paths.get(args[0]).toAbsolutePath().toString();
+        Path configFile = Paths.get(args[1]).toAbsolutePath();
+        int runs = Integer.parseInt(args[2]);
+
+        Properties config = new Properties();
+        try (InputStream in = new FileInputStream(configFile.toFile())) {
+            config.load(in);
+        }
+        config.setProperty("warmup_exit", "false");
+        config.setProperty("keyfile",
+                configFile.getParent().resolve(config.getProperty("keyfile")).toString());
+
+        Path dir = Files.createTempDirectory("startup-bench");
+        try (OutputStream out = new FileOutputStream(dir.resolve("config.ini").toFile())) {
+            config.store(out, null);
+        }
+
+        String base = "http://" + config.getProperty("server_host", "localhost") + ":"
+                + config.getProperty("server_port", "8090");
+
+        run("default", runs, dir, base, "java", "-jar", jar);
+        if (args.length > 3) {
+            String archive = Paths.get(args[3]).toAbsolutePath().toString();
+            run("appcds", runs, dir, base, "java", "-XX:SharedArchiveFile=" + archive, "-jar", jar);
+        }
+    }
+
+    private static void run(String name, int runs, Path dir, String base, String... command) throws Exception {
+        long[] serving = new long[runs];
+        long[] ready = new long[runs];
+
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .directory(dir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File(dir.toFile(), "server.log"))
+                    .start();
+            try {
+                serving[i] = await(URI.create(base + "/health"), process, start);
+                ready[i] = await(URI.create(base + "/ready"), process, start);
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+
+        Arrays.sort(serving);
+        Arrays.sort(ready);
+        System.out.printf("%s runs=%d serving p50=%.0fms min=%.0fms ready p50=%.0fms min=%.0fms%n",
+                name, runs, serving[runs / 2] / 1e6, serving[0] / 1e6, ready[runs / 2] / 1e6, ready[0] / 1e6);
+    }
+
+    // Poll the URL until it returns 200 and return the nanoseconds since start.
+    private static long await(URI uri, Process process, long start) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(1)).build();
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Server exited with " + process.exitValue());
+            }
+            try {
+                if (CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime() - start;
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.zerodha.jpdfsigner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class StorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void resolve_pathsWithoutScheme_areLocalFiles() {
+        // Arrange
+        Storage storage = new Storage();
+
+        // Act
+        StorageBackend backend = storage.resolve("/tmp/in.pdf");
+
+        // Assert
+        assertInstanceOf(FileStorageBackend.class, backend);
+        assertSame(backend, storage.resolve("FILE:///tmp/in.pdf"));
+        assertEquals(Paths.get("/tmp/in.pdf"), backend.localPath("file:///tmp/in.pdf"));
+    }
+
+    @Test
+    void resolve_registeredScheme_returnsBackendUntilRemoved() {
+        // Arrange
+        Storage storage = new Storage();
+        MemoryStorageBackend memory = new MemoryStorageBackend();
+        storage.register("mem", memory);
+
+        // Act & Assert
+        assertSame(memory, storage.resolve("MEM://a.pdf"));
+        storage.register("mem", null);
+        assertThrows(IllegalStateException.class, () -> storage.resolve("mem://a.pdf"));
+    }
+
+    @Test
+    void fileBackend_statAndReadRange_useFile() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("a.txt");
+        Files.write(file, "0123456789".getBytes(StandardCharsets.US_ASCII));
+        FileStorageBackend backend = new FileStorageBackend();
+
+        // Act & Assert
+        assertEquals(10, backend.stat(file.toString()).getSize());
+        assertNull(backend.stat(tempDir.resolve("missing.txt").toString()));
+        assertArrayEquals("789".getBytes(StandardCharsets.US_ASCII), backend.readRange(file.toString(), 7, 5, null));
+    }
+
+    @Test
+    void memoryBackend_storesOnCommitAndReadsRanges() throws Exception {
+        // Arrange
+        MemoryStorageBackend backend = new MemoryStorageBackend();
+
+        // Act
+        StorageBackend.Output out = backend.openWrite("mem://a", null);
+        out.stream().write("0123456789".getBytes(StandardCharsets.US_ASCII));
+        out.stream().close();
+        assertNull(backend.stat("mem://a"));
+        out.commit();
+
+        // Assert
+        assertEquals(10, backend.stat("mem://a").getSize());
+        assertArrayEquals("234".getBytes(StandardCharsets.US_ASCII), backend.readRange("mem://a", 2, 3, null));
+        Path file = tempDir.resolve("copy");
+        backend.readToFile("mem://a", null, file);
+        assertEquals(10, Files.size(file));
+    }
+
+    @Test
+    void s3Backend_openWrite_uploadsPooledBufferOnCommit() throws Exception {
+        // Arrange
+        S3Handler handler = mock(S3Handler.class);
+        byte[] data = new byte[150_000];
+        new Random(3).nextBytes(data);
+        byte[][] uploaded = new byte[1][];
+        doAnswer(inv -> {
+            assertEquals((long) data.length, (long) inv.getArgument(1));
+            uploaded[0] = ((InputStream) inv.getArgument(0)).readAllBytes();
+            return null;
+        }).when(handler).uploadToS3(any(), anyLong(), eq("s3://bucket/out.pdf"), any());
+        S3StorageBackend backend = new S3StorageBackend(handler);
+
+        // Act
+        StorageBackend.Output out = backend.openWrite("s3://bucket/out.pdf", null);
+        out.stream().write(data);
+        out.stream().close();
+        verify(handler, never()).uploadToS3(any(), anyLong(), any(), any());
+        out.commit();
+        out.commit();
+        out.abort();
+
+        // Assert
+        assertArrayEquals(data, uploaded[0]);
+        verify(handler, times(1)).uploadToS3(any(), anyLong(), any(), any());
+    }
+}
@@ -0,0 +1,175 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Font;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.AcroFields;
+import com.lowagie.text.pdf.PdfArray;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.tsp.TimeStampToken;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Shared fixtures for tests that need real keys, certificates and PDFs, i.e.
+ * end-to-end sign and verify tests. Logic that works without a signed
+ * document, such as resolving placements or parsing config, is tested
+ * directly instead of through a full sign.
+ */
+final class TestFixtures {
+
+    private static KeyPair keyPair;
+    private static X509Certificate certificate;
+
+    private TestFixtures() {
+    }
+
+    static synchronized KeyPair keyPair() throws Exception {
+        if (keyPair == null) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            keyPair = generator.generateKeyPair();
+        }
+        return keyPair;
+    }
+
+    static synchronized X509Certificate certificate() throws Exception {
+        if (certificate == null) {
+            X500Name name = new X500Name("CN=Test Signer,O=ACME");
+            Date now = new Date();
+            certificate = new JcaX509CertificateConverter().getCertificate(
+                    new JcaX509v3CertificateBuilder(name, BigInteger.ONE, now,
+                            new Date(now.getTime() + 86_400_000L), name, keyPair().getPublic())
+                            .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair().getPrivate())));
+        }
+        return certificate;
+    }
+
+    static byte[] pdf(int pages) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        for (int i = 1; i <= pages; i++) {
+            document.add(new Paragraph("Page " + i));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+
+    static SignParams signParams(String src, String dest) throws Exception {
+        SignParams params = new SignParams();
+        params.setSrc(src);
+        params.setDest(dest);
+        params.setKey(keyPair().getPrivate());
+        params.setChain(new Certificate[] { certificate() });
+        params.setReason("Test Reason");
+        params.setContact("Test Contact");
+        params.setLocation("Test Location");
+        params.setFont(new Font(Font.HELVETICA, 9));
+        params.setRect(new Rectangle(0, 609, 278, 550));
+        params.setPage(1);
+        return params;
+    }
+
+    /**
+     * Checks that every signature in the document is cryptographically valid
+     * and that the last one covers the whole document.
+     */
+    static boolean signaturesValid(byte[] pdf, byte[] password) throws Exception {
+        return signaturesValid(pdf, password, certificate());
+    }
+
+    static boolean signaturesValid(byte[] pdf, byte[] password, X509Certificate signer) throws Exception {
+        PdfReader reader = new PdfReader(pdf, password);
+        AcroFields fields = reader.getAcroFields();
+        if (fields.getSignatureNames().isEmpty()) {
+            return false;
+        }
+
+        for (String name : fields.getSignatureNames()) {
+            PdfDictionary sig = fields.getSignatureDictionary(name);
+            PdfArray range = sig.getAsArray(PdfName.BYTERANGE);
+            ByteArrayOutputStream signed = new ByteArrayOutputStream();
+            for (int i = 0; i < range.size(); i += 2) {
+                signed.write(pdf, range.getAsNumber(i).intValue(), range.getAsNumber(i + 1).intValue());
+            }
+
+            CMSSignedData cms = cms(sig, signed.toByteArray());
+            if (cms == null) {
+                return false;
+            }
+            for (SignerInformation info : cms.getSignerInfos().getSigners()) {
+                if (!info.verify(new JcaSimpleSignerInfoVerifierBuilder().build(signer))) {
+                    return false;
+                }
+            }
+        }
+
+        String last = fields.getSignatureNames().get(fields.getSignatureNames().size() - 1);
+        return fields.signatureCoversWholeDocument(last);
+    }
+
+    /**
+     * Returns the signed data of a signature, or null if the digest it carries
+     * doesn't match the signed ranges.
+     */
+    static CMSSignedData cms(PdfDictionary sig, byte[] signed) throws Exception {
+        byte[] contents = sig.getAsString(PdfName.CONTENTS).getOriginalBytes();
+        if (PdfName.ADBE_PKCS7_DETACHED.equals(sig.getAsName(PdfName.SUBFILTER))) {
+            // The signed attributes carry the digest, checked by SignerInformation.verify.
+            return new CMSSignedData(new CMSProcessableByteArray(signed), contents);
+        }
+
+        // adbe.pkcs7.sha1 encapsulates the SHA-1 digest of the signed ranges.
+        CMSSignedData cms = new CMSSignedData(contents);
+        byte[] digest = (byte[]) cms.getSignedContent().getContent();
+        if (!Arrays.equals(digest, MessageDigest.getInstance("SHA-1").digest(signed))) {
+            return null;
+        }
+        return cms;
+    }
+
+    /**
+     * Returns the RFC 3161 timestamp token of the document's first signature,
+     * or null if it has none.
+     */
+    static TimeStampToken timestampToken(byte[] pdf, byte[] password) throws Exception {
+        PdfReader reader = new PdfReader(pdf, password);
+        AcroFields fields = reader.getAcroFields();
+        PdfDictionary sig = fields.getSignatureDictionary(fields.getSignatureNames().get(0));
+        CMSSignedData cms = new CMSSignedData(sig.getAsString(PdfName.CONTENTS).getOriginalBytes());
+        SignerInformation signer = cms.getSignerInfos().getSigners().iterator().next();
+        if (signer.getUnsignedAttributes() == null) {
+            return null;
+        }
+        Attribute attr = signer.getUnsignedAttributes().get(PKCSObjectIdentifiers.id_aa_signatureTimeStampToken);
+        if (attr == null) {
+            return null;
+        }
+        return new TimeStampToken(new CMSSignedData(attr.getAttrValues().getObjectAt(0).toASN1Primitive().getEncoded()));
+    }
+}
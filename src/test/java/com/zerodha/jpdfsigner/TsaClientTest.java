@@ -0,0 +1,115 @@
+package com.zerodha.jpdfsigner;
+
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.tsp.TimeStampToken;
+import org.bouncycastle.cms.CMSSignedData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TsaClientTest {
+
+    private LocalTsa primary;
+    private LocalTsa fallback;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = new LocalTsa();
+        fallback = new LocalTsa();
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        fallback.close();
+    }
+
+    private TsaClient client(String... urls) {
+        return new TsaClient(Arrays.asList(urls), Duration.ofSeconds(5), 4, "SHA-256", 4096, 2, 60_000);
+    }
+
+    @Test
+    void fromConfig_withoutUrls_returnsNull() {
+        // Act & Assert
+        assertNull(TsaClient.fromConfig(new Properties()));
+    }
+
+    @Test
+    void timestamp_returnsValidTokenForImprint() throws Exception {
+        // Arrange
+        TsaClient client = client(primary.url());
+        byte[] imprint = MessageDigest.getInstance("SHA-256").digest("data".getBytes());
+        long before = Metrics.histogram(TsaClient.LATENCY_METRIC).getCount();
+
+        // Act
+        byte[] encoded = client.timestamp(imprint);
+
+        // Assert
+        TimeStampToken token = new TimeStampToken(new CMSSignedData(encoded));
+        token.validate(new JcaSimpleSignerInfoVerifierBuilder().build(primary.certificate()));
+        assertArrayEquals(imprint, token.getTimeStampInfo().getMessageImprintDigest());
+        assertTrue(Metrics.histogram(TsaClient.LATENCY_METRIC).getCount() > before);
+    }
+
+    @Test
+    void timestamp_whenFirstTsaFails_usesFallback() throws Exception {
+        // Arrange
+        primary.setFailing(true);
+        TsaClient client = client(primary.url(), fallback.url());
+        byte[] imprint = MessageDigest.getInstance("SHA-256").digest("data".getBytes());
+
+        // Act
+        byte[] encoded = client.timestamp(imprint);
+
+        // Assert
+        TimeStampToken token = new TimeStampToken(new CMSSignedData(encoded));
+        token.validate(new JcaSimpleSignerInfoVerifierBuilder().build(fallback.certificate()));
+        assertEquals(1, primary.requests());
+    }
+
+    @Test
+    void timestamp_afterRepeatedFailures_skipsOpenBreaker() throws Exception {
+        // Arrange
+        primary.setFailing(true);
+        TsaClient client = client(primary.url(), fallback.url());
+        byte[] imprint = MessageDigest.getInstance("SHA-256").digest("data".getBytes());
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            client.timestamp(imprint);
+        }
+
+        // Assert
+        assertTrue(client.isBreakerOpen(primary.url()));
+        assertFalse(client.isBreakerOpen(fallback.url()));
+        assertEquals(2, primary.requests());
+        assertEquals(5, fallback.requests());
+    }
+
+    @Test
+    void timestamp_whenAllTsasFail_throwsException() throws Exception {
+        // Arrange
+        primary.setFailing(true);
+        TsaClient client = new TsaClient(Collections.singletonList(primary.url()), Duration.ofSeconds(5), 4,
+                "SHA-256", 4096, 5, 60_000);
+        byte[] imprint = MessageDigest.getInstance("SHA-256").digest("data".getBytes());
+
+        // Act & Assert
+        IOException e = assertThrows(IOException.class, () -> client.timestamp(imprint));
+        assertEquals("No TSA available", e.getMessage());
+    }
+}
@@ -0,0 +1,97 @@
+package com.zerodha.jpdfsigner;
+
+import io.undertow.Undertow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerifyRequestTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private Undertow server;
+    private URI uri;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(2);
+        SignatureVerifier verifier = new SignatureVerifier(
+                Collections.singletonList(TestFixtures.certificate()), null);
+        VerifyRequest request = new VerifyRequest(verifier, executor);
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(request::handleRequest)
+                .build();
+        server.start();
+
+        int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        uri = URI.create("http://localhost:" + port + "/verify");
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        executor.shutdown();
+    }
+
+    @Test
+    void handleRequest_signedDocument_returnsOkResult() throws Exception {
+        // Arrange
+        Path src = tempDir.resolve("in.pdf");
+        Path dest = tempDir.resolve("out.pdf");
+        Files.write(src, TestFixtures.pdf(1));
+        new OpenPdfSigner().sign(TestFixtures.signParams(src.toString(), dest.toString()));
+
+        // Act
+        HttpResponse<String> response = post("{\"input_file\":\"" + dest + "\"}");
+
+        // Assert
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"status\":\"ok\""), response.body());
+    }
+
+    @Test
+    void handleRequest_missingFile_returnsNotFound() throws Exception {
+        // Act
+        HttpResponse<String> response = post("{\"input_file\":\"" + tempDir.resolve("missing.pdf") + "\"}");
+
+        // Assert
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    void handleRequest_missingInputFile_returnsBadRequest() throws Exception {
+        // Act
+        HttpResponse<String> response = post("{}");
+
+        // Assert
+        assertEquals(400, response.statusCode());
+    }
+
+    private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,74 @@
+package com.zerodha.jpdfsigner;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.security.cert.Certificate;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WarmupTest {
+
+    private static SignatureConfig sigConfig() throws Exception {
+        return new SignatureConfig(new Font(Font.HELVETICA, 9), "Reason", "Contact", "Location",
+                new Rectangle(0, 0, 100, 100), 1, TestFixtures.keyPair().getPrivate(),
+                new Certificate[] { TestFixtures.certificate() });
+    }
+
+    @Test
+    void run_signsIterationsThroughSignerAndIsDone() throws Exception {
+        // Arrange
+        OpenPdfSigner app = spy(new OpenPdfSigner());
+        Warmup warmup = new Warmup(app, sigConfig(), 4);
+
+        // Act
+        warmup.run();
+
+        // Assert
+        assertTrue(warmup.isDone());
+        verify(app, times(4)).sign(any(PdfReader.class), any(OutputStream.class), any(SignParams.class));
+    }
+
+    @Test
+    void run_signFails_isStillDone() throws Exception {
+        // Arrange
+        OpenPdfSigner app = mock(OpenPdfSigner.class);
+        doThrow(new java.io.IOException("boom"))
+                .when(app).sign(any(PdfReader.class), any(OutputStream.class), any(SignParams.class));
+        Warmup warmup = new Warmup(app, sigConfig(), 4);
+
+        // Act
+        warmup.run();
+
+        // Assert
+        assertTrue(warmup.isDone());
+        verify(app, times(1)).sign(any(PdfReader.class), any(OutputStream.class), any(SignParams.class));
+    }
+
+    @Test
+    void start_disabled_isDoneImmediately() throws Exception {
+        // Arrange
+        Properties config = new Properties();
+        config.setProperty("warmup_iterations", "0");
+        OpenPdfSigner app = mock(OpenPdfSigner.class);
+        Warmup warmup = Warmup.fromConfig(config, app, sigConfig());
+
+        // Act
+        warmup.start();
+
+        // Assert
+        assertTrue(warmup.isDone());
+        verify(app, never()).sign(any(PdfReader.class), any(OutputStream.class), any(SignParams.class));
+    }
+}